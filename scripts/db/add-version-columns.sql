@@ -0,0 +1,18 @@
+-- Colunas de versão (@Version) para o controle otimista de workouts e exercícios (ETag / If-Match).
+-- Em bancos existentes o ddl-auto cria a coluna nula, e uma versão nula nunca casa com o If-Match nem é
+-- incrementada pelo UPDATE; este script preenche as linhas antigas com 0 e fixa o NOT NULL.
+-- Executar com a aplicação parada: psql -U gymuser -d simplegymdb -f scripts/db/add-version-columns.sql
+
+begin;
+
+alter table workout add column if not exists version bigint;
+update workout set version = 0 where version is null;
+alter table workout alter column version set default 0;
+alter table workout alter column version set not null;
+
+alter table exercise add column if not exists version bigint;
+update exercise set version = 0 where version is null;
+alter table exercise alter column version set default 0;
+alter table exercise alter column version set not null;
+
+commit;
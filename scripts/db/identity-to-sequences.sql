@@ -0,0 +1,21 @@
+-- Migra as PKs de IDENTITY para sequências com allocationSize = 50 (otimizador pooled do Hibernate).
+-- Só é necessário em bancos criados antes da mudança; em bancos novos o ddl-auto cria as sequências.
+-- O pooled usa o valor de nextval como teto do bloco (ids de nextval - 49 até nextval), por isso o
+-- próximo valor precisa ser max(id) + 50.
+-- Executar com a aplicação parada: psql -U gymuser -d simplegymdb -f scripts/db/identity-to-sequences.sql
+
+begin;
+
+create sequence if not exists user_seq start with 1 increment by 50;
+create sequence if not exists workout_seq start with 1 increment by 50;
+create sequence if not exists exercise_seq start with 1 increment by 50;
+
+select setval('user_seq', coalesce((select max(user_id) from "user"), 0) + 50, false);
+select setval('workout_seq', coalesce((select max(workout_id) from workout), 0) + 50, false);
+select setval('exercise_seq', coalesce((select max(exercise_id) from exercise), 0) + 50, false);
+
+alter table "user" alter column user_id drop identity if exists;
+alter table workout alter column workout_id drop identity if exists;
+alter table exercise alter column exercise_id drop identity if exists;
+
+commit;
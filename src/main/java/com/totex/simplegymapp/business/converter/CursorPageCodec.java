@@ -0,0 +1,51 @@
+package com.totex.simplegymapp.business.converter;
+
+import com.totex.simplegymapp.business.dto.CursorPage;
+import com.totex.simplegymapp.infrastructure.cache.CacheCodec;
+import com.totex.simplegymapp.infrastructure.cache.CompactReader;
+import com.totex.simplegymapp.infrastructure.cache.CompactWriter;
+import org.springframework.stereotype.Component;
+
+import static com.totex.simplegymapp.infrastructure.cache.CompactWriter.presence;
+
+@Component
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class CursorPageCodec implements CacheCodec<CursorPage> {
+
+    private static final int HAS_NEXT = 1;
+    private static final int TOTAL_ELEMENTS = 2;
+
+    @Override
+    public int tag() {
+        return 19;
+    }
+
+    @Override
+    public Class<CursorPage> type() {
+        return CursorPage.class;
+    }
+
+    @Override
+    public void write(CursorPage page, CompactWriter out) {
+        out.writeByte((page.isHasNext() ? HAS_NEXT : 0) | presence(page.getTotalElements(), TOTAL_ELEMENTS));
+        // Página genérica: cada elemento leva o próprio tag
+        out.writeList(page.getContent(), (element, writer) -> writer.writeValue(element));
+        out.writeString(page.getNextCursor());
+        if (page.getTotalElements() != null) {
+            out.writeVarLong(page.getTotalElements());
+        }
+    }
+
+    @Override
+    public CursorPage read(CompactReader in) {
+        int flags = in.readByte();
+        CursorPage page = new CursorPage();
+        page.setHasNext((flags & HAS_NEXT) != 0);
+        page.setContent(in.readList(CompactReader::readValue));
+        page.setNextCursor(in.readString());
+        if ((flags & TOTAL_ELEMENTS) != 0) {
+            page.setTotalElements(in.readVarLong());
+        }
+        return page;
+    }
+}
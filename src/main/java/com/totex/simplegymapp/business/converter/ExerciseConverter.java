@@ -3,6 +3,7 @@ package com.totex.simplegymapp.business.converter;
 import com.totex.simplegymapp.business.dto.ExerciseDto;
 import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
 import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import com.totex.simplegymapp.infrastructure.repository.projection.ExerciseSummary;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -14,6 +15,18 @@ public class ExerciseConverter {
         dto.setWorkoutId(model.getWorkout().getWorkoutId());
         dto.setSeries(model.getSeries());
         dto.setRepetitions(model.getRepetitions());
+        dto.setVersion(model.getVersion());
+        return dto;
+    }
+
+    public ExerciseDto toExerciseDto(ExerciseSummary summary) {
+        ExerciseDto dto = new ExerciseDto();
+        dto.setExerciseId(summary.exerciseId());
+        dto.setExerciseName(summary.exerciseName());
+        dto.setWorkoutId(summary.workoutId());
+        dto.setSeries(summary.series());
+        dto.setRepetitions(summary.repetitions());
+        dto.setVersion(summary.version());
         return dto;
     }
 
@@ -26,4 +39,11 @@ public class ExerciseConverter {
         model.setWorkout(workout);
         return model;
     }
+
+    // Exercício novo: o id vem da sequência; um id enviado pelo cliente transformaria o persist em merge
+    public ExerciseModel toNewExerciseModel(ExerciseDto dto, WorkoutModel workout) {
+        ExerciseModel model = toExerciseModel(dto, workout);
+        model.setExerciseId(null);
+        return model;
+    }
 }
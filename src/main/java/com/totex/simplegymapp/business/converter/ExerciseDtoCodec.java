@@ -0,0 +1,65 @@
+package com.totex.simplegymapp.business.converter;
+
+import com.totex.simplegymapp.business.dto.ExerciseDto;
+import com.totex.simplegymapp.infrastructure.cache.CacheCodec;
+import com.totex.simplegymapp.infrastructure.cache.CompactReader;
+import com.totex.simplegymapp.infrastructure.cache.CompactWriter;
+import org.springframework.stereotype.Component;
+
+import static com.totex.simplegymapp.infrastructure.cache.CompactWriter.presence;
+
+@Component
+public class ExerciseDtoCodec implements CacheCodec<ExerciseDto> {
+
+    private static final int EXERCISE_ID = 1;
+    private static final int WORKOUT_ID = 2;
+    private static final int VERSION = 4;
+
+    @Override
+    public int tag() {
+        return 18;
+    }
+
+    @Override
+    public Class<ExerciseDto> type() {
+        return ExerciseDto.class;
+    }
+
+    @Override
+    public void write(ExerciseDto dto, CompactWriter out) {
+        out.writeByte(presence(dto.getExerciseId(), EXERCISE_ID)
+                | presence(dto.getWorkoutId(), WORKOUT_ID)
+                | presence(dto.getVersion(), VERSION));
+        if (dto.getExerciseId() != null) {
+            out.writeVarLong(dto.getExerciseId());
+        }
+        out.writeString(dto.getExerciseName());
+        out.writeSignedInt(dto.getSeries());
+        out.writeSignedInt(dto.getRepetitions());
+        if (dto.getWorkoutId() != null) {
+            out.writeVarLong(dto.getWorkoutId());
+        }
+        if (dto.getVersion() != null) {
+            out.writeVarLong(dto.getVersion());
+        }
+    }
+
+    @Override
+    public ExerciseDto read(CompactReader in) {
+        int present = in.readByte();
+        ExerciseDto dto = new ExerciseDto();
+        if ((present & EXERCISE_ID) != 0) {
+            dto.setExerciseId(in.readVarLong());
+        }
+        dto.setExerciseName(in.readString());
+        dto.setSeries(in.readSignedInt());
+        dto.setRepetitions(in.readSignedInt());
+        if ((present & WORKOUT_ID) != 0) {
+            dto.setWorkoutId(in.readVarLong());
+        }
+        if ((present & VERSION) != 0) {
+            dto.setVersion(in.readVarLong());
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,53 @@
+package com.totex.simplegymapp.business.converter;
+
+import com.totex.simplegymapp.business.dto.UserResponseDto;
+import com.totex.simplegymapp.infrastructure.cache.CacheCodec;
+import com.totex.simplegymapp.infrastructure.cache.CompactReader;
+import com.totex.simplegymapp.infrastructure.cache.CompactWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import static com.totex.simplegymapp.infrastructure.cache.CompactWriter.presence;
+
+@Component
+@RequiredArgsConstructor
+public class UserResponseDtoCodec implements CacheCodec<UserResponseDto> {
+
+    private static final int USER_ID = 1;
+
+    private final WorkoutDtoCodec workoutDtoCodec;
+
+    @Override
+    public int tag() {
+        return 16;
+    }
+
+    @Override
+    public Class<UserResponseDto> type() {
+        return UserResponseDto.class;
+    }
+
+    @Override
+    public void write(UserResponseDto dto, CompactWriter out) {
+        out.writeByte(presence(dto.getUserId(), USER_ID));
+        if (dto.getUserId() != null) {
+            out.writeVarLong(dto.getUserId());
+        }
+        out.writeString(dto.getUsername());
+        out.writeString(dto.getEmail());
+        out.writeList(dto.getWorkouts(), workoutDtoCodec::write);
+    }
+
+    @Override
+    public UserResponseDto read(CompactReader in) {
+        int present = in.readByte();
+        UserResponseDto dto = new UserResponseDto();
+        if ((present & USER_ID) != 0) {
+            dto.setUserId(in.readVarLong());
+        }
+        dto.setUsername(in.readString());
+        dto.setEmail(in.readString());
+        dto.setWorkouts(in.readList(workoutDtoCodec::read));
+        return dto;
+    }
+}
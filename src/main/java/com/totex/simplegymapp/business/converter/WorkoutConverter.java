@@ -3,10 +3,17 @@ package com.totex.simplegymapp.business.converter;
 import com.totex.simplegymapp.business.dto.WorkoutDto;
 import com.totex.simplegymapp.infrastructure.model.UserModel;
 import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import com.totex.simplegymapp.infrastructure.repository.projection.WorkoutSummary;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 @Component
+@RequiredArgsConstructor
 public class WorkoutConverter {
+
+    private final ExerciseConverter exerciseConverter;
+
     public WorkoutDto toWorkoutDto(WorkoutModel model) {
         WorkoutDto dto = new WorkoutDto();
         dto.setWorkoutId(model.getWorkoutId());
@@ -14,6 +21,30 @@ public class WorkoutConverter {
         dto.setUserId(model.getUser().getUserId());
         dto.setUsername(model.getUser().getUsername());
         dto.setStartDate(model.getStartDate());
+        dto.setVersion(model.getVersion());
+        return dto;
+    }
+
+    // Workout do próprio usuário: id e username vêm do token, sem inicializar o proxy de UserModel
+    public WorkoutDto toWorkoutDto(WorkoutModel model, AuthenticatedUser owner) {
+        WorkoutDto dto = new WorkoutDto();
+        dto.setWorkoutId(model.getWorkoutId());
+        dto.setWorkoutName(model.getWorkoutName());
+        dto.setUserId(owner.userId());
+        dto.setUsername(owner.email());
+        dto.setStartDate(model.getStartDate());
+        dto.setVersion(model.getVersion());
+        return dto;
+    }
+
+    public WorkoutDto toWorkoutDto(WorkoutSummary summary) {
+        WorkoutDto dto = new WorkoutDto();
+        dto.setWorkoutId(summary.workoutId());
+        dto.setWorkoutName(summary.workoutName());
+        dto.setUserId(summary.userId());
+        dto.setUsername(summary.username());
+        dto.setStartDate(summary.startDate());
+        dto.setVersion(summary.version());
         return dto;
     }
 
@@ -22,6 +53,11 @@ public class WorkoutConverter {
         model.setWorkoutName(dto.getWorkoutName());
         model.setUser(user);
         model.setStartDate(dto.getStartDate());
+        // Exercícios aninhados entram pelo cascade de WorkoutModel.exercises
+        if (dto.getExercises() != null) {
+            dto.getExercises().forEach(exercise ->
+                    model.getExercises().add(exerciseConverter.toNewExerciseModel(exercise, model)));
+        }
         return model;
     }
 }
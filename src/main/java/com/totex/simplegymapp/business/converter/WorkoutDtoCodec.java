@@ -0,0 +1,80 @@
+package com.totex.simplegymapp.business.converter;
+
+import com.totex.simplegymapp.business.dto.WorkoutDto;
+import com.totex.simplegymapp.infrastructure.cache.CacheCodec;
+import com.totex.simplegymapp.infrastructure.cache.CompactReader;
+import com.totex.simplegymapp.infrastructure.cache.CompactWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+import static com.totex.simplegymapp.infrastructure.cache.CompactWriter.presence;
+
+@Component
+@RequiredArgsConstructor
+public class WorkoutDtoCodec implements CacheCodec<WorkoutDto> {
+
+    private static final int WORKOUT_ID = 1;
+    private static final int START_DATE = 2;
+    private static final int USER_ID = 4;
+    private static final int VERSION = 8;
+
+    private final ExerciseDtoCodec exerciseDtoCodec;
+
+    @Override
+    public int tag() {
+        return 17;
+    }
+
+    @Override
+    public Class<WorkoutDto> type() {
+        return WorkoutDto.class;
+    }
+
+    @Override
+    public void write(WorkoutDto dto, CompactWriter out) {
+        out.writeByte(presence(dto.getWorkoutId(), WORKOUT_ID)
+                | presence(dto.getStartDate(), START_DATE)
+                | presence(dto.getUserId(), USER_ID)
+                | presence(dto.getVersion(), VERSION));
+        if (dto.getWorkoutId() != null) {
+            out.writeVarLong(dto.getWorkoutId());
+        }
+        out.writeString(dto.getWorkoutName());
+        if (dto.getStartDate() != null) {
+            out.writeSignedLong(dto.getStartDate().toEpochDay());
+        }
+        // Exercícios sem tag: o tipo dos elementos é fixo
+        out.writeList(dto.getExercises(), exerciseDtoCodec::write);
+        out.writeString(dto.getUsername());
+        if (dto.getUserId() != null) {
+            out.writeVarLong(dto.getUserId());
+        }
+        if (dto.getVersion() != null) {
+            out.writeVarLong(dto.getVersion());
+        }
+    }
+
+    @Override
+    public WorkoutDto read(CompactReader in) {
+        int present = in.readByte();
+        WorkoutDto dto = new WorkoutDto();
+        if ((present & WORKOUT_ID) != 0) {
+            dto.setWorkoutId(in.readVarLong());
+        }
+        dto.setWorkoutName(in.readString());
+        if ((present & START_DATE) != 0) {
+            dto.setStartDate(LocalDate.ofEpochDay(in.readSignedLong()));
+        }
+        dto.setExercises(in.readList(exerciseDtoCodec::read));
+        dto.setUsername(in.readString());
+        if ((present & USER_ID) != 0) {
+            dto.setUserId(in.readVarLong());
+        }
+        if ((present & VERSION) != 0) {
+            dto.setVersion(in.readVarLong());
+        }
+        return dto;
+    }
+}
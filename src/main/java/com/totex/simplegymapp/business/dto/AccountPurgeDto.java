@@ -0,0 +1,28 @@
+package com.totex.simplegymapp.business.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountPurgeDto {
+
+    public enum Status { PENDING, IN_PROGRESS, COMPLETED }
+
+    private Long purgeId;
+    private String statusToken;
+    private Long userId;
+    private Status status;
+    private Instant requestedAt;
+    private Instant completedAt;
+    private long workoutsTotal;
+    private long workoutsDeleted;
+    private long exercisesTotal;
+    private long exercisesDeleted;
+}
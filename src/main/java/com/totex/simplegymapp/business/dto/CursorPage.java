@@ -0,0 +1,22 @@
+package com.totex.simplegymapp.business.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    // Só preenchido com ?withTotal=true (custa um COUNT)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
+}
@@ -0,0 +1,26 @@
+package com.totex.simplegymapp.business.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExerciseBatchDto {
+    public static final int MAX_EXERCISES = 200;
+
+    @NotNull
+    private Long workoutId;
+
+    @NotEmpty
+    @Size(max = MAX_EXERCISES)
+    private List<ExerciseDto> exercises;
+}
@@ -15,4 +15,5 @@ public class ExerciseDto {
     private int series;
     private int repetitions;
     private Long workoutId;
+    private Long version;
 }
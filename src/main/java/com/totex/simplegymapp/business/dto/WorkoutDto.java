@@ -1,5 +1,6 @@
 package com.totex.simplegymapp.business.dto;
 
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -16,7 +17,9 @@ public class WorkoutDto {
     private Long workoutId;
     private String workoutName;
     private LocalDate startDate;
+    @Size(max = ExerciseBatchDto.MAX_EXERCISES)
     private List<ExerciseDto> exercises;
     private String username;
     private Long userId;
+    private Long version;
 }
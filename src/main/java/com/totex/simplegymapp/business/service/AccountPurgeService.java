@@ -0,0 +1,150 @@
+package com.totex.simplegymapp.business.service;
+
+import com.totex.simplegymapp.business.dto.AccountPurgeDto;
+import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
+import com.totex.simplegymapp.infrastructure.model.AccountPurgeModel;
+import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.repository.AccountPurgeRepository;
+import com.totex.simplegymapp.infrastructure.repository.ExerciseRepository;
+import com.totex.simplegymapp.infrastructure.repository.UserRepository;
+import com.totex.simplegymapp.infrastructure.repository.WorkoutRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Exclusão de conta em duas fases: {@link #requestPurge} só marca o usuário e registra o expurgo;
+ * o {@link AccountPurgeWorker} apaga exercícios, workouts e por fim o usuário em lotes limitados,
+ * cada lote na sua própria transação curta.
+ * <p>
+ * Exercícios e workouts são removidos pelas entidades (DELETEs em batch JDBC), não por DELETE em lote:
+ * o DELETE em lote esvaziaria as regiões inteiras do cache de segundo nível a cada lote, e a remoção
+ * pela entidade tira do cache só as linhas expurgadas.
+ */
+@Service
+@RequiredArgsConstructor
+public class AccountPurgeService {
+
+    public enum ChunkType { EXERCISE, WORKOUT, USER }
+
+    public record PurgeChunk(Long purgeId, ChunkType type, int deleted, boolean completed, Duration elapsed) {
+    }
+
+    private final AccountPurgeRepository accountPurgeRepository;
+    private final UserRepository userRepository;
+    private final WorkoutRepository workoutRepository;
+    private final ExerciseRepository exerciseRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Transactional
+    public AccountPurgeDto requestPurge(UserModel user) {
+        if (user.getDeletedAt() != null) {
+            // Exclusão repetida devolve o expurgo já agendado
+            Optional<AccountPurgeModel> existing = accountPurgeRepository
+                    .findFirstByUserIdOrderByRequestedAtDesc(user.getUserId());
+            if (existing.isPresent()) {
+                return toDto(existing.get());
+            }
+        }
+
+        Instant now = Instant.now();
+        user.setDeletedAt(now);
+        userRepository.save(user);
+
+        AccountPurgeModel purge = new AccountPurgeModel();
+        purge.setStatusToken(newStatusToken());
+        purge.setUserId(user.getUserId());
+        purge.setRequestedAt(now);
+        purge.setWorkoutsTotal(workoutRepository.countByUserUserId(user.getUserId()));
+        purge.setExercisesTotal(exerciseRepository.countByWorkoutUserUserId(user.getUserId()));
+        return toDto(accountPurgeRepository.save(purge));
+    }
+
+    /**
+     * Status pelo token devolvido em {@link #requestPurge}; não exige sessão, que já foi revogada.
+     */
+    @Transactional(readOnly = true)
+    public AccountPurgeDto getPurge(String statusToken) {
+        return accountPurgeRepository.findByStatusToken(statusToken)
+                .map(this::toDto)
+                .orElseThrow(() -> new ResourceNotFoundException("Purge not found."));
+    }
+
+    /**
+     * Apaga no máximo {@code chunkSize} linhas do expurgo pendente mais antigo: exercícios primeiro,
+     * depois workouts e, quando não sobra nada, o usuário. Vazio quando não há expurgo pendente.
+     */
+    @Transactional
+    public Optional<PurgeChunk> purgeNextChunk(int chunkSize) {
+        List<AccountPurgeModel> pending = accountPurgeRepository.findNextPending(PageRequest.of(0, 1));
+        if (pending.isEmpty()) {
+            return Optional.empty();
+        }
+        AccountPurgeModel purge = pending.get(0);
+        Long userId = purge.getUserId();
+        PageRequest chunk = PageRequest.of(0, chunkSize);
+
+        List<Long> exerciseIds = exerciseRepository.findIdsByWorkoutUserUserId(userId, chunk);
+        if (!exerciseIds.isEmpty()) {
+            exerciseRepository.deleteAll(exerciseRepository.findAllById(exerciseIds));
+            purge.setExercisesDeleted(purge.getExercisesDeleted() + exerciseIds.size());
+            return Optional.of(new PurgeChunk(purge.getPurgeId(), ChunkType.EXERCISE, exerciseIds.size(), false, null));
+        }
+
+        List<Long> workoutIds = workoutRepository.findIdsByUserUserId(userId, chunk);
+        if (!workoutIds.isEmpty()) {
+            workoutRepository.deleteAll(workoutRepository.findAllByWorkoutIdIn(workoutIds));
+            purge.setWorkoutsDeleted(purge.getWorkoutsDeleted() + workoutIds.size());
+            return Optional.of(new PurgeChunk(purge.getPurgeId(), ChunkType.WORKOUT, workoutIds.size(), false, null));
+        }
+
+        // UserModel não tem cache de segundo nível: o DELETE em lote não invalida nenhuma região
+        userRepository.deleteAllByIdInBatch(List.of(userId));
+        Instant now = Instant.now();
+        purge.setCompletedAt(now);
+        return Optional.of(new PurgeChunk(purge.getPurgeId(), ChunkType.USER, 1, true,
+                Duration.between(purge.getRequestedAt(), now)));
+    }
+
+    @Transactional(readOnly = true)
+    public long countPending() {
+        return accountPurgeRepository.countByCompletedAtIsNull();
+    }
+
+    // Idade do expurgo pendente mais antigo; zero quando a fila está vazia
+    @Transactional(readOnly = true)
+    public Duration oldestPendingAge() {
+        return accountPurgeRepository.findOldestPendingRequestedAt()
+                .map(requestedAt -> Duration.between(requestedAt, Instant.now()))
+                .orElse(Duration.ZERO);
+    }
+
+    // 256 bits aleatórios: o id sequencial do expurgo seria enumerável
+    private String newStatusToken() {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private AccountPurgeDto toDto(AccountPurgeModel purge) {
+        AccountPurgeDto.Status status;
+        if (purge.getCompletedAt() != null) {
+            status = AccountPurgeDto.Status.COMPLETED;
+        } else if (purge.getExercisesDeleted() > 0 || purge.getWorkoutsDeleted() > 0) {
+            status = AccountPurgeDto.Status.IN_PROGRESS;
+        } else {
+            status = AccountPurgeDto.Status.PENDING;
+        }
+        return new AccountPurgeDto(purge.getPurgeId(), purge.getStatusToken(), purge.getUserId(), status, purge.getRequestedAt(),
+                purge.getCompletedAt(), purge.getWorkoutsTotal(), purge.getWorkoutsDeleted(),
+                purge.getExercisesTotal(), purge.getExercisesDeleted());
+    }
+}
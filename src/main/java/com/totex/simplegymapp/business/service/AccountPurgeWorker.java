@@ -0,0 +1,114 @@
+package com.totex.simplegymapp.business.service;
+
+import com.totex.simplegymapp.business.service.AccountPurgeService.ChunkType;
+import com.totex.simplegymapp.business.service.AccountPurgeService.PurgeChunk;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consome a fila de expurgos de conta. Cada execução apaga no máximo {@code max-chunks-per-run} lotes
+ * de {@code chunk-size} linhas, com uma pausa entre eles para não segurar locks nem gerar picos de WAL
+ * no primário. O intervalo é fixed-delay: execuções no mesmo nó nunca se sobrepõem.
+ */
+@Component
+public class AccountPurgeWorker {
+
+    private final AccountPurgeService accountPurgeService;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+    private final Duration chunkPause;
+
+    private final Map<ChunkType, Counter> rowsDeleted = new EnumMap<>(ChunkType.class);
+    private final Timer chunkTimer;
+    private final Timer purgeTimer;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public AccountPurgeWorker(AccountPurgeService accountPurgeService,
+                              MeterRegistry meterRegistry,
+                              @Value("${account-purge.chunk-size:500}") int chunkSize,
+                              @Value("${account-purge.max-chunks-per-run:100}") int maxChunksPerRun,
+                              @Value("${account-purge.chunk-pause:50ms}") Duration chunkPause) {
+        this.accountPurgeService = accountPurgeService;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.chunkPause = chunkPause;
+
+        for (ChunkType type : ChunkType.values()) {
+            rowsDeleted.put(type, Counter.builder("account.purge.rows.deleted")
+                    .description("Rows removed by the account purge worker")
+                    .tag("type", type.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.chunkTimer = Timer.builder("account.purge.chunk.duration")
+                .description("Time spent deleting one purge chunk")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("account.purge.duration")
+                .description("Time from account deletion request to purge completion")
+                .register(meterRegistry);
+        Gauge.builder("account.purge.pending", pending, AtomicLong::get)
+                .description("Account purges not yet completed")
+                .register(meterRegistry);
+        Gauge.builder("account.purge.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age of the oldest pending account purge")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${account-purge.interval:5s}", initialDelayString = "${account-purge.interval:5s}")
+    public void run() {
+        purgeBatch();
+    }
+
+    // Devolve quantos lotes foram apagados nesta execução
+    int purgeBatch() {
+        int chunks = 0;
+        try {
+            while (chunks < maxChunksPerRun) {
+                long start = System.nanoTime();
+                Optional<PurgeChunk> chunk = accountPurgeService.purgeNextChunk(chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                chunkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                record(chunk.get());
+                chunks++;
+
+                if (!chunkPause.isZero()) {
+                    Thread.sleep(chunkPause.toMillis());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            refreshGauges();
+        }
+        return chunks;
+    }
+
+    private void record(PurgeChunk chunk) {
+        rowsDeleted.get(chunk.type()).increment(chunk.deleted());
+        if (chunk.completed()) {
+            purgeTimer.record(chunk.elapsed());
+        }
+    }
+
+    // Gauges leem valores em memória; o banco só é consultado uma vez por execução, não a cada scrape
+    private void refreshGauges() {
+        pending.set(accountPurgeService.countPending());
+        lagMillis.set(accountPurgeService.oldestPendingAge().toMillis());
+    }
+}
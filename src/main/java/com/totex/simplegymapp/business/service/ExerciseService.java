@@ -1,18 +1,26 @@
 package com.totex.simplegymapp.business.service;
 
 import com.totex.simplegymapp.business.converter.ExerciseConverter;
+import com.totex.simplegymapp.business.dto.ExerciseBatchDto;
 import com.totex.simplegymapp.business.dto.ExerciseDto;
+import com.totex.simplegymapp.infrastructure.cache.SecondLevelCacheInvalidator;
+import com.totex.simplegymapp.infrastructure.exception.PreconditionFailedException;
 import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
 import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
 import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
 import com.totex.simplegymapp.infrastructure.repository.ExerciseRepository;
 import com.totex.simplegymapp.infrastructure.repository.WorkoutRepository;
-import com.totex.simplegymapp.infrastructure.security.JwtUtil;
+import com.totex.simplegymapp.infrastructure.repository.projection.ExerciseSummary;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -21,92 +29,128 @@ public class ExerciseService {
     private final ExerciseRepository exerciseRepository;
     private final WorkoutRepository workoutRepository;
     private final ExerciseConverter exerciseConverter;
-    private final JwtUtil jwtUtil;
+    private final WorkoutCaches workoutCaches;
+    private final SecondLevelCacheInvalidator secondLevelCacheInvalidator;
 
-    public ExerciseDto createExercise(ExerciseDto exerciseDto, String token) {
-        String email = jwtUtil.extractEmailToken(token.substring(7));
+    @Transactional
+    public ExerciseDto createExercise(ExerciseDto exerciseDto, AuthenticatedUser principal) {
+        requireOwnedWorkout(exerciseDto.getWorkoutId(), principal);
+        WorkoutModel workout = workoutRepository.getReferenceById(exerciseDto.getWorkoutId());
 
-        WorkoutModel workout = workoutRepository.findById(exerciseDto.getWorkoutId())
-                .orElseThrow(() -> new ResourceNotFoundException("Workout not found."));
-
-        if (!workout.getUser().getEmail().equals(email)) {
-            throw new ResourceNotFoundException("Workout not found.");
-        }
-
-        ExerciseModel exercise = exerciseConverter.toExerciseModel(exerciseDto, workout);
+        ExerciseModel exercise = exerciseConverter.toNewExerciseModel(exerciseDto, workout);
         exercise = exerciseRepository.save(exercise);
+        workoutCaches.evictWorkout(principal.userId(), workout.getWorkoutId());
+        secondLevelCacheInvalidator.evictOnOtherNodes(SecondLevelCacheInvalidator.WORKOUT_EXERCISES,
+                workout.getWorkoutId());
 
         return exerciseConverter.toExerciseDto(exercise);
     }
 
-    public List<ExerciseDto> getExercisesByWorkout(Long workoutId, String token) {
-        String email = jwtUtil.extractEmailToken(token.substring(7));
-
-        WorkoutModel workout = workoutRepository.findById(workoutId)
-                .orElseThrow(() -> new ResourceNotFoundException("Workout not found."));
+    @Transactional
+    public List<ExerciseDto> createExercises(ExerciseBatchDto batchDto, AuthenticatedUser principal) {
+        // Uma checagem de posse para o lote inteiro; os INSERTs saem em batch no commit
+        requireOwnedWorkout(batchDto.getWorkoutId(), principal);
+        WorkoutModel workout = workoutRepository.getReferenceById(batchDto.getWorkoutId());
 
-        if (!workout.getUser().getEmail().equals(email)) {
-            throw new ResourceNotFoundException("Workout not found.");
-        }
+        List<ExerciseModel> exercises = batchDto.getExercises().stream()
+                .map(exerciseDto -> exerciseConverter.toNewExerciseModel(exerciseDto, workout))
+                .collect(Collectors.toList());
+        workoutCaches.evictWorkout(principal.userId(), workout.getWorkoutId());
+        secondLevelCacheInvalidator.evictOnOtherNodes(SecondLevelCacheInvalidator.WORKOUT_EXERCISES,
+                workout.getWorkoutId());
 
-        return workout.getExercises().stream()
+        return exerciseRepository.saveAll(exercises).stream()
                 .map(exerciseConverter::toExerciseDto)
                 .collect(Collectors.toList());
     }
 
-    public ExerciseDto getExerciseById(Long exerciseId, String token) {
-        String email = jwtUtil.extractEmailToken(token.substring(7));
+    @Transactional(readOnly = true)
+    @Cacheable(value = "exercises", key = "@workoutCaches.exercisesKey(#principal.userId(), #workoutId)", sync = true)
+    public List<ExerciseDto> getExercisesByWorkout(Long workoutId, AuthenticatedUser principal) {
+        List<ExerciseModel> exercises = exerciseRepository.findByWorkoutWorkoutIdAndWorkoutUserUserId(
+                workoutId, principal.userId());
+        // Lista vazia é ambígua (workout sem exercícios ou de outro usuário): só então confere a posse
+        if (exercises.isEmpty()) {
+            requireOwnedWorkout(workoutId, principal);
+        }
 
-        ExerciseModel exercise = exerciseRepository.findById(exerciseId)
-                .orElseThrow(() -> new ResourceNotFoundException("Exercise not found."));
+        return exercises.stream()
+                .map(exerciseConverter::toExerciseDto)
+                .collect(Collectors.toList());
+    }
 
-        if (!exercise.getWorkout().getUser().getEmail().equals(email)) {
-            throw new ResourceNotFoundException("Exercise not found.");
-        }
+    @Transactional(readOnly = true)
+    public ExerciseDto getExerciseById(Long exerciseId, AuthenticatedUser principal) {
+        ExerciseModel exercise = findOwnedExercise(exerciseId, principal);
 
         return exerciseConverter.toExerciseDto(exercise);
     }
 
-    public ExerciseDto updateExercise(Long exerciseId, ExerciseDto exerciseDto, String token) {
-        String email = jwtUtil.extractEmailToken(token.substring(7));
+    /**
+     * {@code expectedVersion} vem do If-Match; null aceita qualquer versão ({@code If-Match: *}).
+     */
+    @Transactional
+    public ExerciseDto updateExercise(Long exerciseId, ExerciseDto exerciseDto, Long expectedVersion,
+                                      AuthenticatedUser principal) {
+        // Um UPDATE condicional com posse e versão no WHERE; nome em branco vira null e mantém o valor atual
+        String exerciseName = exerciseDto.getExerciseName() == null || exerciseDto.getExerciseName().isBlank()
+                ? null : exerciseDto.getExerciseName();
+        int updated = exerciseRepository.updateOwnedExercise(exerciseId, principal.userId(), expectedVersion,
+                exerciseName, exerciseDto.getSeries(), exerciseDto.getRepetitions());
+        if (updated == 0) {
+            throw exerciseWriteRejected(exerciseId, principal);
+        }
+        secondLevelCacheInvalidator.evictEverywhere(SecondLevelCacheInvalidator.EXERCISE, exerciseId);
 
-        ExerciseModel exercise = exerciseRepository.findById(exerciseId)
+        // Linha já atualizada, lida por PK na mesma transação (H2 não tem UPDATE ... RETURNING)
+        ExerciseDto updatedExercise = exerciseRepository.findSummaryById(exerciseId)
+                .map(exerciseConverter::toExerciseDto)
                 .orElseThrow(() -> new ResourceNotFoundException("Exercise not found."));
+        workoutCaches.evictWorkout(principal.userId(), updatedExercise.getWorkoutId());
+        return updatedExercise;
+    }
 
-        if (!exercise.getWorkout().getUser().getEmail().equals(email)) {
-            throw new ResourceNotFoundException("Exercise not found.");
+    @Transactional
+    public void deleteExercise(Long exerciseId, Long expectedVersion, AuthenticatedUser principal) {
+        // O workout entra na chave dos caches da listagem de exercícios; a mesma leitura confere a posse
+        Long workoutId = exerciseRepository.findWorkoutIdByOwnedExercise(exerciseId, principal.userId())
+                .orElseThrow(() -> new ResourceNotFoundException("Exercise not found."));
+        if (exerciseRepository.deleteOwnedExercise(exerciseId, principal.userId(), expectedVersion) == 0) {
+            secondLevelCacheInvalidator.evict(SecondLevelCacheInvalidator.EXERCISE, exerciseId);
+            throw new PreconditionFailedException("Exercise was modified by another request.");
         }
+        workoutCaches.evictWorkout(principal.userId(), workoutId);
+        secondLevelCacheInvalidator.evictEverywhere(SecondLevelCacheInvalidator.EXERCISE, exerciseId);
+        secondLevelCacheInvalidator.evictEverywhere(SecondLevelCacheInvalidator.WORKOUT_EXERCISES, workoutId);
+    }
 
-        if (exerciseDto.getExerciseName() != null && !exerciseDto.getExerciseName().isBlank()) {
-            exercise.setExerciseName(exerciseDto.getExerciseName());
-        }
-        if (exerciseDto.getSeries() > 0) {
-            exercise.setSeries(exerciseDto.getSeries());
-        }
-        if (exerciseDto.getRepetitions() > 0) {
-            exercise.setRepetitions(exerciseDto.getRepetitions());
+    // Memória constante: cada linha é convertida e entregue ao consumer sem acumular em lista.
+    // A transação mantém o cursor JDBC aberto (no Postgres o fetch size só vale fora do autocommit).
+    @Transactional(readOnly = true)
+    public void streamAllExercises(Consumer<ExerciseDto> consumer) {
+        try (Stream<ExerciseSummary> exercises = exerciseRepository.streamAll()) {
+            exercises.map(exerciseConverter::toExerciseDto).forEach(consumer);
         }
-
-        exercise = exerciseRepository.save(exercise);
-        return exerciseConverter.toExerciseDto(exercise);
     }
 
-    public void deleteExercise(Long exerciseId, String token) {
-        String email = jwtUtil.extractEmailToken(token.substring(7));
-
-        ExerciseModel exercise = exerciseRepository.findById(exerciseId)
-                .orElseThrow(() -> new ResourceNotFoundException("Exercise not found."));
-
-        if (!exercise.getWorkout().getUser().getEmail().equals(email)) {
-            throw new ResourceNotFoundException("Exercise not found.");
+    private void requireOwnedWorkout(Long workoutId, AuthenticatedUser principal) {
+        if (!workoutRepository.existsByWorkoutIdAndUserUserId(workoutId, principal.userId())) {
+            throw new ResourceNotFoundException("Workout not found.");
         }
+    }
 
-        exerciseRepository.delete(exercise);
+    // Só no caminho de falha: distingue exercício alterado por outra requisição (412) de inexistente (404).
+    // No 412 a entrada local sai do cache: se o aviso de outro nó se perdeu, a releitura traz a versão atual
+    private RuntimeException exerciseWriteRejected(Long exerciseId, AuthenticatedUser principal) {
+        if (exerciseRepository.existsByExerciseIdAndWorkoutUserUserId(exerciseId, principal.userId())) {
+            secondLevelCacheInvalidator.evict(SecondLevelCacheInvalidator.EXERCISE, exerciseId);
+            return new PreconditionFailedException("Exercise was modified by another request.");
+        }
+        return new ResourceNotFoundException("Exercise not found.");
     }
 
-    public List<ExerciseDto> getAllExercises() {
-        return exerciseRepository.findAll().stream()
-                .map(exerciseConverter::toExerciseDto)
-                .collect(Collectors.toList());
+    private ExerciseModel findOwnedExercise(Long exerciseId, AuthenticatedUser principal) {
+        return exerciseRepository.findByExerciseIdAndWorkoutUserUserId(exerciseId, principal.userId())
+                .orElseThrow(() -> new ResourceNotFoundException("Exercise not found."));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package com.totex.simplegymapp.business.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
+import com.totex.simplegymapp.infrastructure.repository.UserRepository;
+import com.totex.simplegymapp.infrastructure.repository.projection.UserExportRow;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exporta usuário, workouts e exercícios do chamador como NDJSON comprimido com gzip. Cada linha tem
+ * um campo "type" (user, workout ou exercise); os exercícios vêm logo depois do workout a que pertencem.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserExportService {
+
+    static final int FLUSH_EVERY = 500;
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    // Chamado antes de a resposta começar: depois do primeiro byte não há mais como responder 404
+    @Transactional(readOnly = true)
+    public void checkExportable(AuthenticatedUser principal) {
+        if (!userRepository.existsById(principal.userId())) {
+            throw new ResourceNotFoundException("User not found.");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportUserData(AuthenticatedUser principal, OutputStream out) throws IOException {
+        try (Stream<UserExportRow> rows = userRepository.streamExportRows(principal.userId())) {
+            Iterator<UserExportRow> iterator = rows.iterator();
+            if (!iterator.hasNext()) {
+                // Conta removida entre a checagem e o stream: aborta a resposta em vez de entregar um arquivo vazio
+                throw new ResourceNotFoundException("User not found.");
+            }
+
+            // syncFlush: cada flush entrega ao cliente o que já foi comprimido, sem esperar o fim do arquivo
+            GZIPOutputStream gzip = new GZIPOutputStream(out, GZIP_BUFFER_SIZE, true);
+            try (JsonGenerator generator = objectMapper.createGenerator(gzip)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+                UserExportRow first = iterator.next();
+                writeUser(generator, first);
+                generator.flush();
+
+                Long currentWorkoutId = null;
+                long pending = 0;
+                for (UserExportRow row = first; row != null; row = iterator.hasNext() ? iterator.next() : null) {
+                    if (row.workoutId() != null && !row.workoutId().equals(currentWorkoutId)) {
+                        writeWorkout(generator, row);
+                        currentWorkoutId = row.workoutId();
+                        pending++;
+                    }
+                    if (row.exerciseId() != null) {
+                        writeExercise(generator, row);
+                        pending++;
+                    }
+                    if (pending >= FLUSH_EVERY) {
+                        generator.flush();
+                        pending = 0;
+                    }
+                }
+            }
+            gzip.finish();
+        }
+    }
+
+    private void writeUser(JsonGenerator generator, UserExportRow row) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "user");
+        generator.writeNumberField("userId", row.userId());
+        generator.writeStringField("username", row.username());
+        generator.writeStringField("email", row.email());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private void writeWorkout(JsonGenerator generator, UserExportRow row) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "workout");
+        generator.writeNumberField("workoutId", row.workoutId());
+        generator.writeStringField("workoutName", row.workoutName());
+        generator.writeStringField("startDate", row.startDate() != null ? row.startDate().toString() : null);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private void writeExercise(JsonGenerator generator, UserExportRow row) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "exercise");
+        generator.writeNumberField("exerciseId", row.exerciseId());
+        generator.writeNumberField("workoutId", row.workoutId());
+        generator.writeStringField("exerciseName", row.exerciseName());
+        generator.writeNumberField("series", row.series());
+        generator.writeNumberField("repetitions", row.repetitions());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+}
@@ -1,6 +1,7 @@
 package com.totex.simplegymapp.business.service;
 
 import com.totex.simplegymapp.business.converter.UserConverter;
+import com.totex.simplegymapp.business.dto.AccountPurgeDto;
 import com.totex.simplegymapp.business.dto.UserCreateDto;
 import com.totex.simplegymapp.business.dto.UserPasswordUpdateDto;
 import com.totex.simplegymapp.business.dto.UserResponseDto;
@@ -9,16 +10,21 @@ import com.totex.simplegymapp.infrastructure.exception.ConflictException;
 import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
 import com.totex.simplegymapp.infrastructure.model.UserModel;
 import com.totex.simplegymapp.infrastructure.repository.UserRepository;
-import com.totex.simplegymapp.infrastructure.security.JwtUtil;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import com.totex.simplegymapp.infrastructure.security.PrincipalCache;
+import com.totex.simplegymapp.infrastructure.security.TokenEpochService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -27,8 +33,10 @@ public class UserService {
     private final UserRepository userRepository;
     private final UserConverter userConverter;
     private final PasswordEncoder passwordEncoder;
-    private final JwtUtil jwtUtil;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final PrincipalCache principalCache;
+    private final TokenEpochService tokenEpochService;
+    private final AccountPurgeService accountPurgeService;
+    private final WorkoutCaches workoutCaches;
 
     public UserResponseDto createUser(UserCreateDto userDto) {
         emailExists(userDto.getEmail());
@@ -45,22 +53,36 @@ public class UserService {
         }
     }
 
-    @Cacheable(value = "users", key = "#email")
+    @Cacheable(value = "users", key = "#email", sync = true)
     public UserResponseDto findUserByEmail(String email) {
         UserModel user = userRepository.findByEmail(email)
+                .filter(UserModel::isEnabled)
                 .orElseThrow(() -> new ResourceNotFoundException("Email not found."));
         return userConverter.toUserResponseDto(user);
     }
 
-    @CacheEvict(value = "users", key = "#email")
-    public void deleteUserByEmail(String email) {
-        redisTemplate.delete("jwt-token:" + email);
-        userRepository.deleteByEmail(email);
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "users", key = "#email"),
+            @CacheEvict(value = "users", key = "'session:' + #email")
+    })
+    public Optional<AccountPurgeDto> deleteUserByEmail(String email) {
+        // Só marca a conta e agenda o expurgo; o histórico é apagado em lotes pelo AccountPurgeWorker
+        Optional<AccountPurgeDto> purge = userRepository.findByEmail(email)
+                .map(user -> {
+                    AccountPurgeDto scheduled = accountPurgeService.requestPurge(user);
+                    // Tokens de acesso e refresh emitidos até aqui deixam de valer em todos os nós, mas só
+                    // depois do commit: num rollback a conta continua ativa e as sessões também
+                    afterCommit(() -> tokenEpochService.bump(user.getUserId()));
+                    return scheduled;
+                });
+        afterCommit(() -> principalCache.evict(email));
+        return purge;
     }
 
     @CachePut(value = "users", key = "#result.email")
-    public UserResponseDto updateUser(String token, UserUpdateDto userDto) {
-        String email = jwtUtil.extractEmailToken(token.substring(7));
+    public UserResponseDto updateUser(AuthenticatedUser principal, UserUpdateDto userDto) {
+        String email = principal.email();
 
         UserModel user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("Email not found."));
@@ -68,12 +90,14 @@ public class UserService {
         userConverter.updateUserModel(user, userDto);
 
         UserModel savedUser = userRepository.save(user);
+        principalCache.evict(email);
+        workoutCaches.evictLists(savedUser.getUserId());
         return userConverter.toUserResponseDto(savedUser);
     }
 
-    @CacheEvict(value = "users", key = "#email")
-    public void updateUserPassword(String token, UserPasswordUpdateDto dto) {
-        String email = jwtUtil.extractEmailToken(token.substring(7));
+    @CacheEvict(value = "users", key = "#principal.email")
+    public void updateUserPassword(AuthenticatedUser principal, UserPasswordUpdateDto dto) {
+        String email = principal.email();
 
         UserModel user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found."));
@@ -84,29 +108,15 @@ public class UserService {
 
         userConverter.updatePassword(user, dto.getNewPassword());
         userRepository.save(user);
+        principalCache.evict(email);
 
-        invalidateUserToken(email);
+        tokenEpochService.bump(user.getUserId());
     }
 
-    public void cacheUserToken(String email, String token) {
-        String cacheKey = "jwt-token:" + email;
-        redisTemplate.opsForValue().set(cacheKey, token, 1, TimeUnit.HOURS);
-    }
-
-    public boolean isTokenCached(String email, String token) {
-        String cacheKey = "jwt-token:" + email;
-        String cachedToken = (String) redisTemplate.opsForValue().get(cacheKey);
-        return token.equals(cachedToken);
-    }
-
-    public void invalidateUserToken(String email) {
-        String cacheKey = "jwt-token:" + email;
-        redisTemplate.delete(cacheKey);
-    }
-
-    @Cacheable(value = "users", key = "'session:' + #email")
+    @Cacheable(value = "users", key = "'session:' + #email", sync = true)
     public UserModel getUserSession(String email) {
         return userRepository.findByEmail(email)
+                .filter(UserModel::isEnabled)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found."));
     }
 
@@ -114,4 +124,17 @@ public class UserService {
     public void clearUserSession(String email) {
         // Método para limpar cache de sessão quando necessário
     }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
\ No newline at end of file
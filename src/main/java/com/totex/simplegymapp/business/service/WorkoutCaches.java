@@ -0,0 +1,98 @@
+package com.totex.simplegymapp.business.service;
+
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Chaves e invalidação dos caches "workouts" e "exercises".
+ * <p>
+ * Toda chave começa pelo id do usuário da requisição: um hit só existe para quem já passou pela
+ * checagem de posse no miss. As chaves também levam uma geração (por workout ou pela listagem do
+ * dono), lida antes da consulta ao banco. Invalidar é descartar a geração depois do commit: uma
+ * leitura que começou antes da escrita grava o resultado numa geração que ninguém mais consulta,
+ * então nenhuma leitura feita depois da escrita recebe o valor antigo. Entradas órfãs expiram pelo TTL.
+ */
+// Nome explícito: referenciado como @workoutCaches nas chaves SpEL dos @Cacheable
+@Component("workoutCaches")
+@RequiredArgsConstructor
+public class WorkoutCaches {
+
+    private final CacheManager cacheManager;
+
+    // O username do workout vem do e-mail do token, por isso o e-mail também entra na chave
+    public String workoutKey(AuthenticatedUser owner, Long workoutId, boolean withExercises) {
+        return owner.userId() + ":" + owner.email() + ":" + workoutId + ":"
+                + generation(workoutGeneration(workoutId)) + ":" + withExercises;
+    }
+
+    public String exercisesKey(Long userId, Long workoutId) {
+        return userId + ":" + workoutId + ":" + generation(workoutGeneration(workoutId));
+    }
+
+    public String listKey(Long userId, Pageable pageable, boolean withExercises) {
+        String page = pageable.isPaged() ? pageable.getPageNumber() + ":" + pageable.getPageSize() : "all";
+        return userId + ":" + generation(listGeneration(userId)) + ":" + page + ":" + pageable.getSort() + ":"
+                + withExercises;
+    }
+
+    // Workout criado ou dono alterado (a listagem traz o username): só as listagens do dono mudam
+    public void evictLists(Long userId) {
+        afterCommit(() -> generations().evict(listGeneration(userId)));
+    }
+
+    // Workout alterado ou apagado, ou exercício do workout criado/alterado/apagado: o workout, a lista
+    // de exercícios dele e as listagens do dono (que podem trazer os exercícios com expand)
+    public void evictWorkout(Long userId, Long workoutId) {
+        afterCommit(() -> {
+            generations().evict(workoutGeneration(workoutId));
+            generations().evict(listGeneration(userId));
+        });
+    }
+
+    // putIfAbsent, não get(key, loader): este grava com put simples, e dois nós no mesmo miss trocariam
+    // o token um do outro, deixando o primeiro gravar numa geração que ninguém mais consulta
+    private String generation(String key) {
+        Cache cache = generations();
+        String current = cache.get(key, String.class);
+        if (current != null) {
+            return current;
+        }
+        String created = UUID.randomUUID().toString();
+        Cache.ValueWrapper existing = cache.putIfAbsent(key, created);
+        return existing != null && existing.get() != null ? (String) existing.get() : created;
+    }
+
+    private Cache generations() {
+        return cacheManager.getCache("workouts");
+    }
+
+    private static String workoutGeneration(Long workoutId) {
+        return "gen:workout:" + workoutId;
+    }
+
+    private static String listGeneration(Long userId) {
+        return "gen:list:" + userId;
+    }
+
+    // Antes do commit outra requisição ainda leria a linha antiga do banco e a gravaria na geração nova
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
@@ -1,102 +1,212 @@
 package com.totex.simplegymapp.business.service;
 
+import com.totex.simplegymapp.business.converter.ExerciseConverter;
 import com.totex.simplegymapp.business.converter.WorkoutConverter;
+import com.totex.simplegymapp.business.dto.CursorPage;
+import com.totex.simplegymapp.business.dto.ExerciseDto;
 import com.totex.simplegymapp.business.dto.WorkoutDto;
+import com.totex.simplegymapp.infrastructure.cache.SecondLevelCacheInvalidator;
+import com.totex.simplegymapp.infrastructure.exception.InvalidCursorException;
+import com.totex.simplegymapp.infrastructure.exception.PreconditionFailedException;
 import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
 import com.totex.simplegymapp.infrastructure.model.UserModel;
 import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import com.totex.simplegymapp.infrastructure.repository.ExerciseRepository;
 import com.totex.simplegymapp.infrastructure.repository.UserRepository;
 import com.totex.simplegymapp.infrastructure.repository.WorkoutRepository;
-import com.totex.simplegymapp.infrastructure.security.JwtUtil;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class WorkoutService {
 
+    private static final String CURSOR_VERSION = "v1:";
+
     private final WorkoutRepository workoutRepository;
     private final UserRepository userRepository;
     private final WorkoutConverter workoutConverter;
-    private final JwtUtil jwtUtil;
-
-    public WorkoutDto createWorkout(String token, WorkoutDto workoutDto) {
-        String email = jwtUtil.extractEmailToken(token.substring(7));
+    private final ExerciseRepository exerciseRepository;
+    private final ExerciseConverter exerciseConverter;
+    private final WorkoutCaches workoutCaches;
+    private final SecondLevelCacheInvalidator secondLevelCacheInvalidator;
 
-        UserModel user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found."));
+    @Transactional
+    public WorkoutDto createWorkout(AuthenticatedUser principal, WorkoutDto workoutDto) {
+        // Referência pelo id do token: o INSERT só precisa da FK, sem SELECT do usuário
+        UserModel user = userRepository.getReferenceById(principal.userId());
 
+        // Workout e exercícios aninhados numa transação; os INSERTs de exercício saem em lote no commit
         WorkoutModel workout = workoutConverter.toWorkoutModel(workoutDto, user);
         workout = workoutRepository.save(workout);
-
-        return workoutConverter.toWorkoutDto(workout);
+        workoutCaches.evictLists(principal.userId());
+        // Nos outros nós, só a listagem do dono no cache de queries muda
+        secondLevelCacheInvalidator.evictOnOtherNodes(SecondLevelCacheInvalidator.WORKOUT, workout.getWorkoutId());
+
+        WorkoutDto created = workoutConverter.toWorkoutDto(workout, principal);
+        if (workoutDto.getExercises() != null) {
+            created.setExercises(workout.getExercises().stream()
+                    .map(exerciseConverter::toExerciseDto)
+                    .collect(Collectors.toList()));
+        }
+        return created;
     }
 
-    public List<WorkoutDto> getUserWorkouts(String token) {
-        String email = jwtUtil.extractEmailToken(token.substring(7));
-
-        UserModel user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found."));
-
-        return user.getWorkouts().stream()
-                .map(workoutConverter::toWorkoutDto)
-                .collect(Collectors.toList());
+    @Cacheable(value = "workouts", key = "@workoutCaches.listKey(#principal.userId(), #pageable, #withExercises)",
+            sync = true)
+    public CursorPage<WorkoutDto> getUserWorkouts(AuthenticatedUser principal, Pageable pageable,
+                                                  boolean withExercises) {
+        // Projeção em um único SELECT paginado; Slice evita o COUNT que o Page exigiria
+        Slice<WorkoutDto> slice = workoutRepository.findSummariesByUserId(principal.userId(), pageable)
+                .map(workoutConverter::toWorkoutDto);
+        List<WorkoutDto> workouts = new ArrayList<>(slice.getContent());
+        if (withExercises) {
+            attachExercises(workouts);
+        }
+        return new CursorPage<>(workouts, null, slice.hasNext(), null);
     }
 
-    public WorkoutDto getWorkoutById(Long workoutId, String token) {
-        String email = jwtUtil.extractEmailToken(token.substring(7));
-
-        WorkoutModel workout = workoutRepository.findById(workoutId)
-                .orElseThrow(() -> new ResourceNotFoundException("Workout not found."));
-
-        if (!workout.getUser().getEmail().equals(email)) {
-            throw new ResourceNotFoundException("Workout not found.");
+    @Transactional(readOnly = true)
+    @Cacheable(value = "workouts", key = "@workoutCaches.workoutKey(#principal, #workoutId, #withExercises)",
+            sync = true)
+    public WorkoutDto getWorkoutById(Long workoutId, AuthenticatedUser principal, boolean withExercises) {
+        WorkoutModel workout = findOwnedWorkout(workoutId, principal);
+
+        WorkoutDto dto = workoutConverter.toWorkoutDto(workout, principal);
+        if (withExercises) {
+            // Coleção com cache próprio: ids da coleção e exercícios saem do cache de segundo nível
+            dto.setExercises(workout.getExercises().stream()
+                    .map(exerciseConverter::toExerciseDto)
+                    .collect(Collectors.toList()));
         }
-
-        return workoutConverter.toWorkoutDto(workout);
+        return dto;
     }
 
-    public WorkoutDto updateWorkout(Long workoutId, WorkoutDto workoutDto, String token) {
-        String email = jwtUtil.extractEmailToken(token.substring(7));
+    /**
+     * {@code expectedVersion} vem do If-Match; null aceita qualquer versão ({@code If-Match: *}).
+     */
+    @Transactional
+    public WorkoutDto updateWorkout(Long workoutId, WorkoutDto workoutDto, Long expectedVersion,
+                                    AuthenticatedUser principal) {
+        // Um UPDATE condicional com posse e versão no WHERE; nome em branco vira null e mantém o valor atual
+        String workoutName = workoutDto.getWorkoutName() == null || workoutDto.getWorkoutName().isBlank()
+                ? null : workoutDto.getWorkoutName();
+        int updated = workoutRepository.updateOwnedWorkout(workoutId, principal.userId(), expectedVersion,
+                workoutName, workoutDto.getStartDate());
+        if (updated == 0) {
+            throw workoutWriteRejected(workoutId, principal);
+        }
+        workoutCaches.evictWorkout(principal.userId(), workoutId);
+        secondLevelCacheInvalidator.evictEverywhere(SecondLevelCacheInvalidator.WORKOUT, workoutId);
 
-        WorkoutModel workout = workoutRepository.findById(workoutId)
+        // Linha já atualizada, lida por PK na mesma transação (H2 não tem UPDATE ... RETURNING)
+        return workoutRepository.findSummaryById(workoutId)
+                .map(workoutConverter::toWorkoutDto)
                 .orElseThrow(() -> new ResourceNotFoundException("Workout not found."));
+    }
 
-        if (!workout.getUser().getEmail().equals(email)) {
-            throw new ResourceNotFoundException("Workout not found.");
+    @Transactional
+    public void deleteWorkout(Long workoutId, Long expectedVersion, AuthenticatedUser principal) {
+        // Dois DELETEs em lote, qualquer que seja o número de exercícios; posse e versão vão no WHERE.
+        // Se o workout não for apagado, a exceção desfaz também o DELETE dos exercícios. Os ids lidos
+        // antes são as únicas entradas de exercício que saem do cache de segundo nível
+        List<Long> exerciseIds = exerciseRepository.findIdsByWorkoutWorkoutId(workoutId);
+        exerciseRepository.deleteByOwnedWorkout(workoutId, principal.userId(), expectedVersion);
+        if (workoutRepository.deleteOwnedWorkout(workoutId, principal.userId(), expectedVersion) == 0) {
+            throw workoutWriteRejected(workoutId, principal);
         }
+        workoutCaches.evictWorkout(principal.userId(), workoutId);
+        secondLevelCacheInvalidator.evictEverywhere(SecondLevelCacheInvalidator.WORKOUT, workoutId);
+        secondLevelCacheInvalidator.evictEverywhere(SecondLevelCacheInvalidator.WORKOUT_EXERCISES, workoutId);
+        secondLevelCacheInvalidator.evictEverywhere(SecondLevelCacheInvalidator.EXERCISE, exerciseIds);
+    }
 
-        if (workoutDto.getWorkoutName() != null && !workoutDto.getWorkoutName().isBlank()) {
-            workout.setWorkoutName(workoutDto.getWorkoutName());
+    public Page<WorkoutDto> getAllWorkouts(Pageable pageable, boolean withExercises) {
+        Page<WorkoutDto> workouts = workoutRepository.findAll(pageable)
+                .map(workoutConverter::toWorkoutDto);
+        if (withExercises) {
+            attachExercises(workouts.getContent());
         }
-        if (workoutDto.getStartDate() != null) {
-            workout.setStartDate(workoutDto.getStartDate());
+        return workouts;
+    }
+
+    public CursorPage<WorkoutDto> getAllWorkouts(String cursor, int size, boolean withExercises, boolean withTotal) {
+        Slice<WorkoutModel> slice = workoutRepository.findPageAfter(decodeCursor(cursor), PageRequest.ofSize(size));
+        List<WorkoutDto> workouts = slice.getContent().stream()
+                .map(workoutConverter::toWorkoutDto)
+                .toList();
+        if (withExercises) {
+            attachExercises(workouts);
         }
 
-        workout = workoutRepository.save(workout);
-        return workoutConverter.toWorkoutDto(workout);
+        String nextCursor = slice.hasNext() ? encodeCursor(workouts.get(workouts.size() - 1).getWorkoutId()) : null;
+        Long total = withTotal ? workoutRepository.count() : null;
+        return new CursorPage<>(workouts, nextCursor, slice.hasNext(), total);
     }
 
-    public void deleteWorkout(Long workoutId, String token) {
-        String email = jwtUtil.extractEmailToken(token.substring(7));
+    private void attachExercises(List<WorkoutDto> workouts) {
+        if (workouts.isEmpty()) {
+            return;
+        }
+        // Um único SELECT ... WHERE workout_id IN (...) para a página inteira
+        List<Long> workoutIds = workouts.stream().map(WorkoutDto::getWorkoutId).toList();
+        Map<Long, List<ExerciseDto>> exercisesByWorkout = exerciseRepository.findByWorkoutWorkoutIdIn(workoutIds)
+                .stream()
+                .map(exerciseConverter::toExerciseDto)
+                .collect(Collectors.groupingBy(ExerciseDto::getWorkoutId));
+
+        workouts.forEach(workout -> workout.setExercises(
+                exercisesByWorkout.getOrDefault(workout.getWorkoutId(), new ArrayList<>())));
+    }
 
-        WorkoutModel workout = workoutRepository.findById(workoutId)
-                .orElseThrow(() -> new ResourceNotFoundException("Workout not found."));
+    // Cursor opaco: base64url de "v1:<último workoutId>"; vazio = primeira página
+    static String encodeCursor(long lastWorkoutId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_VERSION + lastWorkoutId).getBytes(StandardCharsets.UTF_8));
+    }
 
-        if (!workout.getUser().getEmail().equals(email)) {
-            throw new ResourceNotFoundException("Workout not found.");
+    static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
         }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_VERSION)) {
+                throw new InvalidCursorException("Invalid cursor.");
+            }
+            return Long.parseLong(decoded.substring(CURSOR_VERSION.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor.", e);
+        }
+    }
 
-        workoutRepository.delete(workout);
+    // Só no caminho de falha: distingue workout alterado por outra requisição (412) de inexistente (404).
+    // No 412 a entrada local sai do cache: se o aviso de outro nó se perdeu, a releitura traz a versão atual
+    private RuntimeException workoutWriteRejected(Long workoutId, AuthenticatedUser principal) {
+        if (workoutRepository.existsByWorkoutIdAndUserUserId(workoutId, principal.userId())) {
+            secondLevelCacheInvalidator.evict(SecondLevelCacheInvalidator.WORKOUT, workoutId);
+            return new PreconditionFailedException("Workout was modified by another request.");
+        }
+        return new ResourceNotFoundException("Workout not found.");
     }
 
-    public Page<WorkoutDto> getAllWorkouts(Pageable pageable) {
-        return workoutRepository.findAll(pageable)
-                .map(workoutConverter::toWorkoutDto);
+    private WorkoutModel findOwnedWorkout(Long workoutId, AuthenticatedUser principal) {
+        // Workout de outro usuário responde como inexistente
+        return workoutRepository.findByWorkoutIdAndUserUserId(workoutId, principal.userId())
+                .orElseThrow(() -> new ResourceNotFoundException("Workout not found."));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.totex.simplegymapp.controller;
+
+import com.totex.simplegymapp.infrastructure.exception.PreconditionFailedException;
+import com.totex.simplegymapp.infrastructure.exception.PreconditionRequiredException;
+
+/**
+ * ETag forte derivada do {@code @Version} da entidade ({@code "3"}). PUT e DELETE exigem If-Match com
+ * a versão lida; a comparação acontece no WHERE do próprio UPDATE/DELETE, sem lock.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    // Versão esperada pelo If-Match, ou null para "*". Sem header = 428; ETag fraca ou estranha = 412
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            throw new PreconditionRequiredException("If-Match header is required.");
+        }
+        String value = ifMatch.trim();
+        if (value.equals("*")) {
+            return null;
+        }
+        if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            try {
+                return Long.parseLong(value.substring(1, value.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // cai no 412 abaixo
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not match the current version.");
+    }
+}
@@ -1,13 +1,23 @@
 package com.totex.simplegymapp.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.totex.simplegymapp.business.dto.ExerciseBatchDto;
 import com.totex.simplegymapp.business.dto.ExerciseDto;
 import com.totex.simplegymapp.business.service.ExerciseService;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import com.totex.simplegymapp.infrastructure.security.CurrentUser;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -15,52 +25,92 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ExerciseController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int FLUSH_EVERY = 500;
+
     private final ExerciseService exerciseService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<ExerciseDto> createExercise(
             @RequestBody @Valid ExerciseDto exerciseDto,
-            @RequestHeader("Authorization") String token) {
-        ExerciseDto createdExercise = exerciseService.createExercise(exerciseDto, token);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdExercise);
+            @CurrentUser AuthenticatedUser principal) {
+        ExerciseDto createdExercise = exerciseService.createExercise(exerciseDto, principal);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(ETags.of(createdExercise.getVersion()))
+                .body(createdExercise);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<ExerciseDto>> createExercises(
+            @RequestBody @Valid ExerciseBatchDto exerciseBatchDto,
+            @CurrentUser AuthenticatedUser principal) {
+        List<ExerciseDto> createdExercises = exerciseService.createExercises(exerciseBatchDto, principal);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdExercises);
     }
 
     @GetMapping("/workout/{workoutId}")
     public ResponseEntity<List<ExerciseDto>> getExercisesByWorkout(
             @PathVariable Long workoutId,
-            @RequestHeader("Authorization") String token) {
-        List<ExerciseDto> exercises = exerciseService.getExercisesByWorkout(workoutId, token);
+            @CurrentUser AuthenticatedUser principal) {
+        List<ExerciseDto> exercises = exerciseService.getExercisesByWorkout(workoutId, principal);
         return ResponseEntity.ok(exercises);
     }
 
     @GetMapping("/{exerciseId}")
     public ResponseEntity<ExerciseDto> getExerciseById(
             @PathVariable Long exerciseId,
-            @RequestHeader("Authorization") String token) {
-        ExerciseDto exercise = exerciseService.getExerciseById(exerciseId, token);
-        return ResponseEntity.ok(exercise);
+            @CurrentUser AuthenticatedUser principal) {
+        ExerciseDto exercise = exerciseService.getExerciseById(exerciseId, principal);
+        return ResponseEntity.ok()
+                .eTag(ETags.of(exercise.getVersion()))
+                .body(exercise);
     }
 
     @PutMapping("/{exerciseId}")
     public ResponseEntity<ExerciseDto> updateExercise(
             @PathVariable Long exerciseId,
             @RequestBody @Valid ExerciseDto exerciseDto,
-            @RequestHeader("Authorization") String token) {
-        ExerciseDto updatedExercise = exerciseService.updateExercise(exerciseId, exerciseDto, token);
-        return ResponseEntity.ok(updatedExercise);
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @CurrentUser AuthenticatedUser principal) {
+        ExerciseDto updatedExercise = exerciseService.updateExercise(exerciseId, exerciseDto,
+                ETags.expectedVersion(ifMatch), principal);
+        return ResponseEntity.ok()
+                .eTag(ETags.of(updatedExercise.getVersion()))
+                .body(updatedExercise);
     }
 
     @DeleteMapping("/{exerciseId}")
     public ResponseEntity<Void> deleteExercise(
             @PathVariable Long exerciseId,
-            @RequestHeader("Authorization") String token) {
-        exerciseService.deleteExercise(exerciseId, token);
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @CurrentUser AuthenticatedUser principal) {
+        exerciseService.deleteExercise(exerciseId, ETags.expectedVersion(ifMatch), principal);
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<ExerciseDto>> getAllExercises() {
-        List<ExerciseDto> exercises = exerciseService.getAllExercises();
-        return ResponseEntity.ok(exercises);
+    public ResponseEntity<StreamingResponseBody> getAllExercises() {
+        // NDJSON escrito linha a linha enquanto o cursor avança; nada é materializado em memória
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                long[] written = {0};
+                exerciseService.streamAllExercises(exercise -> {
+                    try {
+                        generator.writeObject(exercise);
+                        generator.writeRaw('\n');
+                        if (++written[0] % FLUSH_EVERY == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(body);
     }
 }
\ No newline at end of file
@@ -1,19 +1,33 @@
 package com.totex.simplegymapp.controller;
 
+import com.totex.simplegymapp.business.dto.AccountPurgeDto;
+import com.totex.simplegymapp.business.dto.RefreshTokenDto;
 import com.totex.simplegymapp.business.dto.UserCreateDto;
 import com.totex.simplegymapp.business.dto.UserPasswordUpdateDto;
 import com.totex.simplegymapp.business.dto.UserResponseDto;
 import com.totex.simplegymapp.business.dto.UserUpdateDto;
+import com.totex.simplegymapp.business.service.AccountPurgeService;
+import com.totex.simplegymapp.business.service.UserExportService;
 import com.totex.simplegymapp.business.service.UserService;
+import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import com.totex.simplegymapp.infrastructure.security.CurrentUser;
 import com.totex.simplegymapp.infrastructure.security.JwtUtil;
+import com.totex.simplegymapp.infrastructure.security.RefreshTokenService;
+import com.totex.simplegymapp.infrastructure.security.TokenEpochService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.util.Map;
 
 @RestController
@@ -21,9 +35,15 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class UserController {
 
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
     private final UserService userService;
+    private final UserExportService userExportService;
+    private final AccountPurgeService accountPurgeService;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final TokenEpochService tokenEpochService;
+    private final RefreshTokenService refreshTokenService;
 
     @PostMapping
     public ResponseEntity<UserResponseDto> createUser(@RequestBody @Valid UserCreateDto userCreateDto) {
@@ -36,55 +56,41 @@ public class UserController {
                 new UsernamePasswordAuthenticationToken(userCreateDto.getEmail(), userCreateDto.getPassword())
         );
 
-        String token = jwtUtil.generateToken(authentication.getName());
+        UserModel user = (UserModel) authentication.getPrincipal();
+        long tokenEpoch = tokenEpochService.currentEpoch(user.getUserId());
+        String refreshToken = refreshTokenService.issue(user.getUserId(), user.getEmail(), tokenEpoch);
 
-        userService.cacheUserToken(userCreateDto.getEmail(), token);
+        return ResponseEntity.ok(tokenResponse(user.getEmail(), user.getUserId(), tokenEpoch, refreshToken));
+    }
 
-        return ResponseEntity.ok(Map.of(
-                "token", "Bearer " + token,
-                "type", "Bearer",
-                "email", authentication.getName()
-        ));
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, String>> refresh(@RequestBody @Valid RefreshTokenDto refreshTokenDto) {
+        // Sem BCrypt: o refresh token é validado por hash SHA-256 no Redis e rotacionado a cada uso
+        RefreshTokenService.RefreshedSession session = refreshTokenService.rotate(refreshTokenDto.getRefreshToken());
+
+        return ResponseEntity.ok(tokenResponse(session.email(), session.userId(), session.tokenEpoch(),
+                session.refreshToken()));
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<Map<String, String>> logout(@RequestHeader("Authorization") String token) {
-        String email = jwtUtil.extractEmailToken(token.substring(7));
-
-        userService.invalidateUserToken(email);
+    public ResponseEntity<Map<String, String>> logout(@CurrentUser AuthenticatedUser principal) {
+        // Incrementa o epoch: todos os tokens emitidos até aqui deixam de valer em qualquer nó
+        tokenEpochService.bump(principal.userId());
 
-        userService.clearUserSession(email);
+        userService.clearUserSession(principal.email());
 
         return ResponseEntity.ok(Map.of("message", "Logout successful"));
     }
 
     @PostMapping("/validate-token")
-    public ResponseEntity<Map<String, Object>> validateToken(@RequestHeader("Authorization") String token) {
-        try {
-            String jwtToken = token.substring(7);
-            String email = jwtUtil.extractEmailToken(jwtToken);
-
-            boolean isTokenCached = userService.isTokenCached(email, jwtToken);
-            boolean isTokenValid = jwtUtil.validateToken(jwtToken, email);
-
-            if (isTokenValid && isTokenCached) {
-                return ResponseEntity.ok(Map.of(
-                        "valid", true,
-                        "email", email,
-                        "message", "Token is valid"
-                ));
-            } else {
-                return ResponseEntity.ok(Map.of(
-                        "valid", false,
-                        "message", "Token is invalid or expired"
-                ));
-            }
-        } catch (Exception e) {
-            return ResponseEntity.ok(Map.of(
-                    "valid", false,
-                    "message", "Invalid token format"
-            ));
-        }
+    public ResponseEntity<Map<String, Object>> validateToken(@CurrentUser AuthenticatedUser principal) {
+        // Assinatura, expiração e epoch já foram verificados pelo JwtRequestFilter;
+        // tokens revogados nem chegam aqui (401)
+        return ResponseEntity.ok(Map.of(
+                "valid", true,
+                "email", principal.email(),
+                "message", "Token is valid"
+        ));
     }
 
     @GetMapping()
@@ -93,23 +99,58 @@ public class UserController {
     }
 
     @DeleteMapping("/{email}")
-    public ResponseEntity<Void> deleteByEmail(@PathVariable String email) {
-        userService.deleteUserByEmail(email);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<AccountPurgeDto> deleteByEmail(@PathVariable String email) {
+        // 202: a conta já está desativada, o histórico é expurgado em segundo plano
+        return userService.deleteUserByEmail(email)
+                .map(purge -> ResponseEntity.accepted()
+                        .location(URI.create("/user/purges/" + purge.getStatusToken()))
+                        .body(purge))
+                .orElseGet(() -> ResponseEntity.ok().build());
+    }
+
+    // Aberto: o token aleatório é a credencial, porque a exclusão revoga a sessão de quem consulta
+    @GetMapping("/purges/{statusToken}")
+    public ResponseEntity<AccountPurgeDto> getPurge(@PathVariable String statusToken) {
+        return ResponseEntity.ok(accountPurgeService.getPurge(statusToken));
     }
 
     @PutMapping
     public ResponseEntity<UserResponseDto> updateUser(
             @RequestBody @Valid UserUpdateDto userDto,
-            @RequestHeader("Authorization") String token) {
-        return ResponseEntity.ok(userService.updateUser(token, userDto));
+            @CurrentUser AuthenticatedUser principal) {
+        return ResponseEntity.ok(userService.updateUser(principal, userDto));
     }
 
     @PutMapping("/password")
     public ResponseEntity<Map<String, String>> updatePassword(
-            @RequestHeader("Authorization") String token,
+            @CurrentUser AuthenticatedUser principal,
             @RequestBody @Valid UserPasswordUpdateDto dto) {
-        userService.updateUserPassword(token, dto);
+        userService.updateUserPassword(principal, dto);
         return ResponseEntity.ok(Map.of("message", "Password updated successfully"));
     }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUserData(@CurrentUser AuthenticatedUser principal) {
+        userExportService.checkExportable(principal);
+        // Arquivo .ndjson.gz escrito enquanto o cursor avança; nem o JSON nem o gzip ficam inteiros em memória
+        StreamingResponseBody body = out -> userExportService.exportUserData(principal, out);
+        return ResponseEntity.ok()
+                .contentType(GZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("simplegym-export-" + principal.userId() + ".ndjson.gz")
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    private Map<String, String> tokenResponse(String email, Long userId, long tokenEpoch, String refreshToken) {
+        String token = jwtUtil.generateToken(email, userId, tokenEpoch);
+        return Map.of(
+                "token", "Bearer " + token,
+                "type", "Bearer",
+                "email", email,
+                "expiresIn", String.valueOf(jwtUtil.getExpirationTime() / 1000),
+                "refreshToken", refreshToken
+        );
+    }
 }
\ No newline at end of file
@@ -1,69 +1,120 @@
 package com.totex.simplegymapp.controller;
 
+import com.totex.simplegymapp.business.dto.CursorPage;
 import com.totex.simplegymapp.business.dto.WorkoutDto;
 import com.totex.simplegymapp.business.service.WorkoutService;
+import com.totex.simplegymapp.infrastructure.exception.InvalidSortException;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import com.totex.simplegymapp.infrastructure.security.CurrentUser;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/workouts")
 @RequiredArgsConstructor
 public class WorkoutController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 200;
+    private static final Set<String> MY_WORKOUTS_SORT_PROPERTIES = Set.of("startDate", "workoutName", "workoutId");
+
     private final WorkoutService workoutService;
 
     @PostMapping
     public ResponseEntity<WorkoutDto> createWorkout(
             @RequestBody @Valid WorkoutDto workoutDto,
-            @RequestHeader("Authorization") String token) {
-        WorkoutDto createdWorkout = workoutService.createWorkout(token, workoutDto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdWorkout);
+            @CurrentUser AuthenticatedUser principal) {
+        WorkoutDto createdWorkout = workoutService.createWorkout(principal, workoutDto);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(ETags.of(createdWorkout.getVersion()))
+                .body(createdWorkout);
     }
 
     @GetMapping("/my-workouts")
     public ResponseEntity<List<WorkoutDto>> getMyWorkouts(
-            @RequestHeader("Authorization") String token) {
-        List<WorkoutDto> workouts = workoutService.getUserWorkouts(token);
-        return ResponseEntity.ok(workouts);
+            @CurrentUser AuthenticatedUser principal,
+            @PageableDefault(size = 50, sort = "startDate", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Set<String> expand) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!MY_WORKOUTS_SORT_PROPERTIES.contains(order.getProperty())) {
+                throw new InvalidSortException("Invalid sort property: " + order.getProperty());
+            }
+        }
+        // Sem page/size a resposta continua sendo a lista completa; paginar é opcional
+        Pageable request = page == null && size == null ? Pageable.unpaged(pageable.getSort()) : pageable;
+        CursorPage<WorkoutDto> workouts = workoutService.getUserWorkouts(principal, request, expandsExercises(expand));
+        return ResponseEntity.ok()
+                .header("X-Has-Next", String.valueOf(workouts.isHasNext()))
+                .body(workouts.getContent());
     }
 
     @GetMapping("/{workoutId}")
     public ResponseEntity<WorkoutDto> getWorkoutById(
             @PathVariable Long workoutId,
-            @RequestHeader("Authorization") String token) {
-        WorkoutDto workout = workoutService.getWorkoutById(workoutId, token);
-        return ResponseEntity.ok(workout);
+            @CurrentUser AuthenticatedUser principal,
+            @RequestParam(required = false) Set<String> expand) {
+        WorkoutDto workout = workoutService.getWorkoutById(workoutId, principal, expandsExercises(expand));
+        return ResponseEntity.ok()
+                .eTag(ETags.of(workout.getVersion()))
+                .body(workout);
     }
 
     @PutMapping("/{workoutId}")
     public ResponseEntity<WorkoutDto> updateWorkout(
             @PathVariable Long workoutId,
             @RequestBody @Valid WorkoutDto workoutDto,
-            @RequestHeader("Authorization") String token) {
-        WorkoutDto updatedWorkout = workoutService.updateWorkout(workoutId, workoutDto, token);
-        return ResponseEntity.ok(updatedWorkout);
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @CurrentUser AuthenticatedUser principal) {
+        WorkoutDto updatedWorkout = workoutService.updateWorkout(workoutId, workoutDto,
+                ETags.expectedVersion(ifMatch), principal);
+        return ResponseEntity.ok()
+                .eTag(ETags.of(updatedWorkout.getVersion()))
+                .body(updatedWorkout);
     }
 
     @DeleteMapping("/{workoutId}")
     public ResponseEntity<Void> deleteWorkout(
             @PathVariable Long workoutId,
-            @RequestHeader("Authorization") String token) {
-        workoutService.deleteWorkout(workoutId, token);
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @CurrentUser AuthenticatedUser principal) {
+        workoutService.deleteWorkout(workoutId, ETags.expectedVersion(ifMatch), principal);
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/all")
     public ResponseEntity<Page<WorkoutDto>> getAllWorkouts(
-            @PageableDefault(size = 20, sort = "workoutId") Pageable pageable) {
-        Page<WorkoutDto> workouts = workoutService.getAllWorkouts(pageable);
+            @PageableDefault(size = 20, sort = "workoutId") Pageable pageable,
+            @RequestParam(required = false) Set<String> expand) {
+        Page<WorkoutDto> workouts = workoutService.getAllWorkouts(pageable, expandsExercises(expand));
         return ResponseEntity.ok(workouts);
     }
+
+    // Modo cursor (keyset): ativado pela presença de ?cursor (vazio na primeira página), sem COUNT por padrão
+    @GetMapping(value = "/all", params = "cursor")
+    public ResponseEntity<CursorPage<WorkoutDto>> getAllWorkoutsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @RequestParam(required = false) Set<String> expand) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        CursorPage<WorkoutDto> workouts = workoutService.getAllWorkouts(cursor, pageSize, expandsExercises(expand), withTotal);
+        return ResponseEntity.ok(workouts);
+    }
+
+    // ?expand=exercises embute os exercícios na resposta (uma tela = uma requisição)
+    private static boolean expandsExercises(Set<String> expand) {
+        return expand != null && expand.contains("exercises");
+    }
 }
\ No newline at end of file
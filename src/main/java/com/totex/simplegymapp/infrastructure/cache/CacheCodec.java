@@ -0,0 +1,20 @@
+package com.totex.simplegymapp.infrastructure.cache;
+
+/**
+ * Codec binário de um tipo guardado em cache, registrado no {@link CompactRedisSerializer}.
+ * Codecs declarados como bean entram no serializer do Redis automaticamente.
+ */
+public interface CacheCodec<T> {
+
+    /**
+     * Identifica o tipo nos bytes gravados. Valores de 0 a 15 são reservados ao serializer; depois de
+     * publicado, o tag não muda (outros nós e entradas já gravadas dependem dele).
+     */
+    int tag();
+
+    Class<T> type();
+
+    void write(T value, CompactWriter out);
+
+    T read(CompactReader in);
+}
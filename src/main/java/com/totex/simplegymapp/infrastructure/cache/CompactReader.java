@@ -0,0 +1,107 @@
+package com.totex.simplegymapp.infrastructure.cache;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Leitura do formato gravado pelo {@link CompactWriter}. Bytes truncados ou corrompidos
+ * viram {@link SerializationException}.
+ */
+public final class CompactReader {
+
+    private final CompactRedisSerializer serializer;
+    private final byte[] bytes;
+    private int position;
+
+    CompactReader(CompactRedisSerializer serializer, byte[] bytes, int position) {
+        this.serializer = serializer;
+        this.bytes = bytes;
+        this.position = position;
+    }
+
+    public int readByte() {
+        require(1);
+        return bytes[position++] & 0xFF;
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint in cached value");
+    }
+
+    public int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    public long readSignedLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public int readSignedInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public String readString() {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public <T> List<T> readList(Function<CompactReader, T> element) {
+        int size = readVarInt() - 1;
+        if (size < 0) {
+            return null;
+        }
+        // Cada elemento ocupa ao menos um byte: um tamanho maior que o restante é lixo, não alocação
+        require(size);
+        List<T> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(element.apply(this));
+        }
+        return values;
+    }
+
+    public Object readValue() {
+        return serializer.readValue(this);
+    }
+
+    byte[] readBytes(int length) {
+        require(length);
+        byte[] value = new byte[length];
+        System.arraycopy(bytes, position, value, 0, length);
+        position += length;
+        return value;
+    }
+
+    boolean hasRemaining() {
+        return position < bytes.length;
+    }
+
+    private void require(int length) {
+        if (length < 0 || length > bytes.length - position) {
+            throw new SerializationException("Truncated cached value");
+        }
+    }
+}
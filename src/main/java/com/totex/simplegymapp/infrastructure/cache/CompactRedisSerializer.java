@@ -0,0 +1,153 @@
+package com.totex.simplegymapp.infrastructure.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializer binário dos valores em cache. Formato: 1 byte de versão, o tag do tipo e os campos
+ * gravados pelo {@link CacheCodec} do tipo, sem nomes de campo nem nome de classe. Tipos sem codec
+ * continuam em JSON pelo serializer de fallback, embutido no valor.
+ * <p>
+ * Deploy gradual: JSON gravado antes do formato binário continua legível. Versão ou tag desconhecidos
+ * (valor gravado por um nó mais novo) são lidos como ausência e o valor é recarregado do banco.
+ * Mudar o layout de qualquer codec exige incrementar {@link #FORMAT_VERSION}, que deve ficar abaixo
+ * de {@link CompressingRedisSerializer#COMPRESSED}.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int LONG = 2;
+    private static final int INTEGER = 3;
+    private static final int BOOLEAN = 4;
+    private static final int LIST = 5;
+    private static final int JSON = 15;
+    private static final int FIRST_CODEC_TAG = 16;
+
+    private final Map<Class<?>, CacheCodec<Object>> codecsByType = new HashMap<>();
+    private final Map<Integer, CacheCodec<Object>> codecsByTag = new HashMap<>();
+    private final RedisSerializer<Object> fallback;
+
+    @SuppressWarnings("unchecked")
+    public CompactRedisSerializer(List<? extends CacheCodec<?>> codecs, RedisSerializer<Object> fallback) {
+        this.fallback = fallback;
+        for (CacheCodec<?> codec : codecs) {
+            if (codec.tag() < FIRST_CODEC_TAG) {
+                throw new IllegalArgumentException("Cache codec tags below " + FIRST_CODEC_TAG + " are reserved: "
+                        + codec.type().getName());
+            }
+            CacheCodec<Object> previous = codecsByTag.putIfAbsent(codec.tag(), (CacheCodec<Object>) codec);
+            if (previous != null) {
+                throw new IllegalArgumentException("Cache codec tag " + codec.tag() + " used by "
+                        + previous.type().getName() + " and " + codec.type().getName());
+            }
+            codecsByType.put(codec.type(), (CacheCodec<Object>) codec);
+        }
+    }
+
+    @Override
+    public byte[] serialize(Object value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        CompactWriter out = new CompactWriter(this);
+        out.writeByte(FORMAT_VERSION);
+        writeValue(value, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        // Versões binárias usam bytes de controle; JSON sempre começa por um caractere imprimível
+        if (bytes[0] != FORMAT_VERSION) {
+            return bytes[0] >= 0x20 ? fallback.deserialize(bytes) : null;
+        }
+        try {
+            CompactReader in = new CompactReader(this, bytes, 1);
+            Object value = readValue(in);
+            if (in.hasRemaining()) {
+                throw new SerializationException("Trailing bytes after cached value");
+            }
+            return value;
+        } catch (UnknownTagException e) {
+            return null;
+        }
+    }
+
+    void writeValue(Object value, CompactWriter out) {
+        if (value == null) {
+            out.writeVarInt(NULL);
+            return;
+        }
+        CacheCodec<Object> codec = codecsByType.get(value.getClass());
+        if (codec != null) {
+            out.writeVarInt(codec.tag());
+            codec.write(value, out);
+            return;
+        }
+        switch (value) {
+            case String string -> {
+                out.writeVarInt(STRING);
+                out.writeString(string);
+            }
+            case Long number -> {
+                out.writeVarInt(LONG);
+                out.writeSignedLong(number);
+            }
+            case Integer number -> {
+                out.writeVarInt(INTEGER);
+                out.writeSignedInt(number);
+            }
+            case Boolean flag -> {
+                out.writeVarInt(BOOLEAN);
+                out.writeBoolean(flag);
+            }
+            case List<?> list -> {
+                out.writeVarInt(LIST);
+                out.writeList(list, (element, writer) -> writer.writeValue(element));
+            }
+            default -> {
+                byte[] json = fallback.serialize(value);
+                out.writeVarInt(JSON);
+                out.writeVarInt(json.length);
+                out.writeBytes(json);
+            }
+        }
+    }
+
+    Object readValue(CompactReader in) {
+        int tag = in.readVarInt();
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> in.readString();
+            case LONG -> in.readSignedLong();
+            case INTEGER -> in.readSignedInt();
+            case BOOLEAN -> in.readBoolean();
+            case LIST -> in.readList(CompactReader::readValue);
+            case JSON -> fallback.deserialize(in.readBytes(in.readVarInt()));
+            default -> {
+                CacheCodec<Object> codec = codecsByTag.get(tag);
+                if (codec == null) {
+                    throw new UnknownTagException(tag);
+                }
+                yield codec.read(in);
+            }
+        };
+    }
+
+    private static final class UnknownTagException extends SerializationException {
+
+        UnknownTagException(int tag) {
+            super("Unknown cached value tag " + tag);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.totex.simplegymapp.infrastructure.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Escrita do formato compacto: inteiros em varint (zigzag para valores com sinal) e strings UTF-8
+ * com o tamanho na frente. Não é thread-safe; uma instância por serialização.
+ */
+public final class CompactWriter {
+
+    private final CompactRedisSerializer serializer;
+    private byte[] buffer = new byte[128];
+    private int position;
+
+    CompactWriter(CompactRedisSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    // Para montar o byte de campos presentes que precede os campos anuláveis de um DTO
+    public static int presence(Object value, int bit) {
+        return value != null ? bit : 0;
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    // Sem sinal: ids, versões e tamanhos
+    public void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    public void writeSignedLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeSignedInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    // Tamanho + 1 na frente; 0 indica null
+    public void writeString(String value) {
+        if (value == null) {
+            writeByte(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        writeBytes(bytes);
+    }
+
+    // Mesma convenção da string: tamanho + 1, 0 indica null
+    public <T> void writeList(List<T> values, BiConsumer<T, CompactWriter> element) {
+        if (values == null) {
+            writeByte(0);
+            return;
+        }
+        writeVarInt(values.size() + 1);
+        for (T value : values) {
+            element.accept(value, this);
+        }
+    }
+
+    /**
+     * Valor de tipo não fixo (conteúdo de uma página, por exemplo): grava o tag antes.
+     */
+    public void writeValue(Object value) {
+        serializer.writeValue(value, this);
+    }
+
+    void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+}
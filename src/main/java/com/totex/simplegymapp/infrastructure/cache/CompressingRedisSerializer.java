@@ -0,0 +1,165 @@
+package com.totex.simplegymapp.infrastructure.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Decorator que comprime (deflate/zlib) valores serializados a partir de {@code threshold} bytes.
+ * Valor comprimido: byte {@link #COMPRESSED}, tamanho original em varint e o stream zlib (com
+ * checksum). Valores pequenos, ou que não diminuem, são gravados como o delegate os produziu, então
+ * entradas gravadas antes da compressão continuam legíveis.
+ * <p>
+ * Deflater/Inflater (estado nativo do zlib) e os buffers de saída ficam em pools limitados e são
+ * reaproveitados entre chamadas; a única alocação por valor é o array do resultado.
+ */
+public class CompressingRedisSerializer<T> implements RedisSerializer<T> {
+
+    // Byte de controle que nem o CompactRedisSerializer (versão 1) nem JSON usam como primeiro byte
+    public static final int COMPRESSED = 0x1E;
+
+    // Tamanho declarado no cabeçalho acima disso é corrupção, não um valor de cache
+    private static final int MAX_UNCOMPRESSED_SIZE = 64 * 1024 * 1024;
+    // Buffers maiores que isso não voltam ao pool, para um valor excepcional não ficar retido
+    private static final int MAX_POOLED_BUFFER = 1024 * 1024;
+    private static final int MAX_HEADER = 6;
+
+    private final RedisSerializer<T> delegate;
+    private final int threshold;
+    private final int level;
+    private final BlockingQueue<Compressor> compressors;
+    private final BlockingQueue<Inflater> inflaters;
+
+    public CompressingRedisSerializer(RedisSerializer<T> delegate, int threshold, int level, int poolSize) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.level = level;
+        this.compressors = new ArrayBlockingQueue<>(poolSize);
+        this.inflaters = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    @Override
+    public byte[] serialize(T value) {
+        byte[] raw = delegate.serialize(value);
+        if (raw == null || raw.length < threshold) {
+            return raw;
+        }
+        return compress(raw);
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0 || (bytes[0] & 0xFF) != COMPRESSED) {
+            return delegate.deserialize(bytes);
+        }
+        return delegate.deserialize(decompress(bytes));
+    }
+
+    private byte[] compress(byte[] raw) {
+        Compressor compressor = compressors.poll();
+        if (compressor == null) {
+            compressor = new Compressor(level);
+        }
+        try {
+            // Só compensa se ficar menor que o original: a saída nunca passa de raw.length bytes
+            byte[] buffer = compressor.buffer(raw.length);
+            int position = writeHeader(buffer, raw.length);
+            Deflater deflater = compressor.deflater;
+            deflater.setInput(raw);
+            deflater.finish();
+            while (!deflater.finished() && position < raw.length) {
+                position += deflater.deflate(buffer, position, raw.length - position);
+            }
+            return deflater.finished() ? Arrays.copyOf(buffer, position) : raw;
+        } finally {
+            compressor.deflater.reset();
+            if (!compressors.offer(compressor)) {
+                compressor.deflater.end();
+            }
+        }
+    }
+
+    private byte[] decompress(byte[] bytes) {
+        long length = 0;
+        int position = 1;
+        for (int shift = 0; position < bytes.length && shift < 35; shift += 7) {
+            int b = bytes[position++];
+            length |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (length <= 0 || length > MAX_UNCOMPRESSED_SIZE) {
+            throw new SerializationException("Invalid compressed cache value header");
+        }
+
+        byte[] out = new byte[(int) length];
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        try {
+            inflater.setInput(bytes, position, bytes.length - position);
+            int written = 0;
+            while (written < out.length) {
+                int n = inflater.inflate(out, written, out.length - written);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                written += n;
+            }
+            // Stream deve terminar junto com o tamanho declarado; o fim do stream confere o checksum
+            if (written != out.length || !inflater.finished() && inflater.inflate(new byte[1]) != 0
+                    || !inflater.finished()) {
+                throw new SerializationException("Truncated compressed cache value");
+            }
+            return out;
+        } catch (DataFormatException e) {
+            throw new SerializationException("Corrupted compressed cache value", e);
+        } finally {
+            inflater.reset();
+            if (!inflaters.offer(inflater)) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static int writeHeader(byte[] buffer, int length) {
+        int position = 0;
+        buffer[position++] = (byte) COMPRESSED;
+        while ((length & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        buffer[position++] = (byte) length;
+        return position;
+    }
+
+    private static final class Compressor {
+
+        private final Deflater deflater;
+        private byte[] buffer = new byte[0];
+
+        Compressor(int level) {
+            this.deflater = new Deflater(level);
+        }
+
+        byte[] buffer(int rawLength) {
+            int size = Math.max(rawLength, MAX_HEADER + 1);
+            if (buffer.length < size) {
+                buffer = new byte[size];
+            }
+            byte[] current = buffer;
+            if (buffer.length > MAX_POOLED_BUFFER) {
+                buffer = new byte[0];
+            }
+            return current;
+        }
+    }
+}
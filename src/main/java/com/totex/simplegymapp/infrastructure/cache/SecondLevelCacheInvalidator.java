@@ -0,0 +1,159 @@
+package com.totex.simplegymapp.infrastructure.cache;
+
+import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
+import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Invalidação do cache de segundo nível do Hibernate entre os nós. As regiões ficam em memória em cada
+ * nó e o Hibernate só atualiza as do nó que escreveu; depois do commit, este avisa os demais pelo
+ * pub/sub e eles descartam a entrada. Assim um nó não continua servindo (e aceitando como If-Match)
+ * uma versão que outro nó já substituiu.
+ * <p>
+ * Os UPDATE/DELETE condicionais são SQL nativo sincronizado com {@link #TARGETED_EVICTION_SPACE}, que o
+ * Hibernate não associa a nenhuma região; {@link #evictEverywhere} descarta então só as linhas escritas,
+ * neste nó e nos outros. Avisos perdidos ficam limitados pelo TTL das regiões; ao (re)assinar o canal,
+ * as regiões são esvaziadas, já que avisos publicados durante a desconexão se perderam.
+ */
+@Component
+public class SecondLevelCacheInvalidator implements MessageListener, SubscriptionListener {
+
+    public static final String INVALIDATION_CHANNEL = "l2:invalidate";
+
+    // Espaço de query sem tabela: com ele o Hibernate não esvazia as regiões depois de SQL nativo
+    public static final String TARGETED_EVICTION_SPACE = "l2_targeted_eviction";
+
+    // Nomes das regiões em hibernate-cache.conf
+    public static final String WORKOUT = "workout";
+    public static final String EXERCISE = "exercise";
+    public static final String WORKOUT_EXERCISES = "workout-exercises";
+
+    private static final String EXERCISES_ROLE = WorkoutModel.class.getName() + ".exercises";
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final StringRedisTemplate stringRedisTemplate;
+    // Identifica as mensagens deste nó, cujo cache já foi atualizado localmente
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public SecondLevelCacheInvalidator(EntityManagerFactory entityManagerFactory,
+                                       StringRedisTemplate stringRedisTemplate,
+                                       RedisMessageListenerContainer listenerContainer) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.stringRedisTemplate = stringRedisTemplate;
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * Escrita feita pelo Hibernate, que já atualizou este nó: descarta a entrada nos outros depois do
+     * commit. {@link #WORKOUT} leva junto os resultados de query sobre a tabela workout; {@link #EXERCISE}
+     * e {@link #WORKOUT_EXERCISES}, os sobre a tabela exercise.
+     */
+    public void evictOnOtherNodes(String region, Long id) {
+        afterCommit(() -> publish(region, List.of(id)));
+    }
+
+    /**
+     * Escrita em SQL nativo, que o Hibernate não acompanha: depois do commit, descarta as entradas
+     * neste nó e nos outros.
+     */
+    public void evictEverywhere(String region, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> written = List.copyOf(ids);
+        afterCommit(() -> {
+            evict(region, written);
+            publish(region, written);
+        });
+    }
+
+    public void evictEverywhere(String region, Long id) {
+        evictEverywhere(region, List.of(id));
+    }
+
+    // Só neste nó, na hora: entrada que se mostrou desatualizada (ex.: If-Match conferido no banco)
+    public void evict(String region, Long id) {
+        evict(region, List.of(id));
+    }
+
+    // Formato: <nó>|<região>|<id>,<id>...
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length == 3 && !parts[0].equals(nodeId)) {
+            evict(parts[1], Arrays.stream(parts[2].split(",")).map(Long::valueOf).toList());
+        }
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    private void evict(String region, List<Long> ids) {
+        Cache cache = sessionFactory.getCache();
+        switch (region) {
+            case WORKOUT -> {
+                ids.forEach(id -> cache.evictEntityData(WorkoutModel.class, id));
+                invalidateQueries(WorkoutModel.class);
+            }
+            case EXERCISE -> {
+                ids.forEach(id -> cache.evictEntityData(ExerciseModel.class, id));
+                invalidateQueries(ExerciseModel.class);
+            }
+            case WORKOUT_EXERCISES -> {
+                ids.forEach(id -> cache.evictCollectionData(EXERCISES_ROLE, id));
+                invalidateQueries(ExerciseModel.class);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void publish(String region, List<Long> ids) {
+        String joined = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + "|" + region + "|" + joined);
+    }
+
+    // Como numa escrita local: resultados em cache lidos antes deste instante deixam de valer
+    private void invalidateQueries(Class<?> entityType) {
+        String[] spaces = (String[]) sessionFactory.getMappingMetamodel().getEntityDescriptor(entityType)
+                .getQuerySpaces();
+        try (SharedSessionContractImplementor session = (SharedSessionContractImplementor) sessionFactory
+                .openSession()) {
+            sessionFactory.getCache().getTimestampsCache().invalidate(spaces, session);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,155 @@
+package com.totex.simplegymapp.infrastructure.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalescência de misses do cache: por chave, um único loader roda e as chamadas concorrentes esperam
+ * o mesmo future. Quem espera mais que {@code timeout} desiste e carrega por conta própria. As chaves
+ * em voo ficam num ConcurrentHashMap (lock por bin, sem lock global) e saem dele quando a carga termina.
+ * <p>
+ * Com {@code redis}, o líder de cada nó ainda disputa um lock por chave no Redis (SET NX com TTL
+ * {@code timeout}): só o nó que o obtém consulta o banco; os outros consultam o cache a cada
+ * {@code pollInterval} até o valor aparecer, o lock ser liberado (e disputado de novo) ou o timeout vencer.
+ */
+public class SingleFlight {
+
+    static final String LOCK_PREFIX = "cache:lock:";
+
+    // Só libera o lock se ainda for o dono (ele pode ter expirado e sido pego por outro nó)
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final Duration timeout;
+    private final StringRedisTemplate redis;
+    private final Duration pollInterval;
+
+    private final Counter leaders;
+    private final Counter coalesced;
+    private final Counter timeouts;
+
+    public SingleFlight(Duration timeout, StringRedisTemplate redis, Duration pollInterval, MeterRegistry meterRegistry) {
+        this.timeout = timeout;
+        this.redis = redis;
+        this.pollInterval = pollInterval;
+        this.leaders = requests(meterRegistry, "leader");
+        this.coalesced = requests(meterRegistry, "coalesced");
+        this.timeouts = requests(meterRegistry, "timeout");
+    }
+
+    /**
+     * Só coalescência dentro do processo.
+     */
+    public SingleFlight(Duration timeout, MeterRegistry meterRegistry) {
+        this(timeout, null, Duration.ZERO, meterRegistry);
+    }
+
+    /**
+     * Executa {@code loader} uma vez por chave entre as chamadas concorrentes. {@code lookup} consulta o
+     * cache, para o caso de outro nó ter carregado o valor enquanto este esperava o lock distribuído.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Callable<T> loader, Supplier<ValueWrapper> lookup) throws Exception {
+        Flight flight = new Flight(Thread.currentThread());
+        Flight inFlight = flights.putIfAbsent(key, flight);
+        if (inFlight != null) {
+            // Loader que consulta a própria chave esperaria por si mesmo até o timeout
+            return inFlight.leader == Thread.currentThread() ? loader.call() : (T) await(inFlight, loader);
+        }
+
+        leaders.increment();
+        try {
+            T value = redis != null ? loadWithLock(key, loader, lookup) : loader.call();
+            flight.result.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private Object await(Flight flight, Callable<?> loader) throws Exception {
+        coalesced.increment();
+        try {
+            return flight.result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Mesma exceção do líder (ex.: ResourceNotFoundException), não um wrapper
+            Throwable cause = e.getCause();
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw (Exception) cause;
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return loader.call();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T loadWithLock(String key, Callable<T> loader, Supplier<ValueWrapper> lookup) throws Exception {
+        String lockKey = LOCK_PREFIX + key;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        while (!Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(lockKey, token, timeout))) {
+            // Outro nó está carregando: espera o valor dele aparecer no cache
+            ValueWrapper cached = lookup.get();
+            if (cached != null) {
+                return (T) cached.get();
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                timeouts.increment();
+                return loader.call();
+            }
+            Thread.sleep(pollInterval.toMillis());
+        }
+
+        try {
+            // O nó anterior pode ter gravado o valor entre o miss e a obtenção do lock
+            ValueWrapper cached = lookup.get();
+            return cached != null ? (T) cached.get() : loader.call();
+        } finally {
+            redis.execute(RELEASE, List.of(lockKey), token);
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.single.flight.requests")
+                .tag("result", result)
+                .description("Misses do cache por desfecho da coalescência")
+                .register(meterRegistry);
+    }
+
+    private static final class Flight {
+
+        private final Thread leader;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Flight(Thread leader) {
+            this.leader = leader;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.totex.simplegymapp.infrastructure.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Um cache do {@link TwoTierCacheManager}. Leitura: L1 e, no miss, L2 (o valor lido sobe para o L1).
+ * Escrita: L2 primeiro, depois o L1, depois o aviso aos outros nós. O L1 guarda a instância
+ * desserializada e a devolve a todas as chamadas: quem lê do cache não deve alterar o objeto.
+ * Misses com loader passam pelo {@link SingleFlight} do manager.
+ */
+class TwoTierCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache remote;
+    private final TwoTierCacheManager manager;
+
+    // Incrementado a cada invalidação: uma leitura do L2 que cruzou com ela não repõe o valor antigo no L1
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Timer localLatency;
+    private final Timer remoteLatency;
+
+    TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> local, Cache remote,
+                 TwoTierCacheManager manager, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.manager = manager;
+
+        this.localHits = requests(meterRegistry, "l1", "hit");
+        this.localMisses = requests(meterRegistry, "l1", "miss");
+        this.remoteHits = requests(meterRegistry, "l2", "hit");
+        this.remoteMisses = requests(meterRegistry, "l2", "miss");
+        this.localLatency = latency(meterRegistry, "l1");
+        this.remoteLatency = latency(meterRegistry, "l2");
+        hitRatio(meterRegistry, "l1", localHits, localMisses);
+        hitRatio(meterRegistry, "l2", remoteHits, remoteMisses);
+        Gauge.builder("cache.tier.size", local, com.github.benmanes.caffeine.cache.Cache::estimatedSize)
+                .tag("cache", name).tag("tier", "l1")
+                .description("Entradas no cache local")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        long start = System.nanoTime();
+        Object value = local.getIfPresent(localKey);
+        localLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (value != null) {
+            localHits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        localMisses.increment();
+
+        long epoch = invalidations.get();
+        start = System.nanoTime();
+        ValueWrapper wrapper = remote.get(key);
+        remoteLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (wrapper == null || wrapper.get() == null) {
+            remoteMisses.increment();
+            return wrapper;
+        }
+        remoteHits.increment();
+        fillLocal(localKey, wrapper.get(), epoch);
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    // Caminho do @Cacheable(sync = true): misses concorrentes da mesma chave fazem uma só carga
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        try {
+            return manager.singleFlight().execute(name + "|" + localKey(key), () -> load(key, valueLoader),
+                    () -> get(key));
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T load(Object key, Callable<T> valueLoader) throws Exception {
+        String localKey = localKey(key);
+        long epoch = invalidations.get();
+        // Líder anterior pode ter terminado entre o miss desta chamada e a entrada no single-flight
+        Object loaded = local.getIfPresent(localKey);
+        if (loaded != null) {
+            return (T) loaded;
+        }
+        T value = valueLoader.call();
+        // Valor recém-carregado do banco: nenhum outro nó tem versão mais nova para descartar
+        if (value != null) {
+            remote.put(key, value);
+            fillLocal(localKey, value, epoch);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        String localKey = localKey(key);
+        invalidations.incrementAndGet();
+        local.put(localKey, value);
+        manager.publishEvict(name, localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        if (existing == null) {
+            String localKey = localKey(key);
+            invalidations.incrementAndGet();
+            local.put(localKey, value);
+            manager.publishEvict(name, localKey);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        evictLocal(localKey(key));
+        manager.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = remote.evictIfPresent(key);
+        evictLocal(localKey(key));
+        manager.publishEvict(name, localKey(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        clearLocal();
+        manager.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = remote.invalidate();
+        clearLocal();
+        manager.publishClear(name);
+        return invalidated;
+    }
+
+    void evictLocal(String localKey) {
+        invalidations.incrementAndGet();
+        local.invalidate(localKey);
+    }
+
+    void clearLocal() {
+        invalidations.incrementAndGet();
+        local.invalidateAll();
+    }
+
+    // Sobe o valor lido do L2 para o L1; se uma invalidação chegou durante a leitura, desfaz
+    private void fillLocal(String localKey, Object value, long epoch) {
+        local.put(localKey, value);
+        if (invalidations.get() != epoch) {
+            local.asMap().remove(localKey, value);
+        }
+    }
+
+    // Mesma forma textual que o RedisCache usa na chave, para a invalidação entre nós bater
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter requests(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("cache.tier.requests")
+                .tag("cache", name).tag("tier", tier).tag("result", result)
+                .description("Leituras por nível do cache")
+                .register(meterRegistry);
+    }
+
+    private Timer latency(MeterRegistry meterRegistry, String tier) {
+        return Timer.builder("cache.tier.latency")
+                .tag("cache", name).tag("tier", tier)
+                .description("Tempo de leitura por nível do cache")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    private void hitRatio(MeterRegistry meterRegistry, String tier, Counter hits, Counter misses) {
+        Gauge.builder("cache.tier.hit.ratio", () -> {
+                    double total = hits.count() + misses.count();
+                    return total == 0 ? 0 : hits.count() / total;
+                })
+                .tag("cache", name).tag("tier", tier)
+                .description("Fração de leituras atendidas pelo nível")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,108 @@
+package com.totex.simplegymapp.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * CacheManager em dois níveis: um Caffeine limitado por cache (L1, por nó) na frente do cache remoto
+ * (L2, Redis). Hits no L1 não pagam ida e volta ao Redis nem desserialização. put/evict/clear
+ * são publicados via Redis pub/sub para que os outros nós descartem a entrada do L1. Misses com
+ * loader ({@code @Cacheable(sync = true)}) são coalescidos pelo {@link SingleFlight}.
+ */
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "cache:invalidate";
+
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final CacheManager remote;
+    private final Function<String, Caffeine<Object, Object>> localSpec;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final SingleFlight singleFlight;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    // Identifica as mensagens deste nó, que já atualizou o próprio L1
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public TwoTierCacheManager(CacheManager remote,
+                               Function<String, Caffeine<Object, Object>> localSpec,
+                               StringRedisTemplate stringRedisTemplate,
+                               MeterRegistry meterRegistry,
+                               SingleFlight singleFlight) {
+        this.remote = remote;
+        this.localSpec = localSpec;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.singleFlight = singleFlight;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> new TwoTierCache(n, localSpec.apply(n).build(), remoteCache,
+                this, meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    void publishEvict(String cacheName, String key) {
+        publish(EVICT + "|" + cacheName + "|" + key);
+    }
+
+    void publishClear(String cacheName) {
+        publish(CLEAR + "|" + cacheName + "|");
+    }
+
+    private void publish(String payload) {
+        stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + "|" + payload);
+    }
+
+    SingleFlight singleFlight() {
+        return singleFlight;
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+
+    // Formato: <nó>|<E ou C>|<cache>|<chave>; a chave vem por último e pode conter '|'
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || parts[0].equals(nodeId)) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[1])) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[3]);
+        }
+    }
+}
@@ -1,68 +1,159 @@
 package com.totex.simplegymapp.infrastructure.config;
 
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.totex.simplegymapp.infrastructure.cache.CacheCodec;
+import com.totex.simplegymapp.infrastructure.cache.CompactRedisSerializer;
+import com.totex.simplegymapp.infrastructure.cache.CompressingRedisSerializer;
+import com.totex.simplegymapp.infrastructure.cache.SingleFlight;
+import com.totex.simplegymapp.infrastructure.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
-@EnableCaching
+// Interceptor de cache por fora do @Transactional: hit não abre transação nem pega conexão do pool
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
 public class RedisConfig {
 
+    // Valores serializados a partir deste tamanho são comprimidos no Redis
+    @Value("${cache.compression.threshold:2048}")
+    private int compressionThreshold;
+
+    @Value("${cache.compression.level:1}")
+    private int compressionLevel;
+
+    /**
+     * Serializer JSON com suporte a java.time (LocalDate dos workouts). Fica como fallback do formato
+     * binário para tipos sem {@link CacheCodec}.
+     */
+    public static GenericJackson2JsonRedisSerializer jsonRedisSerializer() {
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        serializer.configure(objectMapper -> objectMapper.registerModule(new JavaTimeModule()));
+        return serializer;
+    }
+
+    /**
+     * Serializer dos valores em cache: binário para os tipos com codec (os beans {@link CacheCodec}),
+     * JSON para o resto.
+     */
+    public static CompactRedisSerializer cacheValueSerializer(List<? extends CacheCodec<?>> cacheCodecs) {
+        return new CompactRedisSerializer(cacheCodecs, jsonRedisSerializer());
+    }
+
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       List<CacheCodec<?>> cacheCodecs) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
         // String serialization para keys
         StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
 
-        // JSON serialization para values (versão atualizada)
-        GenericJackson2JsonRedisSerializer jsonRedisSerializer = new GenericJackson2JsonRedisSerializer();
+        // Binário compacto para values, com JSON para tipos sem codec
+        RedisSerializer<Object> valueSerializer = compressing(cacheValueSerializer(cacheCodecs));
 
         template.setKeySerializer(stringRedisSerializer);
         template.setHashKeySerializer(stringRedisSerializer);
-        template.setValueSerializer(jsonRedisSerializer);
-        template.setHashValueSerializer(jsonRedisSerializer);
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
 
         template.afterPropertiesSet();
         return template;
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
-        GenericJackson2JsonRedisSerializer jsonRedisSerializer = new GenericJackson2JsonRedisSerializer();
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        // Container compartilhado pelos listeners de invalidação entre nós
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    /**
+     * Caffeine por nome de cache (L1, limitado e por frequência) na frente do RedisCacheManager (L2).
+     * Tamanho e TTL do L1 vêm de cache.l1.max-size/cache.l1.ttl, com override em cache.l1.&lt;nome&gt;.*;
+     * o TTL curto limita por quanto tempo um L1 pode divergir se um aviso de invalidação se perder.
+     */
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                     StringRedisTemplate stringRedisTemplate,
+                                     RedisMessageListenerContainer listenerContainer,
+                                     MeterRegistry meterRegistry,
+                                     Environment environment,
+                                     List<CacheCodec<?>> cacheCodecs) {
+        long defaultMaxSize = environment.getProperty("cache.l1.max-size", Long.class, 10_000L);
+        Duration defaultTtl = environment.getProperty("cache.l1.ttl", Duration.class, Duration.ofMinutes(1));
+
+        // Coalescência de misses; com distributed=true também entre nós, via lock no Redis
+        Duration singleFlightTimeout = environment.getProperty("cache.single-flight.timeout", Duration.class,
+                Duration.ofSeconds(5));
+        SingleFlight singleFlight = environment.getProperty("cache.single-flight.distributed", Boolean.class, false)
+                ? new SingleFlight(singleFlightTimeout, stringRedisTemplate,
+                        environment.getProperty("cache.single-flight.poll-interval", Duration.class,
+                                Duration.ofMillis(50)), meterRegistry)
+                : new SingleFlight(singleFlightTimeout, meterRegistry);
+
+        RedisCacheManager redisCacheManager = redisCacheManager(redisConnectionFactory, cacheCodecs);
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(redisCacheManager,
+                name -> Caffeine.newBuilder()
+                        .maximumSize(environment.getProperty("cache.l1." + name + ".max-size", Long.class, defaultMaxSize))
+                        .expireAfterWrite(environment.getProperty("cache.l1." + name + ".ttl", Duration.class, defaultTtl)),
+                stringRedisTemplate, meterRegistry, singleFlight);
+        listenerContainer.addMessageListener(cacheManager, new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL));
+        return cacheManager;
+    }
+
+    private RedisCacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory,
+                                                List<CacheCodec<?>> cacheCodecs) {
+        RedisSerializer<Object> valueSerializer = compressing(cacheValueSerializer(cacheCodecs));
 
         RedisCacheConfiguration defaultCacheConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jsonRedisSerializer))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer))
                 .disableCachingNullValues()
                 .entryTtl(Duration.ofHours(1));
 
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
 
-        cacheConfigurations.put("jwt-tokens", defaultCacheConfig.entryTtl(Duration.ofHours(1)));
-
         cacheConfigurations.put("users", defaultCacheConfig.entryTtl(Duration.ofMinutes(30)));
 
         cacheConfigurations.put("workouts", defaultCacheConfig.entryTtl(Duration.ofMinutes(15)));
 
         cacheConfigurations.put("exercises", defaultCacheConfig.entryTtl(Duration.ofMinutes(15)));
 
-        return RedisCacheManager.builder(redisConnectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
                 .cacheDefaults(defaultCacheConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+        // Não é um bean: inicializa os caches configurados aqui
+        redisCacheManager.afterPropertiesSet();
+        return redisCacheManager;
+    }
+
+    private RedisSerializer<Object> compressing(RedisSerializer<Object> serializer) {
+        return new CompressingRedisSerializer<>(serializer, compressionThreshold, compressionLevel,
+                Runtime.getRuntime().availableProcessors());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package com.totex.simplegymapp.infrastructure.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable throwable) {
+        super(message, throwable);
+    }
+}
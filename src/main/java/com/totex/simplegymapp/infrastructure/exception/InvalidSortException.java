@@ -0,0 +1,7 @@
+package com.totex.simplegymapp.infrastructure.exception;
+
+public class InvalidSortException extends RuntimeException {
+    public InvalidSortException(String message) {
+        super(message);
+    }
+}
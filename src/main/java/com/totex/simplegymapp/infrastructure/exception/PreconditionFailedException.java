@@ -0,0 +1,7 @@
+package com.totex.simplegymapp.infrastructure.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.totex.simplegymapp.infrastructure.exception;
+
+public class PreconditionRequiredException extends RuntimeException {
+    public PreconditionRequiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,52 @@
+package com.totex.simplegymapp.infrastructure.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Acompanhamento do expurgo de uma conta excluída. Fica na base depois que o usuário é removido,
+ * para que o status continue consultável; sem FK para "user" por esse motivo. O status é consultado
+ * pelo {@code statusToken} aleatório, já que a sessão do usuário é revogada na exclusão.
+ */
+@Entity
+@Table(name = "account_purge", indexes = @Index(name = "idx_account_purge_user", columnList = "user_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountPurgeModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_purge_seq")
+    @SequenceGenerator(name = "account_purge_seq", sequenceName = "account_purge_seq", allocationSize = 50)
+    private Long purgeId;
+
+    @Column(name = "status_token", unique = true, length = 43)
+    private String statusToken;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "requested_at", nullable = false)
+    private Instant requestedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    @Column(name = "workouts_total")
+    private long workoutsTotal;
+
+    @Column(name = "workouts_deleted")
+    private long workoutsDeleted;
+
+    @Column(name = "exercises_total")
+    private long exercisesTotal;
+
+    @Column(name = "exercises_deleted")
+    private long exercisesDeleted;
+}
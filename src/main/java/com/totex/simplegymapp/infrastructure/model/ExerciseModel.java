@@ -5,9 +5,13 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "exercise")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "exercise")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,7 +19,8 @@ import lombok.Setter;
 public class ExerciseModel {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "exercise_seq")
+    @SequenceGenerator(name = "exercise_seq", sequenceName = "exercise_seq", allocationSize = 50)
     private Long exerciseId;
 
     @Column(name = "exercise_name")
@@ -27,7 +32,11 @@ public class ExerciseModel {
     @Column(name = "repetitions")
     private int repetitions;
 
-    @ManyToOne()
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "workout_id", referencedColumnName = "workoutId")
     private WorkoutModel workout;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
 }
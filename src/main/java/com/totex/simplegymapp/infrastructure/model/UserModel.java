@@ -6,6 +6,7 @@ import lombok.*;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -20,7 +21,8 @@ import java.util.List;
 public class UserModel implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50)
     private Long userId;
 
     @Column(name = "username")
@@ -36,6 +38,11 @@ public class UserModel implements UserDetails {
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     private List<WorkoutModel> workouts = new ArrayList<>();
 
+    // Conta excluída aguardando o expurgo do histórico; login é recusado a partir daqui
+    @Column(name = "deleted_at")
+    @JsonIgnore
+    private Instant deletedAt;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of();
@@ -50,4 +57,9 @@ public class UserModel implements UserDetails {
     public String getPassword() {
         return password;
     }
+
+    @Override
+    public boolean isEnabled() {
+        return deletedAt == null;
+    }
 }
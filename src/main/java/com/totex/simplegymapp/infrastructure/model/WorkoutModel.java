@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -12,6 +14,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "workout")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "workout")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,7 +23,8 @@ import java.util.List;
 public class WorkoutModel {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "workout_seq")
+    @SequenceGenerator(name = "workout_seq", sequenceName = "workout_seq", allocationSize = 50)
     private Long workoutId;
 
     @Column(name = "workout_name")
@@ -28,11 +33,20 @@ public class WorkoutModel {
     @Column(name = "start_date")
     private LocalDate startDate;
 
+    // Só os ids ficam no cache da coleção; inserts e deletes de ExerciseModel a invalidam
+    // (hibernate.cache.auto_evict_collection_cache)
     @OneToMany(mappedBy = "workout", cascade = CascadeType.ALL)
+    @OrderBy("exerciseId")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "workout-exercises")
     private List<ExerciseModel> exercises = new ArrayList<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "userId")
     private UserModel user;
 
+    // Controle otimista: exposto como ETag e conferido no WHERE dos UPDATE/DELETE (If-Match)
+    @Version
+    @Column(name = "version")
+    private Long version;
+
 }
@@ -0,0 +1,32 @@
+package com.totex.simplegymapp.infrastructure.repository;
+
+import com.totex.simplegymapp.infrastructure.model.AccountPurgeModel;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface AccountPurgeRepository extends JpaRepository<AccountPurgeModel, Long> {
+
+    // FOR UPDATE SKIP LOCKED: cada nó pega um expurgo diferente, sem esperar o lock do outro
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select p from AccountPurgeModel p where p.completedAt is null order by p.requestedAt, p.purgeId")
+    List<AccountPurgeModel> findNextPending(Pageable pageable);
+
+    Optional<AccountPurgeModel> findByStatusToken(String statusToken);
+
+    Optional<AccountPurgeModel> findFirstByUserIdOrderByRequestedAtDesc(Long userId);
+
+    long countByCompletedAtIsNull();
+
+    @Query("select min(p.requestedAt) from AccountPurgeModel p where p.completedAt is null")
+    Optional<Instant> findOldestPendingRequestedAt();
+}
@@ -1,7 +1,102 @@
 package com.totex.simplegymapp.infrastructure.repository;
 
+import com.totex.simplegymapp.infrastructure.cache.SecondLevelCacheInvalidator;
 import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
+import com.totex.simplegymapp.infrastructure.repository.projection.ExerciseSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ExerciseRepository extends JpaRepository<ExerciseModel, Long> {
+    @Query("select e from ExerciseModel e where e.workout.workoutId in :workoutIds order by e.exerciseId")
+    List<ExerciseModel> findByWorkoutWorkoutIdIn(@Param("workoutIds") Collection<Long> workoutIds);
+
+    // Posse filtrada no WHERE, um SELECT; ids no cache de queries, exercícios no de segundo nível
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<ExerciseModel> findByWorkoutWorkoutIdAndWorkoutUserUserId(Long workoutId, Long userId);
+
+    // Cursor forward-only: o driver busca 500 linhas por vez e o DTO não entra no contexto de persistência
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.totex.simplegymapp.infrastructure.repository.projection.ExerciseSummary("
+            + "e.exerciseId, e.exerciseName, e.series, e.repetitions, e.workout.workoutId, e.version) "
+            + "from ExerciseModel e order by e.exerciseId")
+    Stream<ExerciseSummary> streamAll();
+
+    // A posse é filtrada no WHERE; workout/user ficam LAZY e não são carregados
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<ExerciseModel> findByExerciseIdAndWorkoutUserUserId(Long exerciseId, Long userId);
+
+    // Workout do exercício, que entra na chave dos caches da listagem; a posse vai no mesmo WHERE
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select e.workout.workoutId from ExerciseModel e where e.exerciseId = :exerciseId "
+            + "and e.workout.user.userId = :userId")
+    Optional<Long> findWorkoutIdByOwnedExercise(@Param("exerciseId") Long exerciseId, @Param("userId") Long userId);
+
+    // PATCH atômico: só os campos informados mudam (nome nulo, séries/repetições <= 0 mantêm o valor);
+    // posse e versão (If-Match; null = qualquer uma) vão no WHERE, então 0 linhas afetadas = exercício
+    // inexistente, de outro usuário ou alterado por outra requisição. SQL nativo pelo mesmo motivo de
+    // WorkoutRepository.updateOwnedWorkout: o cache de segundo nível perde só a linha escrita
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES,
+            value = SecondLevelCacheInvalidator.TARGETED_EVICTION_SPACE))
+    @Query(nativeQuery = true, value = "update exercise set "
+            + "exercise_name = coalesce(cast(:exerciseName as varchar), exercise_name), "
+            + "series = case when :series > 0 then :series else series end, "
+            + "repetitions = case when :repetitions > 0 then :repetitions else repetitions end, "
+            + "version = version + 1 "
+            + "where exercise_id = :exerciseId "
+            + "and (cast(:version as bigint) is null or version = cast(:version as bigint)) "
+            + "and workout_id in (select w.workout_id from workout w where w.user_id = :userId)")
+    int updateOwnedExercise(@Param("exerciseId") Long exerciseId, @Param("userId") Long userId,
+                            @Param("version") Long version, @Param("exerciseName") String exerciseName,
+                            @Param("series") int series, @Param("repetitions") int repetitions);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES,
+            value = SecondLevelCacheInvalidator.TARGETED_EVICTION_SPACE))
+    @Query(nativeQuery = true, value = "delete from exercise where exercise_id = :exerciseId "
+            + "and (cast(:version as bigint) is null or version = cast(:version as bigint)) "
+            + "and workout_id in (select w.workout_id from workout w where w.user_id = :userId)")
+    int deleteOwnedExercise(@Param("exerciseId") Long exerciseId, @Param("userId") Long userId,
+                            @Param("version") Long version);
+
+    boolean existsByExerciseIdAndWorkoutUserUserId(Long exerciseId, Long userId);
+
+    @Query("select new com.totex.simplegymapp.infrastructure.repository.projection.ExerciseSummary("
+            + "e.exerciseId, e.exerciseName, e.series, e.repetitions, e.workout.workoutId, e.version) "
+            + "from ExerciseModel e where e.exerciseId = :exerciseId")
+    Optional<ExerciseSummary> findSummaryById(@Param("exerciseId") Long exerciseId);
+
+    // Ids lidos antes do DELETE em lote do workout: só essas entradas saem do cache de segundo nível
+    @Query("select e.exerciseId from ExerciseModel e where e.workout.workoutId = :workoutId")
+    List<Long> findIdsByWorkoutWorkoutId(@Param("workoutId") Long workoutId);
+
+    // DELETEs em lote: um statement para todos os exercícios, sem carregar nenhuma entidade
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES,
+            value = SecondLevelCacheInvalidator.TARGETED_EVICTION_SPACE))
+    @Query(nativeQuery = true, value = "delete from exercise where workout_id in "
+            + "(select w.workout_id from workout w where w.workout_id = :workoutId and w.user_id = :userId "
+            + "and (cast(:version as bigint) is null or w.version = cast(:version as bigint)))")
+    int deleteByOwnedWorkout(@Param("workoutId") Long workoutId, @Param("userId") Long userId,
+                             @Param("version") Long version);
+
+    // Expurgo de conta: ids em lotes limitados, removidos depois pelas entidades
+    @Query("select e.exerciseId from ExerciseModel e where e.workout.user.userId = :userId order by e.exerciseId")
+    List<Long> findIdsByWorkoutUserUserId(@Param("userId") Long userId, Pageable pageable);
+
+    long countByWorkoutUserUserId(Long userId);
 }
@@ -1,16 +1,31 @@
 package com.totex.simplegymapp.infrastructure.repository;
 
 import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.repository.projection.UserExportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<UserModel, Long> {
     boolean existsByEmail(String email);
 
     Optional<UserModel> findByEmail(String email);
 
-    @Transactional
-    void deleteByEmail(String email);
+    // Exportação: um único SELECT ordenado por workout/exercício, lido em lotes de 500 pelo cursor
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.totex.simplegymapp.infrastructure.repository.projection.UserExportRow("
+            + "u.userId, u.username, u.email, w.workoutId, w.workoutName, w.startDate, "
+            + "e.exerciseId, e.exerciseName, e.series, e.repetitions) "
+            + "from UserModel u left join u.workouts w left join w.exercises e "
+            + "where u.userId = :userId order by w.workoutId, e.exerciseId")
+    Stream<UserExportRow> streamExportRows(@Param("userId") Long userId);
 }
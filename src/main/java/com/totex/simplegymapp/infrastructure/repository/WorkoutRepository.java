@@ -1,7 +1,86 @@
 package com.totex.simplegymapp.infrastructure.repository;
 
+import com.totex.simplegymapp.infrastructure.cache.SecondLevelCacheInvalidator;
 import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import com.totex.simplegymapp.infrastructure.repository.projection.WorkoutSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
 
 public interface WorkoutRepository extends JpaRepository<WorkoutModel, Long> {
+    // Posse no WHERE, um SELECT; o username sai do token. Resultado (só o id) no cache de queries e o
+    // workout no de segundo nível, então leituras repetidas não vão ao banco
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<WorkoutModel> findByWorkoutIdAndUserUserId(Long workoutId, Long userId);
+
+    // username = email, o mesmo valor que UserModel.getUsername() devolve nos demais endpoints.
+    // Resultado no cache de queries: invalidado a cada escrita nas tabelas workout/user
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.totex.simplegymapp.infrastructure.repository.projection.WorkoutSummary("
+            + "w.workoutId, w.workoutName, w.startDate, u.userId, u.email, w.version) "
+            + "from WorkoutModel w join w.user u where u.userId = :userId")
+    Slice<WorkoutSummary> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("select new com.totex.simplegymapp.infrastructure.repository.projection.WorkoutSummary("
+            + "w.workoutId, w.workoutName, w.startDate, u.userId, u.email, w.version) "
+            + "from WorkoutModel w join w.user u where w.workoutId = :workoutId")
+    Optional<WorkoutSummary> findSummaryById(@Param("workoutId") Long workoutId);
+
+    boolean existsByWorkoutIdAndUserUserId(Long workoutId, Long userId);
+
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Page<WorkoutModel> findAll(Pageable pageable);
+
+    // Keyset: seek pelo índice da PK em vez de OFFSET, custo constante em qualquer profundidade
+    @EntityGraph(attributePaths = "user")
+    @Query("select w from WorkoutModel w where w.workoutId > :afterId order by w.workoutId")
+    Slice<WorkoutModel> findPageAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // PATCH atômico: nome nulo e data nula mantêm o valor atual; sem leitura prévia nem janela de lost update.
+    // A versão do If-Match (null = qualquer uma) é conferida no mesmo statement e incrementada.
+    // SQL nativo sincronizado com um espaço que nenhuma entidade usa: um UPDATE/DELETE em JPQL faria o
+    // Hibernate esvaziar a região inteira; o serviço descarta só a linha escrita (SecondLevelCacheInvalidator)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES,
+            value = SecondLevelCacheInvalidator.TARGETED_EVICTION_SPACE))
+    @Query(nativeQuery = true, value = "update workout set "
+            + "workout_name = coalesce(cast(:workoutName as varchar), workout_name), "
+            + "start_date = coalesce(cast(:startDate as date), start_date), "
+            + "version = version + 1 "
+            + "where workout_id = :workoutId and user_id = :userId "
+            + "and (cast(:version as bigint) is null or version = cast(:version as bigint))")
+    int updateOwnedWorkout(@Param("workoutId") Long workoutId, @Param("userId") Long userId,
+                           @Param("version") Long version, @Param("workoutName") String workoutName,
+                           @Param("startDate") LocalDate startDate);
+
+    // Posse e versão no WHERE: 0 linhas afetadas = workout inexistente, de outro usuário ou alterado
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES,
+            value = SecondLevelCacheInvalidator.TARGETED_EVICTION_SPACE))
+    @Query(nativeQuery = true, value = "delete from workout where workout_id = :workoutId and user_id = :userId "
+            + "and (cast(:version as bigint) is null or version = cast(:version as bigint))")
+    int deleteOwnedWorkout(@Param("workoutId") Long workoutId, @Param("userId") Long userId,
+                           @Param("version") Long version);
+
+    @Query("select w.workoutId from WorkoutModel w where w.user.userId = :userId order by w.workoutId")
+    List<Long> findIdsByUserUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // Expurgo: a coleção (já vazia) vem no mesmo SELECT; o cascade do remove carregaria uma por workout
+    @EntityGraph(attributePaths = "exercises")
+    List<WorkoutModel> findAllByWorkoutIdIn(List<Long> workoutIds);
+
+    long countByUserUserId(Long userId);
 }
@@ -0,0 +1,8 @@
+package com.totex.simplegymapp.infrastructure.repository.projection;
+
+/**
+ * Linha de exercício lida direto do JPQL, sem entidade gerenciada nem join com workout/user.
+ */
+public record ExerciseSummary(Long exerciseId, String exerciseName, int series, int repetitions, Long workoutId,
+                              Long version) {
+}
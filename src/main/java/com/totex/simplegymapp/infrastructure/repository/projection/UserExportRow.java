@@ -0,0 +1,12 @@
+package com.totex.simplegymapp.infrastructure.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Uma linha do join usuário → workouts → exercícios usado na exportação. Colunas de workout e
+ * exercício vêm nulas quando o usuário não tem workouts ou o workout não tem exercícios (left join).
+ */
+public record UserExportRow(Long userId, String username, String email,
+                            Long workoutId, String workoutName, LocalDate startDate,
+                            Long exerciseId, String exerciseName, Integer series, Integer repetitions) {
+}
@@ -0,0 +1,10 @@
+package com.totex.simplegymapp.infrastructure.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Linha de workout com os dados do dono, montada direto pelo JPQL (sem entidades gerenciadas).
+ */
+public record WorkoutSummary(Long workoutId, String workoutName, LocalDate startDate, Long userId, String username,
+                             Long version) {
+}
@@ -0,0 +1,11 @@
+package com.totex.simplegymapp.infrastructure.security;
+
+import java.util.Date;
+
+/**
+ * Principal resolvido a partir de um JWT já verificado pelo {@link JwtRequestFilter}.
+ * A assinatura é checada uma única vez por requisição; os serviços recebem este objeto
+ * em vez do header Authorization cru.
+ */
+public record AuthenticatedUser(Long userId, String email, long tokenEpoch, Date expiration) {
+}
@@ -1,13 +1,17 @@
 package com.totex.simplegymapp.infrastructure.security;
 
+import com.totex.simplegymapp.infrastructure.exception.ServiceUnavailableException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
@@ -15,11 +19,13 @@ import java.io.IOException;
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final TokenEpochService tokenEpochService;
 
-    public JwtRequestFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtRequestFilter(JwtUtil jwtUtil, PrincipalCache principalCache, TokenEpochService tokenEpochService) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.tokenEpochService = tokenEpochService;
     }
 
     @Override
@@ -28,20 +34,41 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            final String token = authorizationHeader.substring(7);
-            final String username = jwtUtil.extractEmailToken(token);
-
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.validateToken(token, username)) {
-                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            try {
+                // Assinatura e expiração verificadas uma única vez; o principal segue adiante no SecurityContext
+                AuthenticatedUser user = jwtUtil.verifyToken(authorizationHeader.substring(7));
+                if (!tokenEpochService.isCurrent(user)) {
+                    // Token emitido antes de um logout/troca de senha
+                    chain.doFilter(request, response);
+                    return;
                 }
+
+                UserDetails userDetails = principalCache.get(user.email());
+
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        user, null, userDetails.getAuthorities());
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } catch (JwtException | IllegalArgumentException | UsernameNotFoundException e) {
+                SecurityContextHolder.clearContext();
+            } catch (ServiceUnavailableException e) {
+                // Epoch do token desconhecido (Redis fora do ar): nem autentica nem segue como anônimo
+                SecurityContextHolder.clearContext();
+                writeServiceUnavailable(response, e);
+                return;
             }
         }
 
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    // Fora do DispatcherServlet: mesmo formato do ApiExceptionHandler
+    private void writeServiceUnavailable(HttpServletResponse response, ServiceUnavailableException e)
+            throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"" + e.getMessage() + "\"}");
+    }
+}
@@ -1,40 +1,95 @@
 package com.totex.simplegymapp.infrastructure.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 @Service
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    private static final String USER_ID_CLAIM = "userId";
+    private static final String EPOCH_CLAIM = "epoch";
+    private static final String DEFAULT_KEY_ID = "primary";
 
-    @Value("${jwt.expiration}")
-    private long jwtExpiration;
+    private final long jwtExpiration;
+    private final String activeKeyId;
+    private final SecretKey signingKey;
+    // Chaves aceitas na verificação (ativa + aposentadas), indexadas pelo header "kid"
+    private final Map<String, SecretKey> verificationKeys;
+    // JwtParser é imutável e thread-safe: construído uma vez e reutilizado em todas as requisições
+    private final JwtParser parser;
+
+    @Autowired
+    public JwtUtil(@Value("${jwt.secret}") String secretKey,
+                   @Value("${jwt.expiration}") long jwtExpiration,
+                   @Value("${jwt.key-id:" + DEFAULT_KEY_ID + "}") String activeKeyId,
+                   @Value("${jwt.retired-keys:}") String retiredKeys) {
+        this.jwtExpiration = jwtExpiration;
+        this.activeKeyId = activeKeyId;
+        this.signingKey = toKey(secretKey);
+
+        Map<String, SecretKey> keys = new HashMap<>(parseRetiredKeys(retiredKeys));
+        keys.put(activeKeyId, signingKey);
+        this.verificationKeys = Map.copyOf(keys);
+
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return lookupKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    public JwtUtil(String secretKey, long jwtExpiration) {
+        this(secretKey, jwtExpiration, DEFAULT_KEY_ID, "");
+    }
 
     public String generateToken(String username) {
+        return generateToken(username, null);
+    }
+
+    public String generateToken(String username, Long userId) {
+        return generateToken(username, userId, 0L);
+    }
+
+    public String generateToken(String username, Long userId, long tokenEpoch) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
+                .header().keyId(activeKeyId).and()
                 .subject(username)
-                .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(EPOCH_CLAIM, tokenEpoch)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + jwtExpiration))
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
 
     public Claims extractClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    public AuthenticatedUser verifyToken(String token) {
+        Claims claims = extractClaims(token);
+        Long tokenEpoch = claims.get(EPOCH_CLAIM, Long.class);
+        return new AuthenticatedUser(claims.get(USER_ID_CLAIM, Long.class), claims.getSubject(),
+                tokenEpoch != null ? tokenEpoch : 0L, claims.getExpiration());
     }
 
     public String extractEmailToken(String token) {
@@ -62,12 +117,41 @@ public class JwtUtil {
         return extractClaims(token).getIssuedAt();
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
     public long getExpirationTime() {
         return jwtExpiration;
     }
-}
\ No newline at end of file
+
+    private SecretKey lookupKey(String keyId) {
+        // Janela de compatibilidade: tokens emitidos antes da introdução do "kid" não o trazem e foram
+        // assinados com a chave ativa. Remover (e recusar tokens sem kid) quando todos os nós já emitirem
+        // com kid há mais de jwt.expiration; refresh tokens são opacos e não passam por aqui
+        if (keyId == null) {
+            return signingKey;
+        }
+        SecretKey key = verificationKeys.get(keyId);
+        if (key == null) {
+            throw new JwtException("Unknown signing key id: " + keyId);
+        }
+        return key;
+    }
+
+    // Formato: kid1:secret1,kid2:secret2
+    private static Map<String, SecretKey> parseRetiredKeys(String retiredKeys) {
+        Map<String, SecretKey> keys = new HashMap<>();
+        if (retiredKeys == null || retiredKeys.isBlank()) {
+            return keys;
+        }
+        for (String entry : retiredKeys.split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid jwt.retired-keys entry, expected kid:secret");
+            }
+            keys.put(entry.substring(0, separator).trim(), toKey(entry.substring(separator + 1).trim()));
+        }
+        return keys;
+    }
+
+    private static SecretKey toKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
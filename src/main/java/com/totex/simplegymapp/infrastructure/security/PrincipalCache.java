@@ -0,0 +1,65 @@
+package com.totex.simplegymapp.infrastructure.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Cache local (por nó) dos principals usados pelo {@link JwtRequestFilter}, para que o caminho
+ * autenticado não faça um SELECT em users a cada requisição. Invalidações são propagadas aos
+ * demais nós via Redis pub/sub.
+ */
+@Component
+public class PrincipalCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "principal-cache:invalidate";
+
+    private final Cache<String, UserDetails> cache;
+    private final UserDetailsService userDetailsService;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public PrincipalCache(UserDetailsService userDetailsService,
+                          StringRedisTemplate stringRedisTemplate,
+                          RedisMessageListenerContainer listenerContainer,
+                          MeterRegistry meterRegistry,
+                          @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${security.principal-cache.ttl:5m}") Duration ttl) {
+        this.userDetailsService = userDetailsService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    public UserDetails get(String email) {
+        return cache.get(email, userDetailsService::loadUserByUsername);
+    }
+
+    public void evict(String email) {
+        cache.invalidate(email);
+        stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, email);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        cache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+}
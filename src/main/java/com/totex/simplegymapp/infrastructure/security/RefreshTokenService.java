@@ -0,0 +1,106 @@
+package com.totex.simplegymapp.infrastructure.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Refresh tokens opacos: o cliente recebe 256 bits aleatórios e o Redis guarda apenas o SHA-256.
+ * Cada uso rotaciona o token (o anterior vira "usado"); apresentar um token já usado indica vazamento
+ * e revoga a família inteira. O resgate não envolve BCrypt, só um hash SHA-256 e dois acessos ao Redis.
+ */
+@Component
+public class RefreshTokenService {
+
+    private static final String TOKEN_KEY_PREFIX = "refresh-token:";
+    private static final String USED_KEY_PREFIX = "refresh-token-used:";
+    private static final String FAMILY_KEY_PREFIX = "refresh-family:";
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TokenEpochService tokenEpochService;
+    private final Duration ttl;
+
+    public RefreshTokenService(StringRedisTemplate stringRedisTemplate,
+                               TokenEpochService tokenEpochService,
+                               @Value("${jwt.refresh-expiration}") long refreshExpiration) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.tokenEpochService = tokenEpochService;
+        this.ttl = Duration.ofMillis(refreshExpiration);
+    }
+
+    public String issue(Long userId, String email, long tokenEpoch) {
+        RefreshSession session = new RefreshSession(userId, tokenEpoch, UUID.randomUUID().toString(), email);
+        stringRedisTemplate.opsForValue().set(FAMILY_KEY_PREFIX + session.family(), session.userId().toString(), ttl);
+        return store(session);
+    }
+
+    public RefreshedSession rotate(String refreshToken) {
+        String hash = hash(refreshToken);
+        // GETDEL é atômico: duas requisições concorrentes com o mesmo token não conseguem ambas rotacioná-lo
+        String stored = stringRedisTemplate.opsForValue().getAndDelete(TOKEN_KEY_PREFIX + hash);
+        if (stored == null) {
+            String family = stringRedisTemplate.opsForValue().get(USED_KEY_PREFIX + hash);
+            if (family != null) {
+                stringRedisTemplate.delete(FAMILY_KEY_PREFIX + family);
+            }
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+
+        RefreshSession session = RefreshSession.parse(stored);
+        stringRedisTemplate.opsForValue().set(USED_KEY_PREFIX + hash, session.family(), ttl);
+
+        // Família revogada por reuso, ou logout/troca de senha (epoch incrementado) depois da emissão
+        if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(FAMILY_KEY_PREFIX + session.family()))
+                || session.tokenEpoch() < tokenEpochService.currentEpoch(session.userId())) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+
+        stringRedisTemplate.expire(FAMILY_KEY_PREFIX + session.family(), ttl);
+        return new RefreshedSession(session.userId(), session.email(), session.tokenEpoch(), store(session));
+    }
+
+    private String store(RefreshSession session) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        stringRedisTemplate.opsForValue().set(TOKEN_KEY_PREFIX + hash(token), session.serialize(), ttl);
+        return token;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record RefreshedSession(Long userId, String email, long tokenEpoch, String refreshToken) {
+    }
+
+    // Formato no Redis: userId:epoch:family:email (email por último, pode conter ':')
+    private record RefreshSession(Long userId, long tokenEpoch, String family, String email) {
+
+        String serialize() {
+            return userId + ":" + tokenEpoch + ":" + family + ":" + email;
+        }
+
+        static RefreshSession parse(String value) {
+            String[] parts = value.split(":", 4);
+            return new RefreshSession(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2], parts[3]);
+        }
+    }
+}
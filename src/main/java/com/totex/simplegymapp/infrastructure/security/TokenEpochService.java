@@ -0,0 +1,127 @@
+package com.totex.simplegymapp.infrastructure.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.totex.simplegymapp.infrastructure.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Revogação stateless de tokens: cada usuário tem um epoch monotônico (fonte de verdade no Redis)
+ * que vai no claim do JWT. Logout e troca de senha incrementam o epoch e todos os tokens com epoch
+ * menor passam a ser rejeitados. O filtro consulta uma tabela local, mantida em sincronia entre os
+ * nós via pub/sub, então o custo por requisição é um lookup em memória.
+ * <p>
+ * A tabela é limitada e cada entrada expira após {@code resync}: um aviso perdido pelo nó só vale
+ * até a próxima leitura do Redis. Ao (re)assinar o canal, a tabela é descartada, já que avisos
+ * publicados durante a desconexão se perderam.
+ * <p>
+ * Redis fora do ar: vale o último epoch lido do Redis por até {@code resync + stale-grace}, relido a
+ * cada {@code resync}. Sem um epoch recente, a requisição falha fechada com 503 + Retry-After: aceitar
+ * o token sem saber o epoch deixaria um token revogado valer pelo resto da sua vida.
+ */
+@Component
+public class TokenEpochService implements MessageListener, SubscriptionListener {
+
+    public static final String EPOCH_CHANNEL = "token-epoch:bump";
+    private static final String EPOCH_KEY_PREFIX = "token-epoch:";
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(5);
+
+    private final Cache<Long, Long> epochs;
+    // Últimos epochs confirmados pelo Redis, usados só enquanto ele estiver fora
+    private final Cache<Long, Long> lastKnownEpochs;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public TokenEpochService(StringRedisTemplate stringRedisTemplate,
+                             RedisMessageListenerContainer listenerContainer,
+                             @Value("${security.token-epoch.max-size:100000}") long maxSize,
+                             @Value("${security.token-epoch.resync:30s}") Duration resync,
+                             @Value("${security.token-epoch.stale-grace:2m}") Duration staleGrace) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.epochs = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(resync)
+                .build();
+        this.lastKnownEpochs = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(resync.plus(staleGrace))
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(EPOCH_CHANNEL));
+    }
+
+    public long currentEpoch(Long userId) {
+        Long epoch = epochs.getIfPresent(userId);
+        if (epoch != null) {
+            return epoch;
+        }
+        long loaded;
+        try {
+            loaded = loadEpoch(userId);
+        } catch (DataAccessException e) {
+            return fallbackEpoch(userId, e);
+        }
+        // GET fora do lock da tabela; um bump aplicado durante a leitura prevalece pelo max
+        return apply(userId, loaded);
+    }
+
+    public boolean isCurrent(AuthenticatedUser user) {
+        return user.userId() != null && user.tokenEpoch() >= currentEpoch(user.userId());
+    }
+
+    public long bump(Long userId) {
+        Long next = stringRedisTemplate.opsForValue().increment(EPOCH_KEY_PREFIX + userId);
+        long epoch = next != null ? next : currentEpoch(userId) + 1;
+        apply(userId, epoch);
+        stringRedisTemplate.convertAndSend(EPOCH_CHANNEL, userId + ":" + epoch);
+        return epoch;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        if (separator > 0) {
+            apply(Long.parseLong(body.substring(0, separator)), Long.parseLong(body.substring(separator + 1)));
+        }
+    }
+
+    // Avisos publicados enquanto o nó estava desconectado se perderam: volta a ler do Redis
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        epochs.invalidateAll();
+    }
+
+    private long apply(Long userId, long epoch) {
+        // Mensagens podem chegar fora de ordem: o epoch nunca regride
+        lastKnownEpochs.asMap().merge(userId, epoch, Math::max);
+        return epochs.asMap().merge(userId, epoch, Math::max);
+    }
+
+    // Volta para a tabela sem renovar o último epoch confirmado: o prazo de stale-grace não se estende,
+    // e o Redis só é tentado de novo no próximo resync, não a cada requisição
+    private long fallbackEpoch(Long userId, DataAccessException cause) {
+        Long lastKnown = lastKnownEpochs.getIfPresent(userId);
+        if (lastKnown == null) {
+            ServiceUnavailableException unavailable = new ServiceUnavailableException(
+                    "Token revocation state is unavailable, try again later.", RETRY_AFTER);
+            unavailable.initCause(cause);
+            throw unavailable;
+        }
+        return epochs.asMap().merge(userId, lastKnown, Math::max);
+    }
+
+    private long loadEpoch(Long userId) {
+        String value = stringRedisTemplate.opsForValue().get(EPOCH_KEY_PREFIX + userId);
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+}
@@ -2,13 +2,15 @@ package com.totex.simplegymapp.base;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.totex.simplegymapp.infrastructure.config.EmbeddedRedisConfig;
+import com.totex.simplegymapp.infrastructure.model.UserModel;
 import com.totex.simplegymapp.infrastructure.repository.UserRepository;
 import com.totex.simplegymapp.infrastructure.repository.WorkoutRepository;
 import com.totex.simplegymapp.infrastructure.repository.ExerciseRepository;
 import com.totex.simplegymapp.infrastructure.security.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
@@ -16,7 +18,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
 @SpringBootTest
-@AutoConfigureWebMvc
+@AutoConfigureMockMvc
 @ActiveProfiles("test")
 @Transactional
 @Import(EmbeddedRedisConfig.class)
@@ -48,8 +50,17 @@ public abstract class BaseIntegrationTest {
         userRepository.deleteAll();
     }
 
+    // Testes sem a transação do teste (respostas em streaming, lidas em outra thread) commitam os dados
+    @AfterEach
+    void tearDown() {
+        setUp();
+    }
+
     protected String generateToken(String email) {
-        return "Bearer " + jwtUtil.generateToken(email);
+        Long userId = userRepository.findByEmail(email)
+                .map(UserModel::getUserId)
+                .orElse(null);
+        return "Bearer " + jwtUtil.generateToken(email, userId);
     }
 
     protected String asJsonString(final Object obj) {
@@ -0,0 +1,55 @@
+package com.totex.simplegymapp.base;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+/**
+ * StringRedisTemplate de teste apoiado em um mapa, para testes unitários que precisam do
+ * comportamento de chave/valor do Redis (TTLs são ignorados).
+ */
+public final class InMemoryStringRedis {
+
+    private InMemoryStringRedis() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static StringRedisTemplate create(Map<String, String> store) {
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+
+        lenient().when(template.opsForValue()).thenReturn(values);
+        lenient().when(template.hasKey(anyString())).thenAnswer(inv -> store.containsKey(inv.<String>getArgument(0)));
+        lenient().when(template.delete(anyString())).thenAnswer(inv -> store.remove(inv.<String>getArgument(0)) != null);
+        lenient().when(template.expire(anyString(), any(Duration.class)))
+                .thenAnswer(inv -> store.containsKey(inv.<String>getArgument(0)));
+
+        lenient().when(values.get(anyString())).thenAnswer(inv -> store.get(inv.<String>getArgument(0)));
+        lenient().when(values.getAndDelete(anyString())).thenAnswer(inv -> store.remove(inv.<String>getArgument(0)));
+        lenient().doAnswer(inv -> store.put(inv.getArgument(0), inv.getArgument(1)))
+                .when(values).set(anyString(), anyString(), any(Duration.class));
+        lenient().doAnswer(inv -> store.put(inv.getArgument(0), inv.getArgument(1)))
+                .when(values).set(anyString(), anyString());
+        lenient().when(values.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenAnswer(inv -> store.putIfAbsent(inv.getArgument(0), inv.getArgument(1)) == null);
+        // Único script usado: compare-and-delete do lock do SingleFlight
+        lenient().when(template.execute(any(RedisScript.class), anyList(), any()))
+                .thenAnswer(inv -> store.remove(inv.<List<String>>getArgument(1).get(0), inv.getArgument(2)) ? 1L : 0L);
+        return template;
+    }
+
+    public static StringRedisTemplate create() {
+        return create(new ConcurrentHashMap<>());
+    }
+}
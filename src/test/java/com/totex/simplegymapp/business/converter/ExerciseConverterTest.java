@@ -107,6 +107,17 @@ class ExerciseConverterTest {
         assertThat(result.getWorkout()).isEqualTo(workoutModel);
     }
 
+    @Test
+    void shouldIgnoreClientIdWhenConvertingNewExercise() {
+        // When
+        ExerciseModel result = exerciseConverter.toNewExerciseModel(exerciseDto, workoutModel);
+
+        // Then
+        assertThat(result.getExerciseId()).isNull();
+        assertThat(result.getExerciseName()).isEqualTo("Supino Reto");
+        assertThat(result.getWorkout()).isEqualTo(workoutModel);
+    }
+
     @Test
     void shouldConvertExerciseModelWithNullWorkout() {
         // Given
@@ -1,15 +1,19 @@
 package com.totex.simplegymapp.business.converter;
 
+import com.totex.simplegymapp.business.dto.ExerciseDto;
 import com.totex.simplegymapp.business.dto.WorkoutDto;
+import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
 import com.totex.simplegymapp.infrastructure.model.UserModel;
 import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
@@ -17,6 +21,9 @@ import static org.assertj.core.api.Assertions.assertThatCode;
 @ExtendWith(MockitoExtension.class)
 class WorkoutConverterTest {
 
+    @Spy
+    private ExerciseConverter exerciseConverter;
+
     @InjectMocks
     private WorkoutConverter workoutConverter;
 
@@ -72,6 +79,28 @@ class WorkoutConverterTest {
         assertThat(result.getWorkoutId()).isNull(); // ID é gerado pelo banco
     }
 
+    @Test
+    void shouldConvertNestedExercisesForCascade() {
+        // Given
+        ExerciseDto exercise = new ExerciseDto();
+        exercise.setExerciseId(99L);
+        exercise.setExerciseName("Supino Reto");
+        exercise.setSeries(4);
+        exercise.setRepetitions(12);
+        workoutDto.setExercises(List.of(exercise));
+
+        // When
+        WorkoutModel result = workoutConverter.toWorkoutModel(workoutDto, userModel);
+
+        // Then
+        assertThat(result.getExercises()).singleElement().satisfies(model -> {
+            assertThat(model.getExerciseId()).isNull();
+            assertThat(model.getExerciseName()).isEqualTo("Supino Reto");
+            assertThat(model.getWorkout()).isSameAs(result);
+        });
+        assertThat(result.getExercises()).extracting(ExerciseModel::getSeries).containsExactly(4);
+    }
+
     @Test
     void shouldHandleNullValues() {
         // Given
@@ -0,0 +1,161 @@
+package com.totex.simplegymapp.business.service;
+
+import com.totex.simplegymapp.business.dto.AccountPurgeDto;
+import com.totex.simplegymapp.business.service.AccountPurgeService.ChunkType;
+import com.totex.simplegymapp.business.service.AccountPurgeService.PurgeChunk;
+import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
+import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
+import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * O expurgo apaga o histórico em lotes de tamanho limitado, registra o progresso a cada lote e só
+ * remove o usuário quando não sobra nenhum workout.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(AccountPurgeService.class)
+class AccountPurgeServiceTest {
+
+    private static final int WORKOUTS = 12;
+    private static final int EXERCISES_PER_WORKOUT = 25;
+    private static final int CHUNK_SIZE = 40;
+
+    @Autowired
+    private AccountPurgeService accountPurgeService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private UserModel member;
+    private UserModel other;
+
+    @BeforeEach
+    void setUp() {
+        member = entityManager.persist(UserModel.builder()
+                .username("member").email("member@example.com").password("hashedpassword").build());
+        other = entityManager.persist(UserModel.builder()
+                .username("other").email("other@example.com").password("hashedpassword").build());
+        for (int i = 0; i < WORKOUTS; i++) {
+            persistWorkout(member, EXERCISES_PER_WORKOUT);
+        }
+        persistWorkout(other, 3);
+        entityManager.flush();
+    }
+
+    @Test
+    void requestPurgeShouldDisableUserAndRecordTotals() {
+        // When
+        AccountPurgeDto purge = accountPurgeService.requestPurge(member);
+
+        // Then
+        assertThat(purge.getStatus()).isEqualTo(AccountPurgeDto.Status.PENDING);
+        assertThat(purge.getWorkoutsTotal()).isEqualTo(WORKOUTS);
+        assertThat(purge.getExercisesTotal()).isEqualTo(WORKOUTS * EXERCISES_PER_WORKOUT);
+        assertThat(member.getDeletedAt()).isNotNull();
+        assertThat(member.isEnabled()).isFalse();
+        assertThat(purge.getStatusToken()).hasSize(43);
+    }
+
+    @Test
+    void requestPurgeShouldBeIdempotent() {
+        // Given
+        AccountPurgeDto first = accountPurgeService.requestPurge(member);
+
+        // When
+        AccountPurgeDto second = accountPurgeService.requestPurge(member);
+
+        // Then
+        assertThat(second.getPurgeId()).isEqualTo(first.getPurgeId());
+        assertThat(second.getStatusToken()).isEqualTo(first.getStatusToken());
+        assertThat(count("select count(p) from AccountPurgeModel p")).isEqualTo(1);
+    }
+
+    @Test
+    void purgeShouldDeleteHistoryInBoundedChunksUntilUserIsGone() {
+        // Given
+        String statusToken = accountPurgeService.requestPurge(member).getStatusToken();
+
+        // When
+        List<PurgeChunk> chunks = new ArrayList<>();
+        Optional<PurgeChunk> chunk;
+        while ((chunk = accountPurgeService.purgeNextChunk(CHUNK_SIZE)).isPresent()) {
+            chunks.add(chunk.get());
+            if (chunks.size() == 1) {
+                // Progresso visível no meio do expurgo
+                assertThat(accountPurgeService.getPurge(statusToken).getStatus())
+                        .isEqualTo(AccountPurgeDto.Status.IN_PROGRESS);
+            }
+        }
+
+        // Then - 300 exercícios em lotes de 40, depois 12 workouts, depois o usuário
+        assertThat(chunks).allSatisfy(c -> assertThat(c.deleted()).isBetween(1, CHUNK_SIZE));
+        assertThat(chunks).extracting(PurgeChunk::type).containsSubsequence(ChunkType.EXERCISE, ChunkType.WORKOUT,
+                ChunkType.USER);
+        assertThat(chunks).filteredOn(c -> c.type() == ChunkType.EXERCISE).hasSize(8);
+        assertThat(chunks.get(chunks.size() - 1).completed()).isTrue();
+
+        AccountPurgeDto purge = accountPurgeService.getPurge(statusToken);
+        assertThat(purge.getStatus()).isEqualTo(AccountPurgeDto.Status.COMPLETED);
+        assertThat(purge.getExercisesDeleted()).isEqualTo(WORKOUTS * EXERCISES_PER_WORKOUT);
+        assertThat(purge.getWorkoutsDeleted()).isEqualTo(WORKOUTS);
+        assertThat(accountPurgeService.countPending()).isZero();
+
+        // Os dados de outro usuário ficam intactos
+        assertThat(count("select count(u) from UserModel u")).isEqualTo(1);
+        assertThat(count("select count(w) from WorkoutModel w where w.user.userId = " + other.getUserId()))
+                .isEqualTo(1);
+        assertThat(count("select count(e) from ExerciseModel e")).isEqualTo(3);
+    }
+
+    @Test
+    void purgeNextChunkShouldReturnEmptyWhenNothingIsPending() {
+        // When & Then
+        assertThat(accountPurgeService.purgeNextChunk(CHUNK_SIZE)).isEmpty();
+    }
+
+    @Test
+    void getPurgeShouldThrowWhenUnknown() {
+        // Given - o id sequencial não serve como token
+        Long purgeId = accountPurgeService.requestPurge(member).getPurgeId();
+
+        // When & Then
+        assertThatThrownBy(() -> accountPurgeService.getPurge(String.valueOf(purgeId)))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private void persistWorkout(UserModel user, int exercises) {
+        WorkoutModel workout = new WorkoutModel();
+        workout.setWorkoutName("Treino");
+        workout.setStartDate(LocalDate.now());
+        workout.setUser(user);
+        entityManager.persist(workout);
+        for (int j = 0; j < exercises; j++) {
+            ExerciseModel exercise = new ExerciseModel();
+            exercise.setExerciseName("Exercicio " + j);
+            exercise.setSeries(3);
+            exercise.setRepetitions(12);
+            exercise.setWorkout(workout);
+            entityManager.persist(exercise);
+        }
+    }
+
+    private long count(String jpql) {
+        return entityManager.getEntityManager().createQuery(jpql, Long.class).getSingleResult();
+    }
+}
@@ -0,0 +1,79 @@
+package com.totex.simplegymapp.business.service;
+
+import com.totex.simplegymapp.business.service.AccountPurgeService.ChunkType;
+import com.totex.simplegymapp.business.service.AccountPurgeService.PurgeChunk;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountPurgeWorkerTest {
+
+    @Mock
+    private AccountPurgeService accountPurgeService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void shouldRecordThroughputAndCompletion() {
+        // Given
+        AccountPurgeWorker worker = new AccountPurgeWorker(accountPurgeService, meterRegistry, 500, 10, Duration.ZERO);
+        given(accountPurgeService.purgeNextChunk(500)).willReturn(
+                Optional.of(new PurgeChunk(1L, ChunkType.EXERCISE, 500, false, null)),
+                Optional.of(new PurgeChunk(1L, ChunkType.EXERCISE, 120, false, null)),
+                Optional.of(new PurgeChunk(1L, ChunkType.WORKOUT, 30, false, null)),
+                Optional.of(new PurgeChunk(1L, ChunkType.USER, 1, true, Duration.ofSeconds(42))),
+                Optional.empty());
+        given(accountPurgeService.countPending()).willReturn(0L);
+        given(accountPurgeService.oldestPendingAge()).willReturn(Duration.ZERO);
+
+        // When
+        int chunks = worker.purgeBatch();
+
+        // Then
+        assertThat(chunks).isEqualTo(4);
+        assertThat(meterRegistry.get("account.purge.rows.deleted").tag("type", "exercise").counter().count())
+                .isEqualTo(620);
+        assertThat(meterRegistry.get("account.purge.rows.deleted").tag("type", "workout").counter().count())
+                .isEqualTo(30);
+        assertThat(meterRegistry.get("account.purge.chunk.duration").timer().count()).isEqualTo(4);
+        assertThat(meterRegistry.get("account.purge.duration").timer().totalTime(TimeUnit.SECONDS))
+                .isEqualTo(42);
+    }
+
+    @Test
+    void shouldStopAtMaxChunksPerRunAndPublishLag() {
+        // Given
+        AccountPurgeWorker worker = new AccountPurgeWorker(accountPurgeService, meterRegistry, 100, 3, Duration.ZERO);
+        given(accountPurgeService.purgeNextChunk(100))
+                .willReturn(Optional.of(new PurgeChunk(1L, ChunkType.EXERCISE, 100, false, null)));
+        given(accountPurgeService.countPending()).willReturn(2L);
+        given(accountPurgeService.oldestPendingAge()).willReturn(Duration.ofMinutes(5));
+
+        // When
+        int chunks = worker.purgeBatch();
+
+        // Then - o restante fica para a próxima execução
+        assertThat(chunks).isEqualTo(3);
+        verify(accountPurgeService, times(3)).purgeNextChunk(100);
+        assertThat(meterRegistry.get("account.purge.pending").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("account.purge.lag").gauge().value()).isEqualTo(300);
+    }
+}
@@ -0,0 +1,167 @@
+package com.totex.simplegymapp.business.service;
+
+import com.totex.simplegymapp.business.converter.ExerciseConverter;
+import com.totex.simplegymapp.business.converter.UserConverter;
+import com.totex.simplegymapp.business.converter.WorkoutConverter;
+import com.totex.simplegymapp.infrastructure.cache.SecondLevelCacheInvalidator;
+import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
+import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
+import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import com.totex.simplegymapp.infrastructure.security.PrincipalCache;
+import com.totex.simplegymapp.infrastructure.security.TokenEpochService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Exclusão de workout e pedido de exclusão de conta rodam em um número fixo de statements, não importa
+ * quantos workouts e exercícios o usuário acumulou; o histórico da conta é apagado depois, em lotes.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({WorkoutService.class, UserService.class, AccountPurgeService.class, WorkoutConverter.class, ExerciseConverter.class, UserConverter.class, WorkoutCaches.class, NoOpCacheManager.class})
+class BulkDeleteQueryCountTest {
+
+    @MockitoBean
+    private SecondLevelCacheInvalidator secondLevelCacheInvalidator;
+
+    private static final int WORKOUTS = 20;
+    private static final int EXERCISES_PER_WORKOUT = 50;
+
+    @Autowired
+    private WorkoutService workoutService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockitoBean
+    private PrincipalCache principalCache;
+
+    @MockitoBean
+    private TokenEpochService tokenEpochService;
+
+    private Statistics statistics;
+    private UserModel member;
+    private AuthenticatedUser principal;
+    private Long firstWorkoutId;
+    private Long otherUsersWorkoutId;
+
+    @BeforeEach
+    void setUp() {
+        member = entityManager.persist(UserModel.builder()
+                .username("member").email("member@example.com").password("hashedpassword").build());
+        UserModel other = entityManager.persist(UserModel.builder()
+                .username("other").email("other@example.com").password("hashedpassword").build());
+
+        for (int i = 0; i < WORKOUTS; i++) {
+            WorkoutModel workout = persistWorkout(member, EXERCISES_PER_WORKOUT);
+            if (firstWorkoutId == null) {
+                firstWorkoutId = workout.getWorkoutId();
+            }
+        }
+        otherUsersWorkoutId = persistWorkout(other, 3).getWorkoutId();
+
+        entityManager.flush();
+        entityManager.clear();
+
+        principal = new AuthenticatedUser(member.getUserId(), member.getEmail(), 0L,
+                new Date(System.currentTimeMillis() + 3600000L));
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void deleteWorkoutShouldRunThreeStatementsWithoutLoadingExercises() {
+        // When
+        workoutService.deleteWorkout(firstWorkoutId, 0L, principal);
+
+        // Then - ids dos exercícios (só eles saem do cache de segundo nível) + dois DELETEs em lote
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(count("select count(e) from ExerciseModel e where e.workout.workoutId = " + firstWorkoutId)).isZero();
+        assertThat(count("select count(w) from WorkoutModel w where w.user.userId = " + member.getUserId()))
+                .isEqualTo(WORKOUTS - 1);
+        verify(secondLevelCacheInvalidator).evictEverywhere(eq(SecondLevelCacheInvalidator.EXERCISE),
+                argThat((Collection<Long> ids) -> ids.size() == EXERCISES_PER_WORKOUT));
+    }
+
+    @Test
+    void deleteForeignWorkoutShouldDeleteNothing() {
+        // When & Then
+        assertThatThrownBy(() -> workoutService.deleteWorkout(otherUsersWorkoutId, 0L, principal))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(count("select count(e) from ExerciseModel e where e.workout.workoutId = " + otherUsersWorkoutId))
+                .isEqualTo(3);
+    }
+
+    @Test
+    void deleteAccountShouldOnlyMarkUserAndSchedulePurge() {
+        // When
+        userService.deleteUserByEmail("member@example.com");
+        entityManager.flush();
+
+        // Then - SELECT do usuário, duas contagens, UPDATE do usuário e INSERT do expurgo (+ nextval)
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(7);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+        assertThat(count("select count(u) from UserModel u where u.email = 'member@example.com' "
+                + "and u.deletedAt is not null")).isEqualTo(1);
+        assertThat(count("select count(w) from WorkoutModel w")).isEqualTo(WORKOUTS + 1);
+        assertThat(count("select count(e) from ExerciseModel e")).isEqualTo(WORKOUTS * EXERCISES_PER_WORKOUT + 3);
+        assertThat(count("select count(p) from AccountPurgeModel p where p.exercisesTotal = "
+                + WORKOUTS * EXERCISES_PER_WORKOUT)).isEqualTo(1);
+        // Tokens e principal só são invalidados no commit, e a transação do teste é desfeita
+        verify(tokenEpochService, never()).bump(any());
+        verify(principalCache, never()).evict(any());
+    }
+
+    private WorkoutModel persistWorkout(UserModel user, int exercises) {
+        WorkoutModel workout = new WorkoutModel();
+        workout.setWorkoutName("Treino");
+        workout.setStartDate(LocalDate.now());
+        workout.setUser(user);
+        entityManager.persist(workout);
+        for (int j = 0; j < exercises; j++) {
+            ExerciseModel exercise = new ExerciseModel();
+            exercise.setExerciseName("Exercicio " + j);
+            exercise.setSeries(3);
+            exercise.setRepetitions(12);
+            exercise.setWorkout(workout);
+            entityManager.persist(exercise);
+        }
+        return workout;
+    }
+
+    private long count(String jpql) {
+        return entityManager.getEntityManager().createQuery(jpql, Long.class).getSingleResult();
+    }
+}
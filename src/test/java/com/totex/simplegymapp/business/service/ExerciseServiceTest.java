@@ -1,14 +1,18 @@
 package com.totex.simplegymapp.business.service;
 
 import com.totex.simplegymapp.business.converter.ExerciseConverter;
+import com.totex.simplegymapp.business.dto.ExerciseBatchDto;
 import com.totex.simplegymapp.business.dto.ExerciseDto;
+import com.totex.simplegymapp.infrastructure.cache.SecondLevelCacheInvalidator;
+import com.totex.simplegymapp.infrastructure.exception.PreconditionFailedException;
 import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
 import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
 import com.totex.simplegymapp.infrastructure.model.UserModel;
 import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
 import com.totex.simplegymapp.infrastructure.repository.ExerciseRepository;
 import com.totex.simplegymapp.infrastructure.repository.WorkoutRepository;
-import com.totex.simplegymapp.infrastructure.security.JwtUtil;
+import com.totex.simplegymapp.infrastructure.repository.projection.ExerciseSummary;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,14 +21,20 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,7 +50,10 @@ class ExerciseServiceTest {
     private ExerciseConverter exerciseConverter;
 
     @Mock
-    private JwtUtil jwtUtil;
+    private WorkoutCaches workoutCaches;
+
+    @Mock
+    private SecondLevelCacheInvalidator secondLevelCacheInvalidator;
 
     @InjectMocks
     private ExerciseService exerciseService;
@@ -49,11 +62,11 @@ class ExerciseServiceTest {
     private WorkoutModel workoutModel;
     private ExerciseModel exerciseModel;
     private ExerciseDto exerciseDto;
-    private String token;
+    private AuthenticatedUser principal;
 
     @BeforeEach
     void setUp() {
-        token = "Bearer validtoken";
+        principal = new AuthenticatedUser(1L, "test@example.com", 0L, new Date(System.currentTimeMillis() + 3600000L));
 
         userModel = UserModel.builder()
                 .userId(1L)
@@ -74,6 +87,7 @@ class ExerciseServiceTest {
         exerciseModel.setSeries(4);
         exerciseModel.setRepetitions(12);
         exerciseModel.setWorkout(workoutModel);
+        exerciseModel.setVersion(0L);
 
         exerciseDto = new ExerciseDto();
         exerciseDto.setExerciseId(1L);
@@ -86,14 +100,14 @@ class ExerciseServiceTest {
     @Test
     void shouldCreateExerciseSuccessfully() {
         // Given
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(workoutRepository.findById(1L)).willReturn(Optional.of(workoutModel));
-        given(exerciseConverter.toExerciseModel(exerciseDto, workoutModel)).willReturn(exerciseModel);
+        given(workoutRepository.existsByWorkoutIdAndUserUserId(1L, 1L)).willReturn(true);
+        given(workoutRepository.getReferenceById(1L)).willReturn(workoutModel);
+        given(exerciseConverter.toNewExerciseModel(exerciseDto, workoutModel)).willReturn(exerciseModel);
         given(exerciseRepository.save(exerciseModel)).willReturn(exerciseModel);
         given(exerciseConverter.toExerciseDto(exerciseModel)).willReturn(exerciseDto);
 
         // When
-        ExerciseDto result = exerciseService.createExercise(exerciseDto, token);
+        ExerciseDto result = exerciseService.createExercise(exerciseDto, principal);
 
         // Then
         assertThat(result).isNotNull();
@@ -103,14 +117,66 @@ class ExerciseServiceTest {
         verify(exerciseRepository).save(exerciseModel);
     }
 
+    @Test
+    void shouldIgnoreClientSuppliedIdOnCreate() {
+        // Given - id de um exercício existente no corpo do POST
+        exerciseDto.setExerciseId(99L);
+        ExerciseService service = new ExerciseService(exerciseRepository, workoutRepository, new ExerciseConverter(),
+                workoutCaches, secondLevelCacheInvalidator);
+        given(workoutRepository.existsByWorkoutIdAndUserUserId(1L, 1L)).willReturn(true);
+        given(workoutRepository.getReferenceById(1L)).willReturn(workoutModel);
+        given(exerciseRepository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        service.createExercise(exerciseDto, principal);
+
+        // Then - persist de uma entidade nova, nunca merge sobre a linha 99
+        verify(exerciseRepository).save(argThat(exercise -> exercise.getExerciseId() == null));
+    }
+
+    @Test
+    void shouldCreateExercisesInBatchWithOneOwnershipCheck() {
+        // Given
+        ExerciseDto second = new ExerciseDto();
+        second.setExerciseName("Crucifixo");
+        ExerciseModel secondModel = new ExerciseModel();
+        ExerciseBatchDto batchDto = new ExerciseBatchDto(1L, List.of(exerciseDto, second));
+        given(workoutRepository.existsByWorkoutIdAndUserUserId(1L, 1L)).willReturn(true);
+        given(workoutRepository.getReferenceById(1L)).willReturn(workoutModel);
+        given(exerciseConverter.toNewExerciseModel(exerciseDto, workoutModel)).willReturn(exerciseModel);
+        given(exerciseConverter.toNewExerciseModel(second, workoutModel)).willReturn(secondModel);
+        given(exerciseRepository.saveAll(List.of(exerciseModel, secondModel))).willReturn(List.of(exerciseModel, secondModel));
+        given(exerciseConverter.toExerciseDto(exerciseModel)).willReturn(exerciseDto);
+        given(exerciseConverter.toExerciseDto(secondModel)).willReturn(second);
+
+        // When
+        List<ExerciseDto> result = exerciseService.createExercises(batchDto, principal);
+
+        // Then
+        assertThat(result).containsExactly(exerciseDto, second);
+        verify(workoutRepository, times(1)).existsByWorkoutIdAndUserUserId(1L, 1L);
+        verify(exerciseRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldRejectBatchForWorkoutOfAnotherUser() {
+        // Given
+        ExerciseBatchDto batchDto = new ExerciseBatchDto(1L, List.of(exerciseDto));
+        given(workoutRepository.existsByWorkoutIdAndUserUserId(1L, 1L)).willReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> exerciseService.createExercises(batchDto, principal))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(exerciseRepository, never()).saveAll(any());
+    }
+
     @Test
     void shouldThrowResourceNotFoundExceptionWhenWorkoutNotFoundForExerciseCreation() {
         // Given
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(workoutRepository.findById(1L)).willReturn(Optional.empty());
+        given(workoutRepository.existsByWorkoutIdAndUserUserId(1L, 1L)).willReturn(false);
 
         // When & Then
-        assertThatThrownBy(() -> exerciseService.createExercise(exerciseDto, token))
+        assertThatThrownBy(() -> exerciseService.createExercise(exerciseDto, principal))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Workout not found.");
     }
@@ -118,46 +184,51 @@ class ExerciseServiceTest {
     @Test
     void shouldThrowResourceNotFoundExceptionWhenWorkoutDoesNotBelongToUserForExerciseCreation() {
         // Given
-        UserModel anotherUser = UserModel.builder()
-                .userId(2L)
-                .email("another@example.com")
-                .build();
-        workoutModel.setUser(anotherUser);
-
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(workoutRepository.findById(1L)).willReturn(Optional.of(workoutModel));
+        AuthenticatedUser anotherUser = new AuthenticatedUser(2L, "another@example.com", 0L, principal.expiration());
+        given(workoutRepository.existsByWorkoutIdAndUserUserId(1L, 2L)).willReturn(false);
 
         // When & Then
-        assertThatThrownBy(() -> exerciseService.createExercise(exerciseDto, token))
+        assertThatThrownBy(() -> exerciseService.createExercise(exerciseDto, anotherUser))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Workout not found.");
+        verify(exerciseRepository, never()).save(any());
     }
 
     @Test
     void shouldGetExercisesByWorkoutSuccessfully() {
         // Given
-        workoutModel.setExercises(Arrays.asList(exerciseModel));
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(workoutRepository.findById(1L)).willReturn(Optional.of(workoutModel));
+        given(exerciseRepository.findByWorkoutWorkoutIdAndWorkoutUserUserId(1L, 1L)).willReturn(List.of(exerciseModel));
         given(exerciseConverter.toExerciseDto(exerciseModel)).willReturn(exerciseDto);
 
         // When
-        List<ExerciseDto> result = exerciseService.getExercisesByWorkout(1L, token);
+        List<ExerciseDto> result = exerciseService.getExercisesByWorkout(1L, principal);
 
-        // Then
+        // Then - com resultado, a própria query já provou a posse
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getExerciseName()).isEqualTo("Supino Reto");
+        verify(workoutRepository, never()).existsByWorkoutIdAndUserUserId(any(), any());
+    }
+
+    @Test
+    void shouldThrowWhenListingExercisesOfAnotherUsersWorkout() {
+        // Given
+        given(exerciseRepository.findByWorkoutWorkoutIdAndWorkoutUserUserId(1L, 1L)).willReturn(List.of());
+        given(workoutRepository.existsByWorkoutIdAndUserUserId(1L, 1L)).willReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> exerciseService.getExercisesByWorkout(1L, principal))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Workout not found.");
     }
 
     @Test
     void shouldGetExerciseByIdSuccessfully() {
         // Given
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(exerciseRepository.findById(1L)).willReturn(Optional.of(exerciseModel));
+        given(exerciseRepository.findByExerciseIdAndWorkoutUserUserId(1L, 1L)).willReturn(Optional.of(exerciseModel));
         given(exerciseConverter.toExerciseDto(exerciseModel)).willReturn(exerciseDto);
 
         // When
-        ExerciseDto result = exerciseService.getExerciseById(1L, token);
+        ExerciseDto result = exerciseService.getExerciseById(1L, principal);
 
         // Then
         assertThat(result).isNotNull();
@@ -167,11 +238,10 @@ class ExerciseServiceTest {
     @Test
     void shouldThrowResourceNotFoundExceptionWhenExerciseNotFound() {
         // Given
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(exerciseRepository.findById(1L)).willReturn(Optional.empty());
+        given(exerciseRepository.findByExerciseIdAndWorkoutUserUserId(1L, 1L)).willReturn(Optional.empty());
 
         // When & Then
-        assertThatThrownBy(() -> exerciseService.getExerciseById(1L, token))
+        assertThatThrownBy(() -> exerciseService.getExerciseById(1L, principal))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Exercise not found.");
     }
@@ -179,17 +249,11 @@ class ExerciseServiceTest {
     @Test
     void shouldThrowResourceNotFoundExceptionWhenExerciseDoesNotBelongToUser() {
         // Given
-        UserModel anotherUser = UserModel.builder()
-                .userId(2L)
-                .email("another@example.com")
-                .build();
-        workoutModel.setUser(anotherUser);
-
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(exerciseRepository.findById(1L)).willReturn(Optional.of(exerciseModel));
+        AuthenticatedUser anotherUser = new AuthenticatedUser(2L, "another@example.com", 0L, principal.expiration());
+        given(exerciseRepository.findByExerciseIdAndWorkoutUserUserId(1L, 2L)).willReturn(Optional.empty());
 
         // When & Then
-        assertThatThrownBy(() -> exerciseService.getExerciseById(1L, token))
+        assertThatThrownBy(() -> exerciseService.getExerciseById(1L, anotherUser))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Exercise not found.");
     }
@@ -201,44 +265,128 @@ class ExerciseServiceTest {
         updateDto.setExerciseName("Supino Inclinado");
         updateDto.setSeries(3);
         updateDto.setRepetitions(10);
-
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(exerciseRepository.findById(1L)).willReturn(Optional.of(exerciseModel));
-        given(exerciseRepository.save(any(ExerciseModel.class))).willReturn(exerciseModel);
-        given(exerciseConverter.toExerciseDto(exerciseModel)).willReturn(exerciseDto);
+        ExerciseSummary summary = new ExerciseSummary(1L, "Supino Inclinado", 3, 10, 1L, 1L);
+        given(exerciseRepository.updateOwnedExercise(1L, 1L, 0L, "Supino Inclinado", 3, 10)).willReturn(1);
+        given(exerciseRepository.findSummaryById(1L)).willReturn(Optional.of(summary));
+        given(exerciseConverter.toExerciseDto(summary)).willReturn(exerciseDto);
 
         // When
-        ExerciseDto result = exerciseService.updateExercise(1L, updateDto, token);
+        ExerciseDto result = exerciseService.updateExercise(1L, updateDto, 0L, principal);
 
-        // Then
+        // Then - UPDATE condicional, sem carregar a entidade; só esta entrada sai do cache
         assertThat(result).isNotNull();
-        verify(exerciseRepository).save(exerciseModel);
+        verify(exerciseRepository, never()).findByExerciseIdAndWorkoutUserUserId(any(), any());
+        verify(exerciseRepository, never()).save(any());
+        verify(secondLevelCacheInvalidator).evictEverywhere(SecondLevelCacheInvalidator.EXERCISE, 1L);
+        verify(workoutCaches).evictWorkout(1L, 1L);
+    }
+
+    @Test
+    void shouldPassNullNameWhenUpdatingWithBlankName() {
+        // Given
+        ExerciseDto updateDto = new ExerciseDto();
+        updateDto.setExerciseName("  ");
+        updateDto.setRepetitions(15);
+        ExerciseSummary summary = new ExerciseSummary(1L, "Supino Reto", 4, 15, 1L, 1L);
+        given(exerciseRepository.updateOwnedExercise(1L, 1L, 0L, null, 0, 15)).willReturn(1);
+        given(exerciseRepository.findSummaryById(1L)).willReturn(Optional.of(summary));
+        given(exerciseConverter.toExerciseDto(summary)).willReturn(exerciseDto);
+
+        // When
+        exerciseService.updateExercise(1L, updateDto, 0L, principal);
+
+        // Then - null e zero mantêm o valor atual na própria query
+        verify(exerciseRepository).updateOwnedExercise(1L, 1L, 0L, null, 0, 15);
+    }
+
+    @Test
+    void shouldThrowWhenUpdatingExerciseOfAnotherUser() {
+        // Given
+        AuthenticatedUser anotherUser = new AuthenticatedUser(2L, "another@example.com", 0L, principal.expiration());
+        ExerciseDto updateDto = new ExerciseDto();
+        updateDto.setSeries(5);
+        given(exerciseRepository.updateOwnedExercise(1L, 2L, 0L, null, 5, 0)).willReturn(0);
+        given(exerciseRepository.existsByExerciseIdAndWorkoutUserUserId(1L, 2L)).willReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> exerciseService.updateExercise(1L, updateDto, 0L, anotherUser))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Exercise not found.");
+        verify(exerciseRepository, never()).findSummaryById(any());
+        verify(secondLevelCacheInvalidator, never()).evict(any(), any());
+    }
+
+    @Test
+    void shouldRejectUpdateWithStaleVersion() {
+        // Given
+        ExerciseDto updateDto = new ExerciseDto();
+        updateDto.setSeries(5);
+        given(exerciseRepository.updateOwnedExercise(1L, 1L, 3L, null, 5, 0)).willReturn(0);
+        given(exerciseRepository.existsByExerciseIdAndWorkoutUserUserId(1L, 1L)).willReturn(true);
+
+        // When & Then - a entrada local pode ser a desatualizada: sai do cache junto com o 412
+        assertThatThrownBy(() -> exerciseService.updateExercise(1L, updateDto, 3L, principal))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("Exercise was modified by another request.");
+        verify(secondLevelCacheInvalidator).evict(SecondLevelCacheInvalidator.EXERCISE, 1L);
+        verify(secondLevelCacheInvalidator, never()).evictEverywhere(any(), any(Long.class));
     }
 
     @Test
     void shouldDeleteExerciseSuccessfully() {
         // Given
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(exerciseRepository.findById(1L)).willReturn(Optional.of(exerciseModel));
+        given(exerciseRepository.findWorkoutIdByOwnedExercise(1L, 1L)).willReturn(Optional.of(1L));
+        given(exerciseRepository.deleteOwnedExercise(1L, 1L, 0L)).willReturn(1);
 
         // When
-        exerciseService.deleteExercise(1L, token);
+        exerciseService.deleteExercise(1L, 0L, principal);
 
-        // Then
-        verify(exerciseRepository).delete(exerciseModel);
+        // Then - DELETE condicional, sem carregar a entidade; só o exercício e a coleção do workout saem do cache
+        verify(exerciseRepository, never()).delete(any());
+        verify(workoutCaches).evictWorkout(1L, 1L);
+        verify(secondLevelCacheInvalidator).evictEverywhere(SecondLevelCacheInvalidator.EXERCISE, 1L);
+        verify(secondLevelCacheInvalidator).evictEverywhere(SecondLevelCacheInvalidator.WORKOUT_EXERCISES, 1L);
     }
 
     @Test
-    void shouldGetAllExercisesSuccessfully() {
+    void shouldThrowWhenDeletingExerciseOfAnotherUser() {
         // Given
-        given(exerciseRepository.findAll()).willReturn(Arrays.asList(exerciseModel));
-        given(exerciseConverter.toExerciseDto(exerciseModel)).willReturn(exerciseDto);
+        given(exerciseRepository.findWorkoutIdByOwnedExercise(1L, 1L)).willReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> exerciseService.deleteExercise(1L, 0L, principal))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Exercise not found.");
+        verify(exerciseRepository, never()).deleteOwnedExercise(any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectDeleteWithStaleVersion() {
+        // Given
+        given(exerciseRepository.findWorkoutIdByOwnedExercise(1L, 1L)).willReturn(Optional.of(1L));
+        given(exerciseRepository.deleteOwnedExercise(1L, 1L, 7L)).willReturn(0);
+
+        // When & Then
+        assertThatThrownBy(() -> exerciseService.deleteExercise(1L, 7L, principal))
+                .isInstanceOf(PreconditionFailedException.class);
+        verify(secondLevelCacheInvalidator).evict(SecondLevelCacheInvalidator.EXERCISE, 1L);
+        verify(workoutCaches, never()).evictWorkout(any(), any());
+    }
+
+    @Test
+    void shouldStreamAllExercisesAndCloseTheCursor() {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        ExerciseSummary summary = new ExerciseSummary(1L, "Supino Reto", 4, 12, 1L, 0L);
+        given(exerciseRepository.streamAll()).willReturn(Stream.of(summary).onClose(() -> closed.set(true)));
+        given(exerciseConverter.toExerciseDto(summary)).willReturn(exerciseDto);
+        List<ExerciseDto> received = new ArrayList<>();
 
         // When
-        List<ExerciseDto> result = exerciseService.getAllExercises();
+        exerciseService.streamAllExercises(received::add);
 
         // Then
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getExerciseName()).isEqualTo("Supino Reto");
+        assertThat(received).containsExactly(exerciseDto);
+        assertThat(closed).isTrue();
     }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package com.totex.simplegymapp.business.service;
+
+import com.totex.simplegymapp.business.converter.ExerciseConverter;
+import com.totex.simplegymapp.business.converter.WorkoutConverter;
+import com.totex.simplegymapp.business.dto.WorkoutDto;
+import com.totex.simplegymapp.infrastructure.cache.SecondLevelCacheInvalidator;
+import com.totex.simplegymapp.infrastructure.exception.PreconditionFailedException;
+import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import com.totex.simplegymapp.infrastructure.repository.UserRepository;
+import com.totex.simplegymapp.infrastructure.repository.WorkoutRepository;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vários clientes fazendo GET + PUT com If-Match no mesmo workout ao mesmo tempo: cada escrita usa a
+ * versão lida, perde com 412 quando outra chegou antes e tenta de novo. Nenhum incremento se perde e
+ * nenhum lock é mantido entre a leitura e a escrita.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SecondLevelCacheInvalidator.class, WorkoutService.class, WorkoutConverter.class, ExerciseConverter.class, WorkoutCaches.class, NoOpCacheManager.class})
+class OptimisticConcurrencyTest {
+
+    // Invalidador real: as escritas condicionais dependem dele para tirar as linhas do cache local
+    @MockitoBean
+    private StringRedisTemplate stringRedisTemplate;
+
+    @MockitoBean
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private static final int THREADS = 16;
+    private static final int INCREMENTS_PER_THREAD = 25;
+
+    @Autowired
+    private WorkoutService workoutService;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserModel user;
+    private Long workoutId;
+    private AuthenticatedUser principal;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(UserModel.builder()
+                .username("coach").email("coach@example.com").password("hashedpassword").build());
+        WorkoutModel workout = new WorkoutModel();
+        workout.setWorkoutName("0");
+        workout.setStartDate(LocalDate.now());
+        workout.setUser(user);
+        workoutId = workoutRepository.save(workout).getWorkoutId();
+        principal = new AuthenticatedUser(user.getUserId(), user.getEmail(), 0L,
+                new Date(System.currentTimeMillis() + 3600000L));
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Sem transação de teste para desfazer: remove o que foi commitado
+        workoutRepository.deleteAllByIdInBatch(List.of(workoutId));
+        userRepository.deleteAllByIdInBatch(List.of(user.getUserId()));
+    }
+
+    @Test
+    void concurrentConditionalUpdatesShouldNeverLoseAnIncrement() throws Exception {
+        // Given
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<?>> clients = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < THREADS; t++) {
+            clients.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                    incrementWithRetry(conflicts);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> client : clients) {
+                client.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Then - cada escrita aceita incrementou nome e versão exatamente uma vez
+        int expected = THREADS * INCREMENTS_PER_THREAD;
+        WorkoutDto result = workoutService.getWorkoutById(workoutId, principal, false);
+        System.out.printf("Optimistic concurrency: %d threads, %d writes accepted, %d rejected with 412%n",
+                THREADS, expected, conflicts.get());
+        assertThat(result.getWorkoutName()).isEqualTo(String.valueOf(expected));
+        assertThat(result.getVersion()).isEqualTo((long) expected);
+        assertThat(conflicts.get()).isPositive();
+    }
+
+    // Leitura (ETag) + PUT com If-Match; 412 = outro cliente escreveu antes, relê e tenta de novo
+    private void incrementWithRetry(AtomicInteger conflicts) {
+        while (true) {
+            WorkoutDto current = workoutService.getWorkoutById(workoutId, principal, false);
+            WorkoutDto patch = new WorkoutDto();
+            patch.setWorkoutName(String.valueOf(Integer.parseInt(current.getWorkoutName()) + 1));
+            try {
+                workoutService.updateWorkout(workoutId, patch, current.getVersion(), principal);
+                return;
+            } catch (PreconditionFailedException e) {
+                conflicts.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.totex.simplegymapp.business.service;
+
+import com.totex.simplegymapp.business.converter.ExerciseConverter;
+import com.totex.simplegymapp.business.converter.WorkoutConverter;
+import com.totex.simplegymapp.business.dto.CursorPage;
+import com.totex.simplegymapp.business.dto.ExerciseBatchDto;
+import com.totex.simplegymapp.business.dto.ExerciseDto;
+import com.totex.simplegymapp.business.dto.WorkoutDto;
+import com.totex.simplegymapp.infrastructure.cache.SecondLevelCacheInvalidator;
+import com.totex.simplegymapp.infrastructure.exception.PreconditionFailedException;
+import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
+import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
+import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Fixa o número de statements SQL de cada operação com checagem de posse, com o cache de segundo nível
+ * frio (tudo roda na transação do teste). Leituras repetidas com o cache quente: SecondLevelCacheTest.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({WorkoutService.class, ExerciseService.class, WorkoutConverter.class, ExerciseConverter.class, WorkoutCaches.class, NoOpCacheManager.class})
+class OwnershipQueryCountTest {
+
+    @MockitoBean
+    private SecondLevelCacheInvalidator secondLevelCacheInvalidator;
+
+    @Autowired
+    private WorkoutService workoutService;
+
+    @Autowired
+    private ExerciseService exerciseService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private AuthenticatedUser owner;
+    private AuthenticatedUser stranger;
+    private Long workoutId;
+    private Long exerciseId;
+
+    @BeforeEach
+    void setUp() {
+        UserModel user = entityManager.persist(UserModel.builder()
+                .username("owner").email("owner@example.com").password("hashedpassword").build());
+        UserModel other = entityManager.persist(UserModel.builder()
+                .username("other").email("other@example.com").password("hashedpassword").build());
+
+        WorkoutModel workout = new WorkoutModel();
+        workout.setWorkoutName("Treino A");
+        workout.setStartDate(LocalDate.now());
+        workout.setUser(user);
+        workoutId = entityManager.persist(workout).getWorkoutId();
+
+        ExerciseModel exercise = new ExerciseModel();
+        exercise.setExerciseName("Supino");
+        exercise.setSeries(4);
+        exercise.setRepetitions(10);
+        exercise.setWorkout(workout);
+        exerciseId = entityManager.persist(exercise).getExerciseId();
+
+        entityManager.flush();
+        entityManager.clear();
+
+        Date expiration = new Date(System.currentTimeMillis() + 3600000L);
+        owner = new AuthenticatedUser(user.getUserId(), user.getEmail(), 0L, expiration);
+        stranger = new AuthenticatedUser(other.getUserId(), other.getEmail(), 0L, expiration);
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getWorkoutByIdShouldRunOneQuery() {
+        // When
+        WorkoutDto result = workoutService.getWorkoutById(workoutId, owner, false);
+
+        // Then
+        assertThat(result.getUserId()).isEqualTo(owner.userId());
+        assertThat(statements()).isEqualTo(1);
+    }
+
+    @Test
+    void getUserWorkoutsShouldRunOneQueryRegardlessOfWorkoutCount() {
+        // Given
+        UserModel user = entityManager.find(UserModel.class, owner.userId());
+        for (int i = 0; i < 200; i++) {
+            WorkoutModel workout = new WorkoutModel();
+            workout.setWorkoutName("Treino " + i);
+            workout.setStartDate(LocalDate.now().minusDays(i + 1));
+            workout.setUser(user);
+            entityManager.persist(workout);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        // When
+        CursorPage<WorkoutDto> firstPage = workoutService.getUserWorkouts(owner,
+                PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "startDate")), false);
+        CursorPage<WorkoutDto> all = workoutService.getUserWorkouts(owner,
+                PageRequest.of(0, 500, Sort.by(Sort.Direction.DESC, "startDate")), false);
+
+        // Then
+        assertThat(firstPage.getContent()).hasSize(50);
+        assertThat(firstPage.isHasNext()).isTrue();
+        assertThat(firstPage.getContent().get(0).getWorkoutName()).isEqualTo("Treino A");
+        assertThat(all.getContent()).hasSize(201);
+        assertThat(statements()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void expandedWorkoutPageShouldLoadExercisesWithOneBatchQuery() {
+        // Given
+        UserModel user = entityManager.find(UserModel.class, owner.userId());
+        for (int i = 0; i < 30; i++) {
+            WorkoutModel workout = new WorkoutModel();
+            workout.setWorkoutName("Treino " + i);
+            workout.setStartDate(LocalDate.now().minusDays(i + 1));
+            workout.setUser(user);
+            entityManager.persist(workout);
+            for (int j = 0; j < 3; j++) {
+                ExerciseModel exercise = new ExerciseModel();
+                exercise.setExerciseName("Exercicio " + j);
+                exercise.setSeries(3);
+                exercise.setRepetitions(10);
+                exercise.setWorkout(workout);
+                entityManager.persist(exercise);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        // When
+        CursorPage<WorkoutDto> page = workoutService.getUserWorkouts(owner,
+                PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "startDate")), true);
+
+        // Then - página de workouts + um SELECT ... IN para os exercícios
+        assertThat(page.getContent()).hasSize(31);
+        assertThat(page.getContent()).allSatisfy(workout -> assertThat(workout.getExercises()).isNotNull());
+        assertThat(page.getContent().get(1).getExercises()).hasSize(3);
+        assertThat(statements()).isEqualTo(2);
+    }
+
+    @Test
+    void expandedWorkoutByIdShouldRunTwoQueries() {
+        // When
+        WorkoutDto result = workoutService.getWorkoutById(workoutId, owner, true);
+
+        // Then
+        assertThat(result.getExercises()).extracting(ExerciseDto::getExerciseId).containsExactly(exerciseId);
+        assertThat(statements()).isEqualTo(2);
+    }
+
+    @Test
+    void getAllWorkoutsShouldNotLoadOwnersOneByOne() {
+        // When
+        workoutService.getAllWorkouts(PageRequest.of(0, 20), false);
+
+        // Then - página + count
+        assertThat(statements()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void cursorPagesShouldRunOneQueryWithoutCount() {
+        // Given
+        UserModel user = entityManager.find(UserModel.class, owner.userId());
+        for (int i = 0; i < 45; i++) {
+            WorkoutModel workout = new WorkoutModel();
+            workout.setWorkoutName("Treino " + i);
+            workout.setUser(user);
+            entityManager.persist(workout);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        // When - percorre todas as páginas seguindo o cursor
+        List<Long> seen = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            CursorPage<WorkoutDto> page = workoutService.getAllWorkouts(cursor, 20, false, false);
+            page.getContent().forEach(workout -> seen.add(workout.getWorkoutId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // Then
+        assertThat(seen).hasSize(46).doesNotHaveDuplicates().isSorted();
+        assertThat(statements()).isEqualTo(pages);
+    }
+
+    @Test
+    void updateWorkoutShouldRunOneUpdateWithoutLoadingTheEntity() {
+        // Given
+        WorkoutDto update = new WorkoutDto();
+        update.setWorkoutName("Treino B");
+
+        // When
+        WorkoutDto result = workoutService.updateWorkout(workoutId, update, 0L, owner);
+
+        // Then - UPDATE condicional + leitura da projeção para a resposta; a data não informada é mantida
+        assertThat(result.getWorkoutName()).isEqualTo("Treino B");
+        assertThat(result.getStartDate()).isEqualTo(LocalDate.now());
+        assertThat(result.getUsername()).isEqualTo("owner@example.com");
+        assertThat(result.getVersion()).isEqualTo(1L);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statements()).isEqualTo(2);
+    }
+
+    @Test
+    void updateForeignWorkoutShouldChangeNothing() {
+        // Given
+        WorkoutDto update = new WorkoutDto();
+        update.setWorkoutName("Invadido");
+
+        // When & Then - o UPDATE não afeta nenhuma linha; o exists só roda no caminho de falha (404 x 412)
+        assertThatThrownBy(() -> workoutService.updateWorkout(workoutId, update, 0L, stranger))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(statements()).isEqualTo(2);
+        assertThat(entityManager.find(WorkoutModel.class, workoutId).getWorkoutName()).isEqualTo("Treino A");
+    }
+
+    @Test
+    void createWorkoutWithNestedExercisesShouldBatchTheInserts() {
+        // Given
+        WorkoutDto workout = new WorkoutDto();
+        workout.setWorkoutName("Treino completo");
+        workout.setExercises(newExercises(30));
+
+        // When
+        WorkoutDto created = workoutService.createWorkout(owner, workout);
+        entityManager.flush();
+
+        // Then - INSERT do workout + um lote de exercícios (+ no máximo um nextval por sequência)
+        assertThat(created.getExercises()).hasSize(30)
+                .allSatisfy(exercise -> assertThat(exercise.getWorkoutId()).isEqualTo(created.getWorkoutId()));
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(31);
+        assertThat(statements()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void exerciseBatchShouldCheckOwnershipOnceAndBatchTheInserts() {
+        // When
+        List<ExerciseDto> created = exerciseService.createExercises(
+                new ExerciseBatchDto(workoutId, newExercises(30)), owner);
+        entityManager.flush();
+
+        // Then - um exists de posse + um lote de INSERTs (+ no máximo um nextval)
+        assertThat(created).hasSize(30).extracting(ExerciseDto::getExerciseId).doesNotContainNull();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(30);
+        assertThat(statements()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void getExerciseByIdShouldRunOneQuery() {
+        // When
+        ExerciseDto result = exerciseService.getExerciseById(exerciseId, owner);
+
+        // Then
+        assertThat(result.getWorkoutId()).isEqualTo(workoutId);
+        assertThat(statements()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getExercisesByWorkoutShouldRunOneQuery() {
+        // When
+        List<ExerciseDto> result = exerciseService.getExercisesByWorkout(workoutId, owner);
+
+        // Then
+        assertThat(result).hasSize(1);
+        assertThat(statements()).isEqualTo(1);
+    }
+
+    @Test
+    void updateExerciseShouldRunOneUpdateWithoutLoadingTheEntity() {
+        // Given - nome em branco e séries zeradas mantêm os valores atuais
+        ExerciseDto update = new ExerciseDto();
+        update.setExerciseName(" ");
+        update.setRepetitions(12);
+
+        // When
+        ExerciseDto result = exerciseService.updateExercise(exerciseId, update, 0L, owner);
+
+        // Then
+        assertThat(result.getExerciseName()).isEqualTo("Supino");
+        assertThat(result.getSeries()).isEqualTo(4);
+        assertThat(result.getRepetitions()).isEqualTo(12);
+        assertThat(result.getVersion()).isEqualTo(1L);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statements()).isEqualTo(2);
+    }
+
+    @Test
+    void updateForeignExerciseShouldChangeNothing() {
+        // Given
+        ExerciseDto update = new ExerciseDto();
+        update.setSeries(9);
+
+        // When & Then
+        assertThatThrownBy(() -> exerciseService.updateExercise(exerciseId, update, 0L, stranger))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(statements()).isEqualTo(2);
+        assertThat(entityManager.find(ExerciseModel.class, exerciseId).getSeries()).isEqualTo(4);
+    }
+
+    @Test
+    void deleteExerciseShouldRunOneConditionalDelete() {
+        // When
+        exerciseService.deleteExercise(exerciseId, 0L, owner);
+
+        // Then - id do workout (chave dos caches da listagem, leitura cacheável) + DELETE condicional
+        assertThat(statements()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(count("select count(e) from ExerciseModel e where e.exerciseId = " + exerciseId)).isZero();
+    }
+
+    @Test
+    void staleVersionShouldBeRejectedWithoutChangingTheRow() {
+        // Given
+        WorkoutDto update = new WorkoutDto();
+        update.setWorkoutName("Treino B");
+        workoutService.updateWorkout(workoutId, update, 0L, owner);
+        statistics.clear();
+
+        // When & Then - versão 0 já foi consumida pela escrita anterior
+        WorkoutDto stale = new WorkoutDto();
+        stale.setWorkoutName("Treino C");
+        assertThatThrownBy(() -> workoutService.updateWorkout(workoutId, stale, 0L, owner))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> workoutService.deleteWorkout(workoutId, 0L, owner))
+                .isInstanceOf(PreconditionFailedException.class);
+        WorkoutModel current = entityManager.find(WorkoutModel.class, workoutId);
+        assertThat(current.getWorkoutName()).isEqualTo("Treino B");
+        assertThat(current.getVersion()).isEqualTo(1L);
+        assertThat(count("select count(e) from ExerciseModel e where e.workout.workoutId = " + workoutId)).isEqualTo(1);
+    }
+
+    @Test
+    void foreignExerciseShouldBeRejectedWithOneQuery() {
+        // When & Then
+        assertThatThrownBy(() -> exerciseService.getExerciseById(exerciseId, stranger))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(statements()).isEqualTo(1);
+    }
+
+    @Test
+    void foreignWorkoutShouldBeRejectedWithOneQuery() {
+        // When & Then
+        assertThatThrownBy(() -> workoutService.getWorkoutById(workoutId, stranger, false))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(statements()).isEqualTo(1);
+    }
+
+    private List<ExerciseDto> newExercises(int count) {
+        List<ExerciseDto> exercises = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ExerciseDto exercise = new ExerciseDto();
+            exercise.setExerciseName("Exercicio " + i);
+            exercise.setSeries(3);
+            exercise.setRepetitions(12);
+            exercises.add(exercise);
+        }
+        return exercises;
+    }
+
+    private long statements() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long count(String jpql) {
+        return entityManager.getEntityManager().createQuery(jpql, Long.class).getSingleResult();
+    }
+}
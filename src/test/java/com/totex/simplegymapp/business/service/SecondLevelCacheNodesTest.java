@@ -0,0 +1,297 @@
+package com.totex.simplegymapp.business.service;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.totex.simplegymapp.business.converter.ExerciseConverter;
+import com.totex.simplegymapp.business.converter.WorkoutConverter;
+import com.totex.simplegymapp.business.dto.WorkoutDto;
+import com.totex.simplegymapp.infrastructure.cache.SecondLevelCacheInvalidator;
+import com.totex.simplegymapp.infrastructure.exception.PreconditionFailedException;
+import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import com.totex.simplegymapp.infrastructure.repository.ExerciseRepository;
+import com.totex.simplegymapp.infrastructure.repository.UserRepository;
+import com.totex.simplegymapp.infrastructure.repository.WorkoutRepository;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.support.PersistenceExceptionTranslationInterceptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.sql.DataSource;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Dois nós sobre o mesmo banco, cada um com o seu cache de segundo nível: o nó A é o contexto do teste
+ * e o nó B tem o próprio EntityManagerFactory. Os avisos de invalidação passam por um pub/sub em
+ * memória, que o teste desliga para simular um aviso perdido.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({WorkoutService.class, WorkoutConverter.class, ExerciseConverter.class, WorkoutCaches.class,
+        NoOpCacheManager.class, SecondLevelCacheInvalidator.class, SecondLevelCacheNodesTest.PubSubConfig.class})
+class SecondLevelCacheNodesTest {
+
+    @Autowired
+    private WorkoutService workoutService;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WorkoutConverter workoutConverter;
+
+    @Autowired
+    private ExerciseConverter exerciseConverter;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JpaProperties jpaProperties;
+
+    @Autowired
+    private HibernateProperties hibernateProperties;
+
+    @Autowired
+    private PubSub pubSub;
+
+    // O Caffeine guarda o class loader do CacheManager por referência fraca; sem esta, ao ser coletado,
+    // o close() do nó B fecharia o CacheManager padrão, que é o do nó A
+    private ClassLoader nodeBClassLoader;
+    private CacheManager nodeBCacheManager;
+    private LocalContainerEntityManagerFactoryBean nodeBFactory;
+    private SecondLevelCacheInvalidator nodeBInvalidator;
+    private WorkoutService nodeB;
+    private TransactionTemplate nodeBTransaction;
+    private UserModel user;
+    private Long workoutId;
+    private AuthenticatedUser principal;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        user = userRepository.save(UserModel.builder()
+                .username("nodes").email("nodes@example.com").password("hashedpassword").build());
+        WorkoutModel workout = new WorkoutModel();
+        workout.setWorkoutName("Treino A");
+        workout.setStartDate(LocalDate.now());
+        workout.setUser(user);
+        workoutId = workoutRepository.save(workout).getWorkoutId();
+        principal = new AuthenticatedUser(user.getUserId(), user.getEmail(), 0L,
+                new Date(System.currentTimeMillis() + 3600000L));
+        pubSub.delivering = true;
+        startNodeB();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (nodeBFactory != null) {
+            nodeBFactory.destroy();
+            nodeBCacheManager.close();
+            pubSub.listeners.remove(nodeBInvalidator);
+        }
+        workoutRepository.deleteAllByIdInBatch(workoutRepository.findIdsByUserUserId(
+                user.getUserId(), PageRequest.ofSize(1000)));
+        userRepository.deleteAllByIdInBatch(List.of(user.getUserId()));
+    }
+
+    @Test
+    void nodesUpdatingTheSameWorkoutInTurnShouldSeeEachOthersVersion() {
+        // Given - os dois nós com a versão 0 em cache
+        assertThat(workoutService.getWorkoutById(workoutId, principal, false).getVersion()).isZero();
+        assertThat(onNodeB(() -> nodeB.getWorkoutById(workoutId, principal, false)).getVersion()).isZero();
+
+        // When - A escreve, depois B escreve com o ETag que leu, depois A de novo
+        workoutService.updateWorkout(workoutId, rename("Treino B"), 0L, principal);
+        WorkoutDto readOnB = onNodeB(() -> nodeB.getWorkoutById(workoutId, principal, false));
+        WorkoutDto updatedOnB = onNodeB(() -> nodeB.updateWorkout(workoutId, rename("Treino C"),
+                readOnB.getVersion(), principal));
+        WorkoutDto readOnA = workoutService.getWorkoutById(workoutId, principal, false);
+        WorkoutDto updatedOnA = workoutService.updateWorkout(workoutId, rename("Treino D"), readOnA.getVersion(),
+                principal);
+
+        // Then
+        assertThat(readOnB.getVersion()).isEqualTo(1L);
+        assertThat(readOnB.getWorkoutName()).isEqualTo("Treino B");
+        assertThat(updatedOnB.getVersion()).isEqualTo(2L);
+        assertThat(readOnA.getWorkoutName()).isEqualTo("Treino C");
+        assertThat(updatedOnA.getVersion()).isEqualTo(3L);
+        assertThat(onNodeB(() -> nodeB.getWorkoutById(workoutId, principal, false)).getWorkoutName())
+                .isEqualTo("Treino D");
+    }
+
+    @Test
+    void lostInvalidationShouldCostOne412AndNotPinTheStaleVersion() {
+        // Given - B ainda tem a versão 0 em cache e não recebe o aviso da escrita de A
+        onNodeB(() -> nodeB.getWorkoutById(workoutId, principal, false));
+        pubSub.delivering = false;
+        workoutService.updateWorkout(workoutId, rename("Treino B"), 0L, principal);
+        WorkoutDto staleOnB = onNodeB(() -> nodeB.getWorkoutById(workoutId, principal, false));
+        assertThat(staleOnB.getVersion()).isZero();
+
+        // When - o cliente usa o ETag antigo servido por B
+        assertThatThrownBy(() -> onNodeB(() -> nodeB.updateWorkout(workoutId, rename("Treino C"), 0L, principal)))
+                .isInstanceOf(PreconditionFailedException.class);
+        WorkoutDto rereadOnB = onNodeB(() -> nodeB.getWorkoutById(workoutId, principal, false));
+        WorkoutDto updatedOnB = onNodeB(() -> nodeB.updateWorkout(workoutId, rename("Treino C"),
+                rereadOnB.getVersion(), principal));
+
+        // Then - o 412 descarta a entrada; a releitura traz a versão do banco e a escrita passa
+        assertThat(rereadOnB.getVersion()).isEqualTo(1L);
+        assertThat(updatedOnB.getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void ifMatchAnyShouldWriteOverAStaleCachedVersion() {
+        // Given
+        onNodeB(() -> nodeB.getWorkoutById(workoutId, principal, false));
+        pubSub.delivering = false;
+        workoutService.updateWorkout(workoutId, rename("Treino B"), 0L, principal);
+        pubSub.delivering = true;
+
+        // When - If-Match: * em B, que ainda tem a versão 0 em cache
+        WorkoutDto updatedOnB = onNodeB(() -> nodeB.updateWorkout(workoutId, rename("Treino C"), null, principal));
+
+        // Then
+        assertThat(updatedOnB.getVersion()).isEqualTo(2L);
+        assertThat(workoutRepository.findById(workoutId)).get()
+                .extracting(WorkoutModel::getWorkoutName).isEqualTo("Treino C");
+    }
+
+    // Nó B: outro EntityManagerFactory no mesmo banco, com regiões em um CacheManager próprio
+    private void startNodeB() throws Exception {
+        URL cacheConfig = getClass().getClassLoader().getResource("hibernate-cache.conf");
+        nodeBClassLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        nodeBCacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(cacheConfig.toURI(), nodeBClassLoader);
+
+        Map<String, Object> properties = new HashMap<>(hibernateProperties.determineHibernateProperties(
+                jpaProperties.getProperties(), new HibernateSettings()));
+        properties.put(AvailableSettings.HBM2DDL_AUTO, "none");
+        properties.put(ConfigSettings.CACHE_MANAGER, nodeBCacheManager);
+        nodeBFactory = new LocalContainerEntityManagerFactoryBean();
+        nodeBFactory.setPersistenceUnitName("node-b");
+        nodeBFactory.setDataSource(dataSource);
+        nodeBFactory.setPackagesToScan(WorkoutModel.class.getPackageName());
+        nodeBFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        nodeBFactory.setJpaPropertyMap(properties);
+        nodeBFactory.afterPropertiesSet();
+
+        EntityManagerFactory entityManagerFactory = nodeBFactory.getObject();
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        nodeBInvalidator = new SecondLevelCacheInvalidator(entityManagerFactory, pubSub.template,
+                pubSub.listenerContainer);
+        JpaRepositoryFactory repositories = new JpaRepositoryFactory(entityManager);
+        repositories.addRepositoryProxyPostProcessor((factory, information) ->
+                factory.addAdvice(new PersistenceExceptionTranslationInterceptor(nodeBFactory)));
+        nodeB = new WorkoutService(repositories.getRepository(WorkoutRepository.class),
+                repositories.getRepository(UserRepository.class), workoutConverter,
+                repositories.getRepository(ExerciseRepository.class), exerciseConverter,
+                new WorkoutCaches(new NoOpCacheManager()), nodeBInvalidator);
+        nodeBTransaction = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+    }
+
+    // Sem proxy do Spring no nó B: a transação da requisição vem do template
+    private <T> T onNodeB(Supplier<T> call) {
+        return nodeBTransaction.execute(status -> call.get());
+    }
+
+    private static WorkoutDto rename(String workoutName) {
+        WorkoutDto update = new WorkoutDto();
+        update.setWorkoutName(workoutName);
+        return update;
+    }
+
+    /**
+     * Pub/sub em memória compartilhado pelos dois nós; a entrega é síncrona.
+     */
+    static class PubSub {
+
+        final List<MessageListener> listeners = new CopyOnWriteArrayList<>();
+        final StringRedisTemplate template = mock(StringRedisTemplate.class);
+        final RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+        volatile boolean delivering = true;
+
+        PubSub() {
+            doAnswer(inv -> listeners.add(inv.getArgument(0)))
+                    .when(listenerContainer).addMessageListener(any(MessageListener.class), any(Topic.class));
+            doAnswer(inv -> {
+                if (delivering) {
+                    DefaultMessage message = new DefaultMessage(
+                            inv.<String>getArgument(0).getBytes(StandardCharsets.UTF_8),
+                            inv.<String>getArgument(1).getBytes(StandardCharsets.UTF_8));
+                    listeners.forEach(listener -> listener.onMessage(message, null));
+                }
+                return (long) listeners.size();
+            }).when(template).convertAndSend(anyString(), any());
+        }
+    }
+
+    @TestConfiguration
+    static class PubSubConfig {
+
+        @Bean
+        PubSub pubSub() {
+            return new PubSub();
+        }
+
+        @Bean
+        StringRedisTemplate stringRedisTemplate(PubSub pubSub) {
+            return pubSub.template;
+        }
+
+        @Bean
+        RedisMessageListenerContainer listenerContainer(PubSub pubSub) {
+            return pubSub.listenerContainer;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.totex.simplegymapp.business.service;
+
+import com.totex.simplegymapp.business.converter.ExerciseConverter;
+import com.totex.simplegymapp.business.converter.WorkoutConverter;
+import com.totex.simplegymapp.business.dto.CursorPage;
+import com.totex.simplegymapp.business.dto.ExerciseDto;
+import com.totex.simplegymapp.business.dto.WorkoutDto;
+import com.totex.simplegymapp.infrastructure.cache.SecondLevelCacheInvalidator;
+import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
+import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import com.totex.simplegymapp.infrastructure.repository.AccountPurgeRepository;
+import com.totex.simplegymapp.infrastructure.repository.ExerciseRepository;
+import com.totex.simplegymapp.infrastructure.repository.UserRepository;
+import com.totex.simplegymapp.infrastructure.repository.WorkoutRepository;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.HibernateMetrics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache de segundo nível com o cache quente: cada chamada roda na sua própria transação, como numa
+ * requisição, então o que uma leitura coloca no cache a próxima já encontra.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SecondLevelCacheInvalidator.class, WorkoutService.class, ExerciseService.class, AccountPurgeService.class, WorkoutConverter.class, ExerciseConverter.class, WorkoutCaches.class, NoOpCacheManager.class})
+class SecondLevelCacheTest {
+
+    // Invalidador real: as escritas condicionais dependem dele para tirar as linhas do cache local
+    @MockitoBean
+    private StringRedisTemplate stringRedisTemplate;
+
+    @MockitoBean
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private WorkoutService workoutService;
+
+    @Autowired
+    private ExerciseService exerciseService;
+
+    @Autowired
+    private AccountPurgeService accountPurgeService;
+
+    @Autowired
+    private AccountPurgeRepository accountPurgeRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Statistics statistics;
+    private UserModel user;
+    private Long workoutId;
+    private final List<Long> exerciseIds = new ArrayList<>();
+    private AuthenticatedUser principal;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(UserModel.builder()
+                .username("cached").email("cached@example.com").password("hashedpassword").build());
+        WorkoutModel workout = new WorkoutModel();
+        workout.setWorkoutName("Treino A");
+        workout.setStartDate(LocalDate.now());
+        workout.setUser(user);
+        workoutId = workoutRepository.save(workout).getWorkoutId();
+        for (int i = 0; i < 3; i++) {
+            ExerciseModel exercise = new ExerciseModel();
+            exercise.setExerciseName("Exercicio " + i);
+            exercise.setSeries(4);
+            exercise.setRepetitions(10);
+            exercise.setWorkout(workout);
+            exerciseIds.add(exerciseRepository.save(exercise).getExerciseId());
+        }
+        principal = new AuthenticatedUser(user.getUserId(), user.getEmail(), 0L,
+                new Date(System.currentTimeMillis() + 3600000L));
+
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Sem transação de teste para desfazer: remove o que foi commitado
+        exerciseRepository.deleteAllByIdInBatch(exerciseRepository.findIdsByWorkoutUserUserId(
+                user.getUserId(), PageRequest.ofSize(1000)));
+        workoutRepository.deleteAllByIdInBatch(workoutRepository.findIdsByUserUserId(
+                user.getUserId(), PageRequest.ofSize(1000)));
+        userRepository.deleteAllByIdInBatch(List.of(user.getUserId()));
+        accountPurgeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void repeatWorkoutReadsShouldNotTouchTheDatabase() {
+        // Given - primeira leitura: workout e coleção vão ao banco e entram no cache
+        workoutService.getWorkoutById(workoutId, principal, true);
+        statistics.clear();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            WorkoutDto workout = workoutService.getWorkoutById(workoutId, principal, true);
+            assertThat(workout.getUsername()).isEqualTo("cached@example.com");
+            assertThat(workout.getExercises()).extracting(ExerciseDto::getExerciseId).isEqualTo(exerciseIds);
+        }
+
+        // Then - a consulta de posse vem do cache de queries; coleção e exercícios, das regiões
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(5);
+        assertThat(statistics.getDomainDataRegionStatistics("workout-exercises").getHitCount()).isEqualTo(5);
+        assertThat(statistics.getDomainDataRegionStatistics("exercise").getHitCount()).isEqualTo(15);
+    }
+
+    @Test
+    void repeatExerciseReadsShouldNotTouchTheDatabase() {
+        // Given
+        exerciseService.getExerciseById(exerciseIds.get(0), principal);
+        exerciseService.getExercisesByWorkout(workoutId, principal);
+        statistics.clear();
+
+        // When
+        ExerciseDto exercise = exerciseService.getExerciseById(exerciseIds.get(0), principal);
+        List<ExerciseDto> exercises = exerciseService.getExercisesByWorkout(workoutId, principal);
+
+        // Then
+        assertThat(exercise.getWorkoutId()).isEqualTo(workoutId);
+        assertThat(exercises).hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheMissCount()).isZero();
+    }
+
+    @Test
+    void ownerWorkoutListShouldComeFromTheQueryCacheUntilAWrite() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "startDate"));
+        workoutService.getUserWorkouts(principal, pageable, false);
+        statistics.clear();
+
+        // When
+        workoutService.getUserWorkouts(principal, pageable, false);
+
+        // Then
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        // When - qualquer escrita na tabela invalida o resultado
+        WorkoutDto update = new WorkoutDto();
+        update.setWorkoutName("Treino B");
+        workoutService.updateWorkout(workoutId, update, 0L, principal);
+        statistics.clear();
+        CursorPage<WorkoutDto> afterWrite = workoutService.getUserWorkouts(principal, pageable, false);
+
+        // Then
+        assertThat(afterWrite.getContent()).extracting(WorkoutDto::getWorkoutName).containsExactly("Treino B");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void updateShouldEvictOnlyTheWrittenRows() {
+        // Given
+        workoutService.getWorkoutById(workoutId, principal, true);
+        exerciseService.getExerciseById(exerciseIds.get(0), principal);
+        statistics.clear();
+
+        // When
+        WorkoutDto update = new WorkoutDto();
+        update.setWorkoutName("Treino B");
+        WorkoutDto updated = workoutService.updateWorkout(workoutId, update, 0L, principal);
+        ExerciseDto exerciseUpdate = new ExerciseDto();
+        exerciseUpdate.setSeries(5);
+        exerciseService.updateExercise(exerciseIds.get(0), exerciseUpdate, 0L, principal);
+
+        // Then - UPDATE condicional + leitura da resposta por escrita, sem esvaziar as regiões
+        assertThat(updated.getVersion()).isEqualTo(1L);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        statistics.clear();
+        WorkoutDto reread = workoutService.getWorkoutById(workoutId, principal, true);
+        assertThat(reread.getWorkoutName()).isEqualTo("Treino B");
+        assertThat(reread.getVersion()).isEqualTo(1L);
+        assertThat(reread.getExercises().get(0).getSeries()).isEqualTo(5);
+        // Só o workout (pela consulta de posse) e o exercício alterados voltam ao banco;
+        // a coleção e os outros exercícios continuam no cache
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getDomainDataRegionStatistics("workout-exercises").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("exercise").getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void staleCachedVersionShouldBeCheckedAgainstTheDatabase() throws SQLException {
+        // Given - outro nó alterou a linha; o cache deste nó ainda tem a versão 0
+        workoutService.getWorkoutById(workoutId, principal, false);
+        writeFromAnotherNode("Outro nó");
+        assertThat(workoutService.getWorkoutById(workoutId, principal, false).getVersion()).isZero();
+
+        // When - o cliente manda a versão atual do banco
+        WorkoutDto update = new WorkoutDto();
+        update.setWorkoutName("Treino B");
+        WorkoutDto updated = workoutService.updateWorkout(workoutId, update, 1L, principal);
+
+        // Then
+        assertThat(updated.getVersion()).isEqualTo(2L);
+        assertThat(workoutService.getWorkoutById(workoutId, principal, false).getWorkoutName()).isEqualTo("Treino B");
+    }
+
+    @Test
+    void workoutDeleteShouldEvictOnlyItsOwnExercises() {
+        // Given - dois workouts do mesmo usuário com exercícios no cache
+        WorkoutModel other = new WorkoutModel();
+        other.setWorkoutName("Treino B");
+        other.setStartDate(LocalDate.now());
+        other.setUser(user);
+        Long otherId = workoutRepository.save(other).getWorkoutId();
+        ExerciseModel exercise = new ExerciseModel();
+        exercise.setExerciseName("Exercicio B");
+        exercise.setWorkout(other);
+        Long otherExerciseId = exerciseRepository.save(exercise).getExerciseId();
+        workoutService.getWorkoutById(workoutId, principal, true);
+        workoutService.getWorkoutById(otherId, principal, true);
+
+        // When
+        workoutService.deleteWorkout(otherId, 0L, principal);
+
+        // Then - o exercício apagado sai do cache; os do outro workout continuam
+        assertThat(exerciseRepository.findById(otherExerciseId)).isEmpty();
+        statistics.clear();
+        assertThat(workoutService.getWorkoutById(workoutId, principal, true).getExercises()).hasSize(3);
+        assertThat(statistics.getDomainDataRegionStatistics("workout-exercises").getMissCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics("exercise").getMissCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics("exercise").getHitCount()).isEqualTo(3);
+    }
+
+    @Test
+    void accountPurgeShouldEvictOnlyThePurgedRows() {
+        // Given - cache quente com o workout de outro usuário e uma conta com histórico a expurgar
+        UserModel leaving = userRepository.save(UserModel.builder()
+                .username("leaving").email("leaving@example.com").password("hashedpassword").build());
+        List<Long> purgedWorkoutIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            WorkoutModel workout = new WorkoutModel();
+            workout.setWorkoutName("Treino " + i);
+            workout.setStartDate(LocalDate.now());
+            workout.setUser(leaving);
+            purgedWorkoutIds.add(workoutRepository.save(workout).getWorkoutId());
+            ExerciseModel exercise = new ExerciseModel();
+            exercise.setExerciseName("Exercicio " + i);
+            exercise.setWorkout(workout);
+            exerciseRepository.save(exercise);
+        }
+        workoutService.getWorkoutById(workoutId, principal, true);
+        accountPurgeService.requestPurge(leaving);
+
+        // When
+        while (accountPurgeService.purgeNextChunk(2).isPresent()) {
+        }
+
+        // Then - as linhas expurgadas não são mais encontradas; o workout do outro usuário segue no cache e
+        // só a consulta de posse, invalidada pela escrita na tabela, volta ao banco
+        assertThat(purgedWorkoutIds).allMatch(id -> workoutRepository.findById(id).isEmpty());
+        statistics.clear();
+        assertThat(workoutService.getWorkoutById(workoutId, principal, true).getExercises()).hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("workout-exercises").getMissCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics("exercise").getMissCount()).isZero();
+    }
+
+    @Test
+    void regionStatisticsShouldBePublishedAsMetrics() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HibernateMetrics.monitor(registry, entityManagerFactory.unwrap(SessionFactory.class), "entityManagerFactory");
+
+        // When
+        workoutService.getWorkoutById(workoutId, principal, true);
+        workoutService.getWorkoutById(workoutId, principal, true);
+
+        // Then
+        assertThat(registry.get("hibernate.second.level.cache.requests")
+                .tags("region", "workout-exercises", "result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("hibernate.second.level.cache.requests")
+                .tags("region", "workout-exercises", "result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("hibernate.second.level.cache.puts")
+                .tags("region", "workout-exercises").functionCounter().count()).isEqualTo(1);
+    }
+
+    // UPDATE direto no banco, por fora do Hibernate deste nó
+    private void writeFromAnotherNode(String workoutName) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement update = connection.prepareStatement(
+                     "update workout set workout_name = ?, version = version + 1 where workout_id = ?")) {
+            update.setString(1, workoutName);
+            update.setLong(2, workoutId);
+            update.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.totex.simplegymapp.business.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.totex.simplegymapp.base.InMemoryStringRedis;
+import com.totex.simplegymapp.business.converter.ExerciseConverter;
+import com.totex.simplegymapp.business.converter.UserConverter;
+import com.totex.simplegymapp.business.converter.WorkoutConverter;
+import com.totex.simplegymapp.business.dto.UserResponseDto;
+import com.totex.simplegymapp.infrastructure.cache.SingleFlight;
+import com.totex.simplegymapp.infrastructure.cache.TwoTierCacheManager;
+import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
+import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.repository.UserRepository;
+import com.totex.simplegymapp.infrastructure.security.PrincipalCache;
+import com.totex.simplegymapp.infrastructure.security.TokenEpochService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Estouro de cache no "users": muitas requisições simultâneas para o mesmo e-mail com o cache vazio
+ * (entrada expirada, Redis esvaziado no deploy) fazem uma única consulta ao banco.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UserService.class, UserConverter.class, WorkoutConverter.class, ExerciseConverter.class,
+        WorkoutCaches.class, UserCacheStampedeTest.CacheConfig.class})
+class UserCacheStampedeTest {
+
+    private static final int CONCURRENT_REQUESTS = 32;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockitoBean
+    private PrincipalCache principalCache;
+
+    @MockitoBean
+    private TokenEpochService tokenEpochService;
+
+    @MockitoBean
+    private AccountPurgeService accountPurgeService;
+
+    private ExecutorService executor;
+    private Statistics statistics;
+    private UserModel user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(UserModel.builder()
+                .username("popular").email("popular@example.com").password("hashedpassword").build());
+        executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        userRepository.deleteAllByIdInBatch(List.of(user.getUserId()));
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void concurrentMissesOnOneKeyShouldRunOneQuery() throws Exception {
+        // When
+        List<Future<UserResponseDto>> results = atOnce(() -> userService.findUserByEmail("popular@example.com"));
+
+        // Then
+        for (Future<UserResponseDto> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS).getEmail()).isEqualTo("popular@example.com");
+        }
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void callersCoalescedOnAMissingEmailShouldAllGetNotFound() throws Exception {
+        // When
+        List<Future<UserResponseDto>> results = atOnce(() -> userService.findUserByEmail("nobody@example.com"));
+
+        // Then - a exceção do líder chega sem wrapper a quem esperava, e nada vai para o cache
+        for (Future<UserResponseDto> result : results) {
+            assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                    .hasCauseExactlyInstanceOf(ResourceNotFoundException.class);
+        }
+        assertThat(cacheManager.getCache("users").get("nobody@example.com")).isNull();
+    }
+
+    // Todas as threads chamam ao mesmo tempo, depois de prontas
+    private <T> List<Future<T>> atOnce(Callable<T> call) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> results = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return call.call();
+            }));
+        }
+        start.countDown();
+        return results;
+    }
+
+    @TestConfiguration
+    @EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+    static class CacheConfig {
+
+        // L2 em memória no lugar do Redis; o L1 e a coalescência são os de produção
+        @Bean
+        CacheManager cacheManager() {
+            MeterRegistry meterRegistry = new SimpleMeterRegistry();
+            return new TwoTierCacheManager(new ConcurrentMapCacheManager("users", "workouts", "exercises"),
+                    name -> Caffeine.newBuilder().maximumSize(100),
+                    InMemoryStringRedis.create(), meterRegistry,
+                    new SingleFlight(Duration.ofSeconds(10), meterRegistry));
+        }
+    }
+}
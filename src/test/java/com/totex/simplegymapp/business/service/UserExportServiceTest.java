@@ -0,0 +1,133 @@
+package com.totex.simplegymapp.business.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
+import com.totex.simplegymapp.infrastructure.repository.UserRepository;
+import com.totex.simplegymapp.infrastructure.repository.projection.UserExportRow;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class UserExportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private UserExportService userExportService;
+    private AuthenticatedUser principal;
+
+    @BeforeEach
+    void setUp() {
+        userExportService = new UserExportService(userRepository, objectMapper);
+        principal = new AuthenticatedUser(1L, "test@example.com", 0L, new Date(System.currentTimeMillis() + 3600000L));
+    }
+
+    @Test
+    void shouldWriteUserThenEachWorkoutFollowedByItsExercises() throws IOException {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        LocalDate startDate = LocalDate.of(2024, 1, 15);
+        given(userRepository.streamExportRows(1L)).willReturn(Stream.of(
+                row(10L, "Treino A", startDate, 100L, "Supino"),
+                row(10L, "Treino A", startDate, 101L, "Remada"),
+                row(11L, "Treino B", null, null, null)
+        ).onClose(() -> closed.set(true)));
+
+        // When
+        List<JsonNode> lines = export();
+
+        // Then
+        assertThat(lines).extracting(line -> line.get("type").asText())
+                .containsExactly("user", "workout", "exercise", "exercise", "workout");
+        assertThat(lines.get(0).get("username").asText()).isEqualTo("testuser");
+        assertThat(lines.get(0).get("email").asText()).isEqualTo("test@example.com");
+        assertThat(lines.get(1).get("startDate").asText()).isEqualTo("2024-01-15");
+        assertThat(lines.get(3).get("exerciseName").asText()).isEqualTo("Remada");
+        assertThat(lines.get(3).get("workoutId").asLong()).isEqualTo(10L);
+        assertThat(lines.get(4).get("startDate").isNull()).isTrue();
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void shouldWriteOnlyUserWhenThereAreNoWorkouts() throws IOException {
+        // Given
+        given(userRepository.streamExportRows(1L)).willReturn(Stream.of(row(null, null, null, null, null)));
+
+        // When
+        List<JsonNode> lines = export();
+
+        // Then
+        assertThat(lines).singleElement()
+                .satisfies(line -> assertThat(line.get("type").asText()).isEqualTo("user"));
+    }
+
+    @Test
+    void shouldThrowWhenUserDoesNotExist() {
+        // Given
+        given(userRepository.streamExportRows(1L)).willReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When & Then
+        assertThatThrownBy(() -> userExportService.exportUserData(principal, out))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(out.size()).isZero();
+    }
+
+    @Test
+    void shouldRejectMissingUserBeforeStreaming() {
+        // Given
+        given(userRepository.existsById(1L)).willReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> userExportService.checkExportable(principal))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(userRepository, never()).streamExportRows(1L);
+    }
+
+    private List<JsonNode> export() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userExportService.exportUserData(principal, out);
+
+        String ndjson;
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ndjson = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private UserExportRow row(Long workoutId, String workoutName, LocalDate startDate,
+                              Long exerciseId, String exerciseName) {
+        Integer series = exerciseId != null ? 4 : null;
+        Integer repetitions = exerciseId != null ? 10 : null;
+        return new UserExportRow(1L, "testuser", "test@example.com", workoutId, workoutName, startDate,
+                exerciseId, exerciseName, series, repetitions);
+    }
+}
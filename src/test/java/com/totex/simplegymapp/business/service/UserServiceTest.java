@@ -1,6 +1,7 @@
 package com.totex.simplegymapp.business.service;
 
 import com.totex.simplegymapp.business.converter.UserConverter;
+import com.totex.simplegymapp.business.dto.AccountPurgeDto;
 import com.totex.simplegymapp.business.dto.UserCreateDto;
 import com.totex.simplegymapp.business.dto.UserPasswordUpdateDto;
 import com.totex.simplegymapp.business.dto.UserResponseDto;
@@ -9,16 +10,21 @@ import com.totex.simplegymapp.infrastructure.exception.ConflictException;
 import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
 import com.totex.simplegymapp.infrastructure.model.UserModel;
 import com.totex.simplegymapp.infrastructure.repository.UserRepository;
-import com.totex.simplegymapp.infrastructure.security.JwtUtil;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import com.totex.simplegymapp.infrastructure.security.PrincipalCache;
+import com.totex.simplegymapp.infrastructure.security.TokenEpochService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
+import java.util.Date;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -41,10 +47,16 @@ class UserServiceTest {
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private JwtUtil jwtUtil;
+    private TokenEpochService tokenEpochService;
 
     @Mock
-    private RedisTemplate<String, Object> redisTemplate;
+    private PrincipalCache principalCache;
+
+    @Mock
+    private AccountPurgeService accountPurgeService;
+
+    @Mock
+    private WorkoutCaches workoutCaches;
 
     @InjectMocks
     private UserService userService;
@@ -52,6 +64,7 @@ class UserServiceTest {
     private UserCreateDto userCreateDto;
     private UserModel userModel;
     private UserResponseDto userResponseDto;
+    private AuthenticatedUser principal;
 
     @BeforeEach
     void setUp() {
@@ -71,6 +84,8 @@ class UserServiceTest {
         userResponseDto.setUserId(1L);
         userResponseDto.setUsername("testuser");
         userResponseDto.setEmail("test@example.com");
+
+        principal = new AuthenticatedUser(1L, "test@example.com", 0L, new Date(System.currentTimeMillis() + 3600000L));
     }
 
     @Test
@@ -134,37 +149,35 @@ class UserServiceTest {
     @Test
     void shouldUpdateUserPasswordSuccessfully() {
         // Given
-        String token = "Bearer validtoken";
         UserPasswordUpdateDto dto = new UserPasswordUpdateDto();
         dto.setOldPassword("oldpassword");
         dto.setNewPassword("newpassword");
 
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
         given(userRepository.findByEmail("test@example.com")).willReturn(Optional.of(userModel));
         given(passwordEncoder.matches("oldpassword", userModel.getPassword())).willReturn(true);
 
         // When
-        userService.updateUserPassword(token, dto);
+        userService.updateUserPassword(principal, dto);
 
         // Then
         verify(userConverter).updatePassword(userModel, "newpassword");
         verify(userRepository).save(userModel);
+        verify(principalCache).evict("test@example.com");
+        verify(tokenEpochService).bump(1L);
     }
 
     @Test
     void shouldThrowConflictExceptionWhenCurrentPasswordIsIncorrect() {
         // Given
-        String token = "Bearer validtoken";
         UserPasswordUpdateDto dto = new UserPasswordUpdateDto();
         dto.setOldPassword("wrongpassword");
         dto.setNewPassword("newpassword");
 
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
         given(userRepository.findByEmail("test@example.com")).willReturn(Optional.of(userModel));
         given(passwordEncoder.matches("wrongpassword", userModel.getPassword())).willReturn(false);
 
         // When & Then
-        assertThatThrownBy(() -> userService.updateUserPassword(token, dto))
+        assertThatThrownBy(() -> userService.updateUserPassword(principal, dto))
                 .isInstanceOf(ConflictException.class)
                 .hasMessage("Current password is incorrect.");
 
@@ -172,12 +185,67 @@ class UserServiceTest {
     }
 
     @Test
-    void shouldDeleteUserByEmailSuccessfully() {
+    void shouldScheduleAccountPurgeWhenDeletingUser() {
+        // Given
+        AccountPurgeDto purge = new AccountPurgeDto(7L, "k3Zq9xTn", 1L, AccountPurgeDto.Status.PENDING, Instant.now(), null,
+                20L, 0L, 1000L, 0L);
+        given(userRepository.findByEmail("test@example.com")).willReturn(Optional.of(userModel));
+        given(accountPurgeService.requestPurge(userModel)).willReturn(purge);
+
         // When
-        userService.deleteUserByEmail("test@example.com");
+        Optional<AccountPurgeDto> result = userService.deleteUserByEmail("test@example.com");
+
+        // Then - nada é apagado na requisição; sem transação, tokens e caches são invalidados na hora
+        assertThat(result).contains(purge);
+        verify(userRepository, never()).deleteAllByIdInBatch(any());
+        verify(tokenEpochService).bump(1L);
+        verify(principalCache).evict("test@example.com");
+    }
+
+    @Test
+    void shouldRevokeTokensOnlyAfterTheDeletionCommits() {
+        // Given
+        AccountPurgeDto purge = new AccountPurgeDto(7L, "k3Zq9xTn", 1L, AccountPurgeDto.Status.PENDING, Instant.now(), null,
+                20L, 0L, 1000L, 0L);
+        given(userRepository.findByEmail("test@example.com")).willReturn(Optional.of(userModel));
+        given(accountPurgeService.requestPurge(userModel)).willReturn(purge);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            userService.deleteUserByEmail("test@example.com");
+
+            // Then - nada até o commit; num rollback as sessões continuariam válidas
+            verifyNoInteractions(tokenEpochService, principalCache);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(tokenEpochService).bump(1L);
+            verify(principalCache).evict("test@example.com");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldOnlyEvictCachesWhenDeletingUnknownEmail() {
+        // Given
+        given(userRepository.findByEmail("ghost@example.com")).willReturn(Optional.empty());
+
+        // When
+        Optional<AccountPurgeDto> result = userService.deleteUserByEmail("ghost@example.com");
 
         // Then
-        verify(userRepository).deleteByEmail("test@example.com");
-        verify(redisTemplate).delete("jwt-token:test@example.com");
+        assertThat(result).isEmpty();
+        verifyNoInteractions(accountPurgeService, tokenEpochService);
+        verify(principalCache).evict("ghost@example.com");
+    }
+
+    @Test
+    void shouldNotFindUserMarkedAsDeleted() {
+        // Given
+        userModel.setDeletedAt(Instant.now());
+        given(userRepository.findByEmail("test@example.com")).willReturn(Optional.of(userModel));
+
+        // When & Then
+        assertThatThrownBy(() -> userService.findUserByEmail("test@example.com"))
+                .isInstanceOf(ResourceNotFoundException.class);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package com.totex.simplegymapp.business.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkoutCachesTest {
+
+    // Valor que "outro nó" grava entre o miss da próxima leitura e a criação do token
+    private String racingGeneration;
+    private WorkoutCaches workoutCaches;
+
+    @BeforeEach
+    void setUp() {
+        workoutCaches = new WorkoutCaches(new ConcurrentMapCacheManager() {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                return new ConcurrentMapCache(name) {
+                    @Override
+                    public <T> T get(Object key, Class<T> type) {
+                        if (racingGeneration != null) {
+                            put(key, racingGeneration);
+                            racingGeneration = null;
+                            return null;
+                        }
+                        return super.get(key, type);
+                    }
+                };
+            }
+        });
+    }
+
+    @Test
+    void shouldKeepTheGenerationStoredByTheNodeThatWonTheMiss() {
+        // Given
+        racingGeneration = "node-b";
+
+        // When
+        String first = workoutCaches.exercisesKey(1L, 10L);
+        String second = workoutCaches.exercisesKey(1L, 10L);
+
+        // Then - a geração do outro nó não é sobrescrita, e as duas leituras usam a mesma
+        assertThat(first).isEqualTo("1:10:node-b");
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void shouldReuseTheStoredGenerationUntilEvicted() {
+        // Given
+        String before = workoutCaches.exercisesKey(1L, 10L);
+
+        // When
+        String again = workoutCaches.exercisesKey(1L, 10L);
+        workoutCaches.evictWorkout(1L, 10L);
+        String after = workoutCaches.exercisesKey(1L, 10L);
+
+        // Then
+        assertThat(again).isEqualTo(before);
+        assertThat(after).isNotEqualTo(before);
+    }
+}
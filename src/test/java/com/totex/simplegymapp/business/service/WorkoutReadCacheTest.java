@@ -0,0 +1,336 @@
+package com.totex.simplegymapp.business.service;
+
+import com.totex.simplegymapp.business.converter.CursorPageCodec;
+import com.totex.simplegymapp.business.converter.ExerciseConverter;
+import com.totex.simplegymapp.business.converter.ExerciseDtoCodec;
+import com.totex.simplegymapp.business.converter.WorkoutConverter;
+import com.totex.simplegymapp.business.converter.WorkoutDtoCodec;
+import com.totex.simplegymapp.business.dto.CursorPage;
+import com.totex.simplegymapp.business.dto.ExerciseDto;
+import com.totex.simplegymapp.business.dto.WorkoutDto;
+import com.totex.simplegymapp.infrastructure.cache.CacheCodec;
+import com.totex.simplegymapp.infrastructure.cache.SecondLevelCacheInvalidator;
+import com.totex.simplegymapp.infrastructure.config.RedisConfig;
+import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
+import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
+import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import com.totex.simplegymapp.infrastructure.repository.ExerciseRepository;
+import com.totex.simplegymapp.infrastructure.repository.UserRepository;
+import com.totex.simplegymapp.infrastructure.repository.WorkoutRepository;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Caches "workouts" e "exercises" com o proxy de cache real. Os valores passam pelo serializer do
+ * Redis, então cada hit é uma cópia desserializada, como em produção. Cada chamada roda na sua
+ * própria transação, como numa requisição.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SecondLevelCacheInvalidator.class, WorkoutService.class, ExerciseService.class, WorkoutConverter.class, ExerciseConverter.class,
+        WorkoutCaches.class, ExerciseDtoCodec.class, WorkoutDtoCodec.class, CursorPageCodec.class,
+        WorkoutReadCacheTest.CacheConfig.class})
+class WorkoutReadCacheTest {
+
+    // Invalidador real: as escritas condicionais dependem dele para tirar as linhas do cache local
+    @MockitoBean
+    private StringRedisTemplate stringRedisTemplate;
+
+    @MockitoBean
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private WorkoutService workoutService;
+
+    @Autowired
+    private ExerciseService exerciseService;
+
+    @Autowired
+    private WorkoutCaches workoutCaches;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final Pageable pageable = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "startDate"));
+    private Statistics statistics;
+    private UserModel owner;
+    private UserModel stranger;
+    private AuthenticatedUser principal;
+    private AuthenticatedUser strangerPrincipal;
+    private Long workoutId;
+    private Long exerciseId;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(UserModel.builder()
+                .username("owner").email("owner@example.com").password("hashedpassword").build());
+        stranger = userRepository.save(UserModel.builder()
+                .username("stranger").email("stranger@example.com").password("hashedpassword").build());
+        WorkoutModel workout = new WorkoutModel();
+        workout.setWorkoutName("Treino A");
+        workout.setStartDate(LocalDate.of(2025, 1, 10));
+        workout.setUser(owner);
+        workoutId = workoutRepository.save(workout).getWorkoutId();
+        ExerciseModel exercise = new ExerciseModel();
+        exercise.setExerciseName("Supino");
+        exercise.setSeries(4);
+        exercise.setRepetitions(10);
+        exercise.setWorkout(workout);
+        exerciseId = exerciseRepository.save(exercise).getExerciseId();
+
+        Date expiration = new Date(System.currentTimeMillis() + 3600000L);
+        principal = new AuthenticatedUser(owner.getUserId(), owner.getEmail(), 0L, expiration);
+        strangerPrincipal = new AuthenticatedUser(stranger.getUserId(), stranger.getEmail(), 0L, expiration);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Sem transação de teste para desfazer: remove o que foi commitado
+        exerciseRepository.deleteAllByIdInBatch(exerciseRepository.findIdsByWorkoutUserUserId(
+                owner.getUserId(), PageRequest.ofSize(1000)));
+        workoutRepository.deleteAllByIdInBatch(workoutRepository.findIdsByUserUserId(
+                owner.getUserId(), PageRequest.ofSize(1000)));
+        userRepository.deleteAllByIdInBatch(List.of(owner.getUserId(), stranger.getUserId()));
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void repeatReadsShouldNotReachHibernate() {
+        // Given
+        workoutService.getWorkoutById(workoutId, principal, true);
+        exerciseService.getExercisesByWorkout(workoutId, principal);
+        workoutService.getUserWorkouts(principal, pageable, true);
+        coldHibernate();
+
+        // When
+        WorkoutDto workout = workoutService.getWorkoutById(workoutId, principal, true);
+        List<ExerciseDto> exercises = exerciseService.getExercisesByWorkout(workoutId, principal);
+        CursorPage<WorkoutDto> workouts = workoutService.getUserWorkouts(principal, pageable, true);
+
+        // Then - nem SQL nem cache de segundo nível: os valores vieram do cache e voltaram inteiros
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isZero();
+        assertThat(workout.getStartDate()).isEqualTo(LocalDate.of(2025, 1, 10));
+        assertThat(workout.getExercises()).extracting(ExerciseDto::getExerciseName).containsExactly("Supino");
+        assertThat(exercises).extracting(ExerciseDto::getExerciseId).containsExactly(exerciseId);
+        assertThat(workouts.getContent()).extracting(WorkoutDto::getWorkoutId).containsExactly(workoutId);
+        assertThat(workouts.getContent().get(0).getExercises()).hasSize(1);
+    }
+
+    @Test
+    void cachedEntriesShouldNotBeServedToAnotherUser() {
+        // Given - o dono aquece todos os caches
+        workoutService.getWorkoutById(workoutId, principal, false);
+        exerciseService.getExercisesByWorkout(workoutId, principal);
+        workoutService.getUserWorkouts(principal, pageable, false);
+
+        // When / Then
+        assertThatThrownBy(() -> workoutService.getWorkoutById(workoutId, strangerPrincipal, false))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> exerciseService.getExercisesByWorkout(workoutId, strangerPrincipal))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(workoutService.getUserWorkouts(strangerPrincipal, pageable, false).getContent()).isEmpty();
+    }
+
+    @Test
+    void workoutUpdateShouldBeVisibleToEveryCachedRead() {
+        // Given
+        warmAll();
+
+        // When
+        WorkoutDto update = new WorkoutDto();
+        update.setWorkoutName("Treino B");
+        workoutService.updateWorkout(workoutId, update, 0L, principal);
+
+        // Then
+        assertThat(workoutService.getWorkoutById(workoutId, principal, false).getWorkoutName()).isEqualTo("Treino B");
+        assertThat(workoutService.getWorkoutById(workoutId, principal, true).getVersion()).isEqualTo(1L);
+        assertThat(workoutService.getUserWorkouts(principal, pageable, false).getContent())
+                .extracting(WorkoutDto::getWorkoutName).containsExactly("Treino B");
+    }
+
+    @Test
+    void exerciseWritesShouldRefreshTheParentWorkoutEntries() {
+        // Given
+        warmAll();
+
+        // When - cria
+        ExerciseDto created = new ExerciseDto();
+        created.setExerciseName("Crucifixo");
+        created.setSeries(3);
+        created.setRepetitions(12);
+        created.setWorkoutId(workoutId);
+        Long createdId = exerciseService.createExercise(created, principal).getExerciseId();
+
+        // Then
+        assertThat(exerciseService.getExercisesByWorkout(workoutId, principal)).hasSize(2);
+        assertThat(workoutService.getWorkoutById(workoutId, principal, true).getExercises()).hasSize(2);
+        assertThat(workoutService.getUserWorkouts(principal, pageable, true).getContent().get(0).getExercises())
+                .hasSize(2);
+
+        // When - altera
+        ExerciseDto update = new ExerciseDto();
+        update.setSeries(5);
+        exerciseService.updateExercise(exerciseId, update, 0L, principal);
+
+        // Then
+        assertThat(exerciseService.getExercisesByWorkout(workoutId, principal))
+                .filteredOn(exercise -> exercise.getExerciseId().equals(exerciseId))
+                .extracting(ExerciseDto::getSeries).containsExactly(5);
+        assertThat(workoutService.getWorkoutById(workoutId, principal, true).getExercises())
+                .filteredOn(exercise -> exercise.getExerciseId().equals(exerciseId))
+                .extracting(ExerciseDto::getSeries).containsExactly(5);
+
+        // When - apaga
+        exerciseService.deleteExercise(createdId, 0L, principal);
+
+        // Then
+        assertThat(exerciseService.getExercisesByWorkout(workoutId, principal))
+                .extracting(ExerciseDto::getExerciseId).containsExactly(exerciseId);
+        assertThat(workoutService.getUserWorkouts(principal, pageable, true).getContent().get(0).getExercises())
+                .extracting(ExerciseDto::getExerciseId).containsExactly(exerciseId);
+    }
+
+    @Test
+    void createdAndDeletedWorkoutsShouldShowUpInTheCachedList() {
+        // Given
+        warmAll();
+
+        // When
+        WorkoutDto created = new WorkoutDto();
+        created.setWorkoutName("Treino C");
+        created.setStartDate(LocalDate.of(2025, 2, 1));
+        Long createdId = workoutService.createWorkout(principal, created).getWorkoutId();
+
+        // Then
+        assertThat(workoutService.getUserWorkouts(principal, pageable, false).getContent())
+                .extracting(WorkoutDto::getWorkoutId).containsExactly(createdId, workoutId);
+
+        // When
+        workoutService.deleteWorkout(workoutId, null, principal);
+
+        // Then
+        assertThat(workoutService.getUserWorkouts(principal, pageable, false).getContent())
+                .extracting(WorkoutDto::getWorkoutId).containsExactly(createdId);
+        assertThatThrownBy(() -> workoutService.getWorkoutById(workoutId, principal, true))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> exerciseService.getExercisesByWorkout(workoutId, principal))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void readThatStartedBeforeAWriteShouldNotBeServedAfterIt() {
+        // Given - uma leitura calculou a chave e leu o banco antes da escrita...
+        String staleKey = workoutCaches.workoutKey(principal, workoutId, false);
+        WorkoutDto staleRead = workoutService.getWorkoutById(workoutId, principal, false);
+
+        // When - ...a escrita termina e só então a leitura lenta grava o que leu
+        WorkoutDto update = new WorkoutDto();
+        update.setWorkoutName("Treino B");
+        workoutService.updateWorkout(workoutId, update, 0L, principal);
+        cacheManager.getCache("workouts").put(staleKey, staleRead);
+
+        // Then - a geração da chave antiga foi descartada no commit
+        assertThat(workoutService.getWorkoutById(workoutId, principal, false).getWorkoutName()).isEqualTo("Treino B");
+    }
+
+    private void warmAll() {
+        workoutService.getWorkoutById(workoutId, principal, false);
+        workoutService.getWorkoutById(workoutId, principal, true);
+        exerciseService.getExercisesByWorkout(workoutId, principal);
+        workoutService.getUserWorkouts(principal, pageable, false);
+        workoutService.getUserWorkouts(principal, pageable, true);
+    }
+
+    private void coldHibernate() {
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @TestConfiguration
+    @EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+    static class CacheConfig {
+
+        @Bean
+        CacheManager cacheManager(List<CacheCodec<?>> cacheCodecs) {
+            RedisSerializer<Object> serializer = RedisConfig.cacheValueSerializer(cacheCodecs);
+            return new ConcurrentMapCacheManager() {
+                @Override
+                protected Cache createConcurrentMapCache(String name) {
+                    return new SerializingCache(name, serializer);
+                }
+            };
+        }
+    }
+
+    // Guarda os bytes do serializer do Redis: o que volta do cache é uma cópia, como no RedisCache
+    private static final class SerializingCache extends ConcurrentMapCache {
+
+        private final RedisSerializer<Object> serializer;
+
+        SerializingCache(String name, RedisSerializer<Object> serializer) {
+            super(name, false);
+            this.serializer = serializer;
+        }
+
+        @Override
+        protected Object toStoreValue(Object userValue) {
+            return serializer.serialize(userValue);
+        }
+
+        @Override
+        protected Object fromStoreValue(Object storeValue) {
+            return serializer.deserialize((byte[]) storeValue);
+        }
+    }
+}
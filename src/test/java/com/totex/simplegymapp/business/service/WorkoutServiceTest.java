@@ -1,30 +1,49 @@
 package com.totex.simplegymapp.business.service;
 
+import com.totex.simplegymapp.business.converter.ExerciseConverter;
 import com.totex.simplegymapp.business.converter.WorkoutConverter;
+import com.totex.simplegymapp.business.dto.CursorPage;
+import com.totex.simplegymapp.business.dto.ExerciseDto;
 import com.totex.simplegymapp.business.dto.WorkoutDto;
+import com.totex.simplegymapp.infrastructure.cache.SecondLevelCacheInvalidator;
+import com.totex.simplegymapp.infrastructure.exception.InvalidCursorException;
+import com.totex.simplegymapp.infrastructure.exception.PreconditionFailedException;
 import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
+import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
 import com.totex.simplegymapp.infrastructure.model.UserModel;
 import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import com.totex.simplegymapp.infrastructure.repository.ExerciseRepository;
 import com.totex.simplegymapp.infrastructure.repository.UserRepository;
 import com.totex.simplegymapp.infrastructure.repository.WorkoutRepository;
-import com.totex.simplegymapp.infrastructure.security.JwtUtil;
+import com.totex.simplegymapp.infrastructure.repository.projection.WorkoutSummary;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class WorkoutServiceTest {
@@ -39,7 +58,16 @@ class WorkoutServiceTest {
     private WorkoutConverter workoutConverter;
 
     @Mock
-    private JwtUtil jwtUtil;
+    private ExerciseRepository exerciseRepository;
+
+    @Mock
+    private ExerciseConverter exerciseConverter;
+
+    @Mock
+    private WorkoutCaches workoutCaches;
+
+    @Mock
+    private SecondLevelCacheInvalidator secondLevelCacheInvalidator;
 
     @InjectMocks
     private WorkoutService workoutService;
@@ -47,11 +75,11 @@ class WorkoutServiceTest {
     private UserModel userModel;
     private WorkoutModel workoutModel;
     private WorkoutDto workoutDto;
-    private String token;
+    private AuthenticatedUser principal;
 
     @BeforeEach
     void setUp() {
-        token = "Bearer validtoken";
+        principal = new AuthenticatedUser(1L, "test@example.com", 0L, new Date(System.currentTimeMillis() + 3600000L));
 
         userModel = UserModel.builder()
                 .userId(1L)
@@ -65,6 +93,7 @@ class WorkoutServiceTest {
         workoutModel.setWorkoutName("Treino de Peito");
         workoutModel.setStartDate(LocalDate.now());
         workoutModel.setUser(userModel);
+        workoutModel.setVersion(0L);
 
         workoutDto = new WorkoutDto();
         workoutDto.setWorkoutId(1L);
@@ -76,72 +105,122 @@ class WorkoutServiceTest {
     @Test
     void shouldCreateWorkoutSuccessfully() {
         // Given
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(userRepository.findByEmail("test@example.com")).willReturn(Optional.of(userModel));
+        given(userRepository.getReferenceById(1L)).willReturn(userModel);
         given(workoutConverter.toWorkoutModel(workoutDto, userModel)).willReturn(workoutModel);
         given(workoutRepository.save(workoutModel)).willReturn(workoutModel);
-        given(workoutConverter.toWorkoutDto(workoutModel)).willReturn(workoutDto);
+        given(workoutConverter.toWorkoutDto(workoutModel, principal)).willReturn(workoutDto);
 
         // When
-        WorkoutDto result = workoutService.createWorkout(token, workoutDto);
+        WorkoutDto result = workoutService.createWorkout(principal, workoutDto);
 
         // Then
         assertThat(result).isNotNull();
         assertThat(result.getWorkoutName()).isEqualTo("Treino de Peito");
         verify(workoutRepository).save(workoutModel);
+        verify(userRepository, never()).findByEmail(anyString());
     }
 
     @Test
-    void shouldThrowResourceNotFoundExceptionWhenUserNotFoundForWorkoutCreation() {
+    void shouldCreateWorkoutWithNestedExercisesInOneSave() {
         // Given
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(userRepository.findByEmail("test@example.com")).willReturn(Optional.empty());
+        ExerciseDto exerciseDto = new ExerciseDto();
+        exerciseDto.setExerciseName("Supino Reto");
+        workoutDto.setExercises(List.of(exerciseDto));
+        ExerciseModel exerciseModel = new ExerciseModel();
+        exerciseModel.setWorkout(workoutModel);
+        workoutModel.getExercises().add(exerciseModel);
+        given(userRepository.getReferenceById(1L)).willReturn(userModel);
+        given(workoutConverter.toWorkoutModel(workoutDto, userModel)).willReturn(workoutModel);
+        given(workoutRepository.save(workoutModel)).willReturn(workoutModel);
+        given(workoutConverter.toWorkoutDto(workoutModel, principal)).willReturn(new WorkoutDto());
+        given(exerciseConverter.toExerciseDto(exerciseModel)).willReturn(exerciseDto);
 
-        // When & Then
-        assertThatThrownBy(() -> workoutService.createWorkout(token, workoutDto))
-                .isInstanceOf(ResourceNotFoundException.class)
-                .hasMessage("User not found.");
+        // When
+        WorkoutDto result = workoutService.createWorkout(principal, workoutDto);
+
+        // Then - os exercícios são persistidos pelo cascade, sem chamadas ao ExerciseRepository
+        assertThat(result.getExercises()).containsExactly(exerciseDto);
+        verify(workoutRepository).save(workoutModel);
+        verifyNoInteractions(exerciseRepository);
     }
 
     @Test
     void shouldGetUserWorkoutsSuccessfully() {
         // Given
-        userModel.setWorkouts(Arrays.asList(workoutModel));
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(userRepository.findByEmail("test@example.com")).willReturn(Optional.of(userModel));
-        given(workoutConverter.toWorkoutDto(workoutModel)).willReturn(workoutDto);
+        Pageable pageable = PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "startDate"));
+        WorkoutSummary summary = new WorkoutSummary(1L, "Treino de Peito", LocalDate.now(), 1L, "test@example.com", 0L);
+        given(workoutRepository.findSummariesByUserId(1L, pageable))
+                .willReturn(new SliceImpl<>(List.of(summary), pageable, false));
+        given(workoutConverter.toWorkoutDto(summary)).willReturn(workoutDto);
 
         // When
-        List<WorkoutDto> result = workoutService.getUserWorkouts(token);
+        CursorPage<WorkoutDto> result = workoutService.getUserWorkouts(principal, pageable, false);
 
         // Then
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getWorkoutName()).isEqualTo("Treino de Peito");
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getContent().get(0).getWorkoutName()).isEqualTo("Treino de Peito");
+        assertThat(result.isHasNext()).isFalse();
     }
 
     @Test
     void shouldGetWorkoutByIdSuccessfully() {
         // Given
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(workoutRepository.findById(1L)).willReturn(Optional.of(workoutModel));
-        given(workoutConverter.toWorkoutDto(workoutModel)).willReturn(workoutDto);
+        given(workoutRepository.findByWorkoutIdAndUserUserId(1L, 1L)).willReturn(Optional.of(workoutModel));
+        given(workoutConverter.toWorkoutDto(workoutModel, principal)).willReturn(workoutDto);
 
         // When
-        WorkoutDto result = workoutService.getWorkoutById(1L, token);
+        WorkoutDto result = workoutService.getWorkoutById(1L, principal, false);
 
         // Then
         assertThat(result).isNotNull();
         assertThat(result.getWorkoutName()).isEqualTo("Treino de Peito");
     }
 
+    @Test
+    void shouldEmbedExercisesWhenExpanded() {
+        // Given
+        ExerciseModel exerciseModel = new ExerciseModel();
+        exerciseModel.setExerciseId(10L);
+        exerciseModel.setWorkout(workoutModel);
+        ExerciseDto exerciseDto = new ExerciseDto();
+        exerciseDto.setExerciseId(10L);
+        exerciseDto.setWorkoutId(1L);
+
+        workoutModel.getExercises().add(exerciseModel);
+
+        given(workoutRepository.findByWorkoutIdAndUserUserId(1L, 1L)).willReturn(Optional.of(workoutModel));
+        given(workoutConverter.toWorkoutDto(workoutModel, principal)).willReturn(workoutDto);
+        given(exerciseConverter.toExerciseDto(exerciseModel)).willReturn(exerciseDto);
+
+        // When
+        WorkoutDto result = workoutService.getWorkoutById(1L, principal, true);
+
+        // Then - exercícios pela coleção (cacheada), sem o SELECT ... IN das listagens
+        assertThat(result.getExercises()).containsExactly(exerciseDto);
+        verify(exerciseRepository, never()).findByWorkoutWorkoutIdIn(any());
+    }
+
+    @Test
+    void shouldNotLoadExercisesUnlessExpanded() {
+        // Given
+        given(workoutRepository.findByWorkoutIdAndUserUserId(1L, 1L)).willReturn(Optional.of(workoutModel));
+        given(workoutConverter.toWorkoutDto(workoutModel, principal)).willReturn(workoutDto);
+
+        // When
+        WorkoutDto result = workoutService.getWorkoutById(1L, principal, false);
+
+        // Then
+        assertThat(result.getExercises()).isNull();
+        verify(exerciseRepository, never()).findByWorkoutWorkoutIdIn(any());
+    }
+
     @Test
     void shouldThrowResourceNotFoundExceptionWhenWorkoutNotFound() {
         // Given
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(workoutRepository.findById(1L)).willReturn(Optional.empty());
+        given(workoutRepository.findByWorkoutIdAndUserUserId(1L, 1L)).willReturn(Optional.empty());
 
         // When & Then
-        assertThatThrownBy(() -> workoutService.getWorkoutById(1L, token))
+        assertThatThrownBy(() -> workoutService.getWorkoutById(1L, principal, false))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Workout not found.");
     }
@@ -149,17 +228,11 @@ class WorkoutServiceTest {
     @Test
     void shouldThrowResourceNotFoundExceptionWhenWorkoutDoesNotBelongToUser() {
         // Given
-        UserModel anotherUser = UserModel.builder()
-                .userId(2L)
-                .email("another@example.com")
-                .build();
-        workoutModel.setUser(anotherUser);
-
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(workoutRepository.findById(1L)).willReturn(Optional.of(workoutModel));
+        AuthenticatedUser anotherUser = new AuthenticatedUser(2L, "another@example.com", 0L, principal.expiration());
+        given(workoutRepository.findByWorkoutIdAndUserUserId(1L, 2L)).willReturn(Optional.empty());
 
         // When & Then
-        assertThatThrownBy(() -> workoutService.getWorkoutById(1L, token))
+        assertThatThrownBy(() -> workoutService.getWorkoutById(1L, anotherUser, false))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Workout not found.");
     }
@@ -171,29 +244,124 @@ class WorkoutServiceTest {
         updateDto.setWorkoutName("Treino de Peito Atualizado");
         updateDto.setStartDate(LocalDate.now().plusDays(1));
 
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(workoutRepository.findById(1L)).willReturn(Optional.of(workoutModel));
-        given(workoutRepository.save(any(WorkoutModel.class))).willReturn(workoutModel);
-        given(workoutConverter.toWorkoutDto(workoutModel)).willReturn(workoutDto);
+        WorkoutSummary summary = new WorkoutSummary(1L, "Treino de Peito Atualizado", updateDto.getStartDate(),
+                1L, "test@example.com", 1L);
+        given(workoutRepository.updateOwnedWorkout(1L, 1L, 0L, "Treino de Peito Atualizado", updateDto.getStartDate()))
+                .willReturn(1);
+        given(workoutRepository.findSummaryById(1L)).willReturn(Optional.of(summary));
+        given(workoutConverter.toWorkoutDto(summary)).willReturn(workoutDto);
 
         // When
-        WorkoutDto result = workoutService.updateWorkout(1L, updateDto, token);
+        WorkoutDto result = workoutService.updateWorkout(1L, updateDto, 0L, principal);
 
-        // Then
+        // Then - UPDATE condicional, sem carregar nem salvar a entidade; só esta entrada sai do cache
         assertThat(result).isNotNull();
-        verify(workoutRepository).save(workoutModel);
+        verify(workoutRepository, never()).findByWorkoutIdAndUserUserId(any(), any());
+        verify(workoutRepository, never()).save(any());
+        verify(secondLevelCacheInvalidator).evictEverywhere(SecondLevelCacheInvalidator.WORKOUT, 1L);
+    }
+
+    @Test
+    void shouldThrowWhenUpdatingWorkoutOfAnotherUser() {
+        // Given
+        WorkoutDto updateDto = new WorkoutDto();
+        updateDto.setWorkoutName("");
+        given(workoutRepository.updateOwnedWorkout(1L, 1L, 0L, null, null)).willReturn(0);
+        given(workoutRepository.existsByWorkoutIdAndUserUserId(1L, 1L)).willReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> workoutService.updateWorkout(1L, updateDto, 0L, principal))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Workout not found.");
+        verify(workoutRepository, never()).findSummaryById(any());
+        verify(secondLevelCacheInvalidator, never()).evict(any(), any());
+    }
+
+    @Test
+    void shouldRejectWorkoutUpdateWithStaleVersion() {
+        // Given
+        WorkoutDto updateDto = new WorkoutDto();
+        updateDto.setWorkoutName("Treino B");
+        given(workoutRepository.updateOwnedWorkout(1L, 1L, 2L, "Treino B", null)).willReturn(0);
+        given(workoutRepository.existsByWorkoutIdAndUserUserId(1L, 1L)).willReturn(true);
+
+        // When & Then - a entrada local pode ser a desatualizada: sai do cache junto com o 412
+        assertThatThrownBy(() -> workoutService.updateWorkout(1L, updateDto, 2L, principal))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("Workout was modified by another request.");
+        verify(secondLevelCacheInvalidator).evict(SecondLevelCacheInvalidator.WORKOUT, 1L);
+        verify(secondLevelCacheInvalidator, never()).evictEverywhere(any(), any(Long.class));
     }
 
     @Test
     void shouldDeleteWorkoutSuccessfully() {
         // Given
-        given(jwtUtil.extractEmailToken("validtoken")).willReturn("test@example.com");
-        given(workoutRepository.findById(1L)).willReturn(Optional.of(workoutModel));
+        given(exerciseRepository.findIdsByWorkoutWorkoutId(1L)).willReturn(List.of(10L, 11L));
+        given(workoutRepository.deleteOwnedWorkout(1L, 1L, 0L)).willReturn(1);
+
+        // When
+        workoutService.deleteWorkout(1L, 0L, principal);
+
+        // Then - exercícios e workout por DELETE em lote, sem carregar entidades
+        verify(exerciseRepository).deleteByOwnedWorkout(1L, 1L, 0L);
+        verify(workoutRepository, never()).findByWorkoutIdAndUserUserId(any(), any());
+        verify(workoutRepository, never()).delete(any());
+        // Só as linhas apagadas saem do cache de segundo nível, neste nó e nos outros
+        verify(secondLevelCacheInvalidator).evictEverywhere(SecondLevelCacheInvalidator.WORKOUT, 1L);
+        verify(secondLevelCacheInvalidator).evictEverywhere(SecondLevelCacheInvalidator.WORKOUT_EXERCISES, 1L);
+        verify(secondLevelCacheInvalidator).evictEverywhere(SecondLevelCacheInvalidator.EXERCISE, List.of(10L, 11L));
+    }
+
+    @Test
+    void shouldThrowWhenDeletingWorkoutOfAnotherUser() {
+        // Given
+        given(workoutRepository.deleteOwnedWorkout(1L, 1L, 0L)).willReturn(0);
+
+        // When & Then
+        assertThatThrownBy(() -> workoutService.deleteWorkout(1L, 0L, principal))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(secondLevelCacheInvalidator, never()).evictEverywhere(any(), any(Long.class));
+    }
+
+    @Test
+    void shouldReturnNextCursorWhenMoreWorkoutsExist() {
+        // Given
+        given(workoutRepository.findPageAfter(0L, PageRequest.ofSize(1)))
+                .willReturn(new SliceImpl<>(List.of(workoutModel), PageRequest.ofSize(1), true));
+        given(workoutConverter.toWorkoutDto(workoutModel)).willReturn(workoutDto);
 
         // When
-        workoutService.deleteWorkout(1L, token);
+        CursorPage<WorkoutDto> result = workoutService.getAllWorkouts("", 1, false, false);
 
         // Then
-        verify(workoutRepository).delete(workoutModel);
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.isHasNext()).isTrue();
+        assertThat(WorkoutService.decodeCursor(result.getNextCursor())).isEqualTo(1L);
+        assertThat(result.getTotalElements()).isNull();
+        verify(workoutRepository, never()).count();
+    }
+
+    @Test
+    void shouldSeekFromCursorAndCountOnlyWhenRequested() {
+        // Given
+        String cursor = WorkoutService.encodeCursor(41L);
+        given(workoutRepository.findPageAfter(41L, PageRequest.ofSize(20)))
+                .willReturn(new SliceImpl<>(List.of(), PageRequest.ofSize(20), false));
+        given(workoutRepository.count()).willReturn(41L);
+
+        // When
+        CursorPage<WorkoutDto> result = workoutService.getAllWorkouts(cursor, 20, false, true);
+
+        // Then
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.getNextCursor()).isNull();
+        assertThat(result.getTotalElements()).isEqualTo(41L);
+    }
+
+    @Test
+    void shouldRejectTamperedCursor() {
+        // When & Then
+        assertThatThrownBy(() -> workoutService.getAllWorkouts("not-a-cursor", 20, false, false))
+                .isInstanceOf(InvalidCursorException.class);
     }
-}
\ No newline at end of file
+}
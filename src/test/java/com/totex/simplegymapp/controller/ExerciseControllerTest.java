@@ -1,6 +1,7 @@
 package com.totex.simplegymapp.controller;
 
 import com.totex.simplegymapp.base.BaseIntegrationTest;
+import com.totex.simplegymapp.business.dto.ExerciseBatchDto;
 import com.totex.simplegymapp.business.dto.ExerciseDto;
 import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
 import com.totex.simplegymapp.infrastructure.model.UserModel;
@@ -9,9 +10,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -45,6 +51,48 @@ class ExerciseControllerTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.exerciseId").exists());
     }
 
+    @Test
+    void shouldCreateExercisesInBatch() throws Exception {
+        // Given
+        UserModel user = createTestUser("test@example.com", "Password@123");
+        WorkoutModel workout = createTestWorkout(user, "Treino de Peito");
+        String token = generateToken("test@example.com");
+
+        ExerciseDto supino = new ExerciseDto();
+        supino.setExerciseName("Supino Reto");
+        supino.setSeries(4);
+        supino.setRepetitions(12);
+        ExerciseDto crucifixo = new ExerciseDto();
+        crucifixo.setExerciseName("Crucifixo");
+        crucifixo.setSeries(3);
+        crucifixo.setRepetitions(15);
+
+        // When & Then
+        mockMvc.perform(post("/exercises/batch")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(new ExerciseBatchDto(workout.getWorkoutId(), List.of(supino, crucifixo)))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].exerciseName", is("Crucifixo")))
+                .andExpect(jsonPath("$[1].workoutId", is(workout.getWorkoutId().intValue())));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenBatchIsEmpty() throws Exception {
+        // Given
+        UserModel user = createTestUser("test@example.com", "Password@123");
+        WorkoutModel workout = createTestWorkout(user, "Treino de Peito");
+        String token = generateToken("test@example.com");
+
+        // When & Then
+        mockMvc.perform(post("/exercises/batch")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(new ExerciseBatchDto(workout.getWorkoutId(), List.of()))))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void shouldReturnUnauthorizedWhenCreatingExerciseWithoutToken() throws Exception {
         // Given
@@ -124,6 +172,7 @@ class ExerciseControllerTest extends BaseIntegrationTest {
         // When & Then
         mockMvc.perform(put("/exercises/" + exercise.getExerciseId())
                         .header("Authorization", token)
+                        .header("If-Match", "\"" + exercise.getVersion() + "\"")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(asJsonString(updateDto)))
                 .andExpect(status().isOk())
@@ -142,7 +191,8 @@ class ExerciseControllerTest extends BaseIntegrationTest {
 
         // When & Then
         mockMvc.perform(delete("/exercises/" + exercise.getExerciseId())
-                        .header("Authorization", token))
+                        .header("Authorization", token)
+                        .header("If-Match", "\"" + exercise.getVersion() + "\""))
                 .andExpect(status().isNoContent());
 
         // Verify exercise was deleted
@@ -199,6 +249,8 @@ class ExerciseControllerTest extends BaseIntegrationTest {
     }
 
     @Test
+    // O corpo é escrito em outra thread, que só enxerga dados commitados
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     void shouldGetAllExercisesSuccessfully() throws Exception {
         // Given
         UserModel user1 = createTestUser("user1@example.com", "Password@123");
@@ -209,11 +261,18 @@ class ExerciseControllerTest extends BaseIntegrationTest {
         createTestExercise(workout2, "Exercício User2", 3, 10);
         String token = generateToken("user1@example.com");
 
-        // When & Then
-        mockMvc.perform(get("/exercises/all")
+        // When - StreamingResponseBody é escrito de forma assíncrona
+        MvcResult asyncResult = mockMvc.perform(get("/exercises/all")
                         .header("Authorization", token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then - uma linha NDJSON por exercício
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)));
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(body.lines()).hasSize(2);
     }
 
     @Test
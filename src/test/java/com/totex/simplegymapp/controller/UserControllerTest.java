@@ -4,12 +4,24 @@ import com.totex.simplegymapp.base.BaseIntegrationTest;
 import com.totex.simplegymapp.business.dto.UserCreateDto;
 import com.totex.simplegymapp.business.dto.UserPasswordUpdateDto;
 import com.totex.simplegymapp.business.dto.UserUpdateDto;
+import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
 import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -172,6 +184,65 @@ class UserControllerTest extends BaseIntegrationTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    // O corpo é escrito em outra thread, que só enxerga dados commitados
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldExportUserDataAsGzippedNdjson() throws Exception {
+        // Given
+        UserModel user = createTestUser("test@example.com", "Password@123");
+        WorkoutModel workout = new WorkoutModel();
+        workout.setWorkoutName("Treino A");
+        workout.setStartDate(LocalDate.now());
+        workout.setUser(user);
+        workoutRepository.save(workout);
+        ExerciseModel exercise = new ExerciseModel();
+        exercise.setExerciseName("Supino");
+        exercise.setSeries(4);
+        exercise.setRepetitions(10);
+        exercise.setWorkout(workout);
+        exerciseRepository.save(exercise);
+        String token = generateToken("test@example.com");
+
+        // When
+        MvcResult asyncResult = mockMvc.perform(get("/user/export")
+                        .header("Authorization", token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then - usuário, workout e exercício, um por linha
+        byte[] body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string("Content-Disposition", containsString(".ndjson.gz")))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            String ndjson = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(ndjson.lines()).hasSize(3);
+            assertThat(ndjson.lines().toList().get(2)).contains("\"exerciseName\":\"Supino\"");
+        }
+    }
+
+    @Test
+    void shouldAcceptDeletionAndExposePurgeStatus() throws Exception {
+        // Given
+        createTestUser("test@example.com", "Password@123");
+        createTestUser("admin@example.com", "Password@123");
+        String token = generateToken("admin@example.com");
+
+        // When
+        MvcResult result = mockMvc.perform(delete("/user/test@example.com")
+                        .header("Authorization", token))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", containsString("/user/purges/")))
+                .andExpect(jsonPath("$.statusToken").exists())
+                .andReturn();
+
+        // Then - o expurgo segue consultável pelo Location, sem a sessão
+        mockMvc.perform(get(result.getResponse().getHeader("Location")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").exists());
+    }
+
     private UserModel createTestUser(String email, String password) {
         UserModel user = UserModel.builder()
                 .username("testuser")
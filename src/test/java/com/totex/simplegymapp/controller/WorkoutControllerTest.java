@@ -70,6 +70,40 @@ class WorkoutControllerTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$[1].workoutName", is("Treino B - Costas")));
     }
 
+    @Test
+    void shouldReturnAllMyWorkoutsWhenNoPageIsRequested() throws Exception {
+        // Given - mais workouts que o tamanho de página padrão
+        UserModel user = createTestUser("test@example.com", "Password@123");
+        for (int i = 0; i < 60; i++) {
+            createTestWorkout(user, "Treino " + i);
+        }
+        String token = generateToken("test@example.com");
+
+        // When & Then
+        mockMvc.perform(get("/workouts/my-workouts")
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Has-Next", "false"))
+                .andExpect(jsonPath("$", hasSize(60)));
+        mockMvc.perform(get("/workouts/my-workouts?size=50")
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Has-Next", "true"))
+                .andExpect(jsonPath("$", hasSize(50)));
+    }
+
+    @Test
+    void shouldRejectUnknownSortPropertyOnMyWorkouts() throws Exception {
+        // Given
+        createTestUser("test@example.com", "Password@123");
+        String token = generateToken("test@example.com");
+
+        // When & Then
+        mockMvc.perform(get("/workouts/my-workouts?sort=user.password,asc")
+                        .header("Authorization", token))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void shouldGetWorkoutByIdSuccessfully() throws Exception {
         // Given
@@ -110,12 +144,62 @@ class WorkoutControllerTest extends BaseIntegrationTest {
         // When & Then
         mockMvc.perform(put("/workouts/" + workout.getWorkoutId())
                         .header("Authorization", token)
+                        .header("If-Match", "\"" + workout.getVersion() + "\"")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(asJsonString(updateDto)))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + (workout.getVersion() + 1) + "\""))
                 .andExpect(jsonPath("$.workoutName", is("Treino Atualizado")));
     }
 
+    @Test
+    void shouldReturnPreconditionFailedWhenIfMatchIsStale() throws Exception {
+        // Given
+        UserModel user = createTestUser("test@example.com", "Password@123");
+        WorkoutModel workout = createTestWorkout(user, "Treino Original");
+        String token = generateToken("test@example.com");
+        String etag = mockMvc.perform(get("/workouts/" + workout.getWorkoutId())
+                        .header("Authorization", token))
+                .andReturn().getResponse().getHeader("ETag");
+
+        WorkoutDto first = new WorkoutDto();
+        first.setWorkoutName("Editado pelo treinador");
+        mockMvc.perform(put("/workouts/" + workout.getWorkoutId())
+                        .header("Authorization", token)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(first)))
+                .andExpect(status().isOk());
+
+        // When & Then - segunda escrita com a mesma ETag perde a corrida
+        WorkoutDto second = new WorkoutDto();
+        second.setWorkoutName("Editado pelo aluno");
+        mockMvc.perform(put("/workouts/" + workout.getWorkoutId())
+                        .header("Authorization", token)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(second)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void shouldRequireIfMatchOnUpdateAndDelete() throws Exception {
+        // Given
+        UserModel user = createTestUser("test@example.com", "Password@123");
+        WorkoutModel workout = createTestWorkout(user, "Treino Original");
+        String token = generateToken("test@example.com");
+
+        // When & Then
+        mockMvc.perform(put("/workouts/" + workout.getWorkoutId())
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(new WorkoutDto())))
+                .andExpect(status().isPreconditionRequired());
+        mockMvc.perform(delete("/workouts/" + workout.getWorkoutId())
+                        .header("Authorization", token))
+                .andExpect(status().isPreconditionRequired());
+    }
+
     @Test
     void shouldDeleteWorkoutSuccessfully() throws Exception {
         // Given
@@ -125,7 +209,8 @@ class WorkoutControllerTest extends BaseIntegrationTest {
 
         // When & Then
         mockMvc.perform(delete("/workouts/" + workout.getWorkoutId())
-                        .header("Authorization", token))
+                        .header("Authorization", token)
+                        .header("If-Match", "\"" + workout.getVersion() + "\""))
                 .andExpect(status().isNoContent());
 
         // Verify workout was deleted
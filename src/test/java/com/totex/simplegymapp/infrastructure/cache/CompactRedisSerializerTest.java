@@ -0,0 +1,177 @@
+package com.totex.simplegymapp.infrastructure.cache;
+
+import com.totex.simplegymapp.business.converter.CursorPageCodec;
+import com.totex.simplegymapp.business.converter.ExerciseDtoCodec;
+import com.totex.simplegymapp.business.converter.UserResponseDtoCodec;
+import com.totex.simplegymapp.business.converter.WorkoutDtoCodec;
+import com.totex.simplegymapp.business.dto.CursorPage;
+import com.totex.simplegymapp.business.dto.ExerciseDto;
+import com.totex.simplegymapp.business.dto.UserResponseDto;
+import com.totex.simplegymapp.business.dto.WorkoutDto;
+import com.totex.simplegymapp.infrastructure.config.RedisConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactRedisSerializerTest {
+
+    private GenericJackson2JsonRedisSerializer jsonSerializer;
+    private CompactRedisSerializer serializer;
+
+    @BeforeEach
+    void setUp() {
+        ExerciseDtoCodec exerciseDtoCodec = new ExerciseDtoCodec();
+        WorkoutDtoCodec workoutDtoCodec = new WorkoutDtoCodec(exerciseDtoCodec);
+        jsonSerializer = RedisConfig.jsonRedisSerializer();
+        serializer = new CompactRedisSerializer(List.of(exerciseDtoCodec, workoutDtoCodec,
+                new UserResponseDtoCodec(workoutDtoCodec), new CursorPageCodec()), jsonSerializer);
+    }
+
+    @Test
+    void shouldRoundTripCachedDtos() {
+        // Given
+        WorkoutDto workout = workout(1L, 3);
+        UserResponseDto user = new UserResponseDto(7L, "john", "john@example.com", new ArrayList<>(List.of(workout)));
+        CursorPage<WorkoutDto> page = new CursorPage<>(new ArrayList<>(List.of(workout, workout(2L, 0))), null, true, 42L);
+        List<ExerciseDto> exercises = new ArrayList<>(workout.getExercises());
+
+        // When / Then
+        assertThat(serializer.deserialize(serializer.serialize(workout))).usingRecursiveComparison().isEqualTo(workout);
+        assertThat(serializer.deserialize(serializer.serialize(user))).usingRecursiveComparison().isEqualTo(user);
+        assertThat(serializer.deserialize(serializer.serialize(page))).usingRecursiveComparison().isEqualTo(page);
+        assertThat(serializer.deserialize(serializer.serialize(exercises))).usingRecursiveComparison().isEqualTo(exercises);
+    }
+
+    @Test
+    void shouldKeepNullFieldsAndEdgeValues() {
+        // Given
+        WorkoutDto empty = new WorkoutDto();
+        ExerciseDto negative = new ExerciseDto(Long.MAX_VALUE, "Ção ✓", -1, Integer.MIN_VALUE, Long.MIN_VALUE, 0L);
+
+        // When
+        Object decodedEmpty = serializer.deserialize(serializer.serialize(empty));
+        Object decodedNegative = serializer.deserialize(serializer.serialize(negative));
+
+        // Then
+        assertThat(decodedEmpty).usingRecursiveComparison().isEqualTo(empty);
+        assertThat(decodedNegative).usingRecursiveComparison().isEqualTo(negative);
+        assertThat(serializer.deserialize(serializer.serialize("gen-1"))).isEqualTo("gen-1");
+        assertThat(serializer.deserialize(serializer.serialize(-5L))).isEqualTo(-5L);
+    }
+
+    @Test
+    void shouldBeMuchSmallerThanJson() {
+        // Given
+        WorkoutDto workout = workout(12345L, 10);
+
+        // When
+        int compact = serializer.serialize(workout).length;
+        int json = jsonSerializer.serialize(workout).length;
+
+        // Then
+        assertThat(compact).isLessThan(json / 4);
+    }
+
+    @Test
+    void shouldFallBackToJsonForTypesWithoutCodec() {
+        // Given
+        Map<String, Object> value = new HashMap<>(Map.of("name", "treino", "date", LocalDate.of(2025, 1, 10)));
+
+        // When
+        Object decoded = serializer.deserialize(serializer.serialize(new ArrayList<>(List.of(value))));
+
+        // Then
+        assertThat(decoded).isEqualTo(List.of(value));
+    }
+
+    @Test
+    void shouldReadJsonWrittenBeforeTheBinaryFormat() {
+        // Given - entrada gravada por um nó ainda no serializer antigo
+        byte[] legacy = jsonSerializer.serialize(workout(1L, 2));
+
+        // When
+        Object decoded = serializer.deserialize(legacy);
+
+        // Then
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(workout(1L, 2));
+    }
+
+    @Test
+    void shouldTreatValuesFromANewerFormatAsMissing() {
+        // Given
+        byte[] bytes = serializer.serialize(workout(1L, 2));
+        byte[] newerVersion = bytes.clone();
+        newerVersion[0] = (byte) (CompactRedisSerializer.FORMAT_VERSION + 1);
+        byte[] unknownTag = bytes.clone();
+        unknownTag[1] = 99;
+
+        // When / Then
+        assertThat(serializer.deserialize(newerVersion)).isNull();
+        assertThat(serializer.deserialize(unknownTag)).isNull();
+    }
+
+    @Test
+    void shouldRejectTruncatedValues() {
+        // Given
+        byte[] bytes = serializer.serialize(workout(1L, 2));
+
+        // When / Then
+        assertThatThrownBy(() -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length - 3)))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void shouldRejectDuplicateOrReservedTags() {
+        // Given
+        ExerciseDtoCodec exerciseDtoCodec = new ExerciseDtoCodec();
+
+        // When / Then
+        assertThatThrownBy(() -> new CompactRedisSerializer(List.of(exerciseDtoCodec, new ExerciseDtoCodec()), jsonSerializer))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CompactRedisSerializer(List.of(new ReservedTagCodec()), jsonSerializer))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static WorkoutDto workout(Long workoutId, int exerciseCount) {
+        List<ExerciseDto> exercises = new ArrayList<>();
+        for (int i = 0; i < exerciseCount; i++) {
+            exercises.add(new ExerciseDto(workoutId * 100 + i, "Exercicio " + i, 4, 12, workoutId, 0L));
+        }
+        return new WorkoutDto(workoutId, "Treino de Peito", LocalDate.of(2025, 1, 10), exercises,
+                "john@example.com", 7L, 3L);
+    }
+
+    private static final class ReservedTagCodec implements CacheCodec<String> {
+
+        @Override
+        public int tag() {
+            return 1;
+        }
+
+        @Override
+        public Class<String> type() {
+            return String.class;
+        }
+
+        @Override
+        public void write(String value, CompactWriter out) {
+            out.writeString(value);
+        }
+
+        @Override
+        public String read(CompactReader in) {
+            return in.readString();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.totex.simplegymapp.infrastructure.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompressingRedisSerializerTest {
+
+    private final CompressingRedisSerializer<byte[]> serializer =
+            new CompressingRedisSerializer<>(RedisSerializer.byteArray(), 1024, 1, 2);
+
+    @Test
+    void shouldStoreValuesBelowThresholdUnchanged() {
+        // Given
+        byte[] small = repetitive(1023);
+
+        // When
+        byte[] stored = serializer.serialize(small);
+
+        // Then
+        assertThat(stored).isEqualTo(small);
+        assertThat(serializer.deserialize(stored)).isEqualTo(small);
+    }
+
+    @Test
+    void shouldCompressLargeValuesBehindHeaderFlag() {
+        // Given
+        byte[] large = repetitive(64 * 1024);
+
+        // When
+        byte[] stored = serializer.serialize(large);
+
+        // Then
+        assertThat(stored[0] & 0xFF).isEqualTo(CompressingRedisSerializer.COMPRESSED);
+        assertThat(stored.length).isLessThan(large.length / 4);
+        assertThat(serializer.deserialize(stored)).isEqualTo(large);
+    }
+
+    @Test
+    void shouldStoreIncompressibleValuesUnchanged() {
+        // Given
+        byte[] random = new byte[8 * 1024];
+        new Random(42).nextBytes(random);
+        random[0] = 1;
+
+        // When
+        byte[] stored = serializer.serialize(random);
+
+        // Then
+        assertThat(stored).isEqualTo(random);
+        assertThat(serializer.deserialize(stored)).isEqualTo(random);
+    }
+
+    @Test
+    void shouldReadValuesWrittenBeforeCompression() {
+        // Given
+        byte[] legacy = "{\"@class\":\"com.totex.simplegymapp.business.dto.WorkoutDto\"}".repeat(100)
+                .getBytes(StandardCharsets.UTF_8);
+
+        // When / Then
+        assertThat(serializer.deserialize(legacy)).isEqualTo(legacy);
+        assertThat(serializer.deserialize(null)).isNull();
+    }
+
+    @Test
+    void shouldRejectCorruptedOrTruncatedValues() {
+        // Given
+        byte[] stored = serializer.serialize(repetitive(16 * 1024));
+        byte[] truncated = Arrays.copyOf(stored, stored.length - 8);
+        byte[] corrupted = stored.clone();
+        corrupted[corrupted.length - 1] ^= 0x55;
+        byte[] wrongLength = stored.clone();
+        wrongLength[1] = (byte) (wrongLength[1] + 1);
+
+        // When / Then
+        assertThatThrownBy(() -> serializer.deserialize(truncated)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(corrupted)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(wrongLength)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(new byte[] {(byte) CompressingRedisSerializer.COMPRESSED}))
+                .isInstanceOf(SerializationException.class);
+        // O pool continua utilizável depois das falhas
+        assertThat(serializer.deserialize(stored)).isEqualTo(repetitive(16 * 1024));
+    }
+
+    @Test
+    void shouldRoundTripConcurrentlyWithPooledCompressors() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        // When
+        try {
+            for (int i = 0; i < 200; i++) {
+                byte[] value = repetitive(2048 + i * 97);
+                results.add(executor.submit(() -> Arrays.equals(value, serializer.deserialize(serializer.serialize(value)))));
+            }
+
+            // Then
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] repetitive(int size) {
+        byte[] template = "{\"id\":98231,\"name\":\"Supino inclinado\",\"sets\":4,\"repetitions\":12}"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] value = new byte[size];
+        for (int i = 0; i < size; i++) {
+            value[i] = template[i % template.length];
+        }
+        return value;
+    }
+}
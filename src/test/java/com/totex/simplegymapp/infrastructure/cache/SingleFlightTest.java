@@ -0,0 +1,180 @@
+package com.totex.simplegymapp.infrastructure.cache;
+
+import com.totex.simplegymapp.base.InMemoryStringRedis;
+import com.totex.simplegymapp.infrastructure.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallsForTheSameKeyShouldShareOneLoad() throws Exception {
+        // Given
+        SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(5), meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When - o líder só termina depois que todos entraram
+        List<Future<String>> results = submit(16, () -> singleFlight.execute("users|a@example.com", () -> {
+            loads.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return "user";
+        }, () -> null));
+        awaitCount("coalesced", 15);
+        release.countDown();
+
+        // Then
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("user");
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(count("leader")).isEqualTo(1);
+    }
+
+    @Test
+    void waitersShouldReceiveTheLeadersException() throws Exception {
+        // Given
+        SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(5), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        List<Future<String>> results = submit(4, () -> singleFlight.execute("users|missing@example.com", () -> {
+            release.await(5, TimeUnit.SECONDS);
+            throw new ResourceNotFoundException("Email not found.");
+        }, () -> null));
+        awaitCount("coalesced", 3);
+        release.countDown();
+
+        // Then
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(ResourceNotFoundException.class);
+        }
+    }
+
+    @Test
+    void waiterShouldLoadItselfAfterTimeout() throws Exception {
+        // Given - líder preso
+        SingleFlight singleFlight = new SingleFlight(Duration.ofMillis(100), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute("users|a@example.com", () -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "slow";
+        }, () -> null));
+        awaitCount("leader", 1);
+
+        // When
+        String value = singleFlight.execute("users|a@example.com", () -> "fresh", () -> null);
+
+        // Then
+        assertThat(value).isEqualTo("fresh");
+        assertThat(count("timeout")).isEqualTo(1);
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+    }
+
+    @Test
+    void loaderReadingItsOwnKeyShouldNotWaitForItself() throws Exception {
+        // Given
+        SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(5), meterRegistry);
+
+        // When
+        String value = singleFlight.execute("users|a@example.com",
+                () -> singleFlight.execute("users|a@example.com", () -> "inner", () -> null) + "-outer", () -> null);
+
+        // Then
+        assertThat(value).isEqualTo("inner-outer");
+        assertThat(count("timeout")).isZero();
+    }
+
+    @Test
+    void nodeWithoutTheRedisLockShouldWaitForTheOtherNodesValue() throws Exception {
+        // Given - dois nós com o mesmo Redis; o primeiro segura o lock enquanto carrega
+        Map<String, String> store = new ConcurrentHashMap<>();
+        StringRedisTemplate redis = InMemoryStringRedis.create(store);
+        SingleFlight nodeA = new SingleFlight(Duration.ofSeconds(5), redis, Duration.ofMillis(10), meterRegistry);
+        SingleFlight nodeB = new SingleFlight(Duration.ofSeconds(5), redis, Duration.ofMillis(10),
+                new SimpleMeterRegistry());
+        Map<String, String> remoteCache = new ConcurrentHashMap<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = executor.submit(() -> nodeA.execute("users|a@example.com", () -> {
+            loads.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            remoteCache.put("a@example.com", "user");
+            return "user";
+        }, () -> null));
+        while (!store.containsKey(SingleFlight.LOCK_PREFIX + "users|a@example.com")) {
+            Thread.sleep(5);
+        }
+
+        // When
+        Future<String> second = executor.submit(() -> nodeB.execute("users|a@example.com", () -> {
+            loads.incrementAndGet();
+            return "user";
+        }, () -> remoteCache.containsKey("a@example.com")
+                ? new SimpleValueWrapper(remoteCache.get("a@example.com")) : null));
+        Thread.sleep(50);
+        release.countDown();
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("user");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("user");
+        assertThat(loads).hasValue(1);
+        assertThat(store).isEmpty();
+    }
+
+    private List<Future<String>> submit(int threads, Callable<String> task) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(task));
+        }
+        return results;
+    }
+
+    private void awaitCount(String result, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count(result) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("cache.single.flight.requests").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,209 @@
+package com.totex.simplegymapp.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TwoTierCacheManagerTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrentMapCache remoteCache;
+    private TwoTierCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        remoteCache = spy(new ConcurrentMapCache("users", false));
+        CacheManager remote = mock(CacheManager.class);
+        lenient().when(remote.getCache("users")).thenReturn(remoteCache);
+        cacheManager = manager(remote, 100);
+    }
+
+    @Test
+    void shouldServeRepeatReadsFromTheLocalTier() {
+        // Given - valor já no L2, L1 frio
+        remoteCache.put("test@example.com", "user");
+        Cache cache = cacheManager.getCache("users");
+
+        // When
+        cache.get("test@example.com");
+        cache.get("test@example.com");
+        cache.get("test@example.com");
+
+        // Then
+        verify(remoteCache, times(1)).get("test@example.com");
+        assertThat(requests("l1", "hit")).isEqualTo(2);
+        assertThat(requests("l1", "miss")).isEqualTo(1);
+        assertThat(requests("l2", "hit")).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.tier.hit.ratio").tags("cache", "users", "tier", "l1")
+                .gauge().value()).isEqualTo(2.0 / 3);
+        assertThat(meterRegistry.get("cache.tier.latency").tags("cache", "users", "tier", "l2")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictBothTiersAndBroadcast() {
+        // Given
+        Cache cache = cacheManager.getCache("users");
+        cache.put("test@example.com", "user");
+
+        // When
+        cache.evict("test@example.com");
+
+        // Then
+        assertThat(cache.get("test@example.com")).isNull();
+        assertThat(remoteCache.get("test@example.com")).isNull();
+        verify(stringRedisTemplate, times(2)).convertAndSend(TwoTierCacheManager.INVALIDATION_CHANNEL,
+                cacheManager.nodeId() + "|E|users|test@example.com");
+    }
+
+    @Test
+    void shouldDropOnlyTheLocalEntryWhenAnotherNodeWrites() {
+        // Given - L1 aquecido; outro nó grava um valor novo no L2
+        Cache cache = cacheManager.getCache("users");
+        cache.put("test@example.com", "old");
+        remoteCache.put("test@example.com", "new");
+
+        // When
+        cacheManager.onMessage(message("other-node|E|users|test@example.com"), null);
+
+        // Then
+        assertThat(cache.get("test@example.com").get()).isEqualTo("new");
+    }
+
+    @Test
+    void shouldClearTheLocalTierWhenAnotherNodeClears() {
+        // Given
+        Cache cache = cacheManager.getCache("users");
+        cache.put("a", "1");
+        cache.put("b", "2");
+        remoteCache.clear();
+
+        // When
+        cacheManager.onMessage(message("other-node|C|users|"), null);
+
+        // Then
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNull();
+    }
+
+    @Test
+    void shouldIgnoreItsOwnMessages() {
+        // Given
+        Cache cache = cacheManager.getCache("users");
+        cache.put("test@example.com", "user");
+
+        // When
+        cacheManager.onMessage(message(cacheManager.nodeId() + "|E|users|test@example.com"), null);
+        cache.get("test@example.com");
+
+        // Then
+        verify(remoteCache, never()).get("test@example.com");
+    }
+
+    @Test
+    void shouldBoundTheLocalTier() {
+        // Given
+        CacheManager remote = new ConcurrentMapCacheManager("users");
+        TwoTierCacheManager bounded = manager(remote, 10);
+        Cache cache = bounded.getCache("users");
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            cache.put("user-" + i, i);
+        }
+        com.github.benmanes.caffeine.cache.Cache<?, ?> local =
+                (com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache();
+        local.cleanUp();
+
+        // Then
+        assertThat(local.estimatedSize()).isLessThanOrEqualTo(10);
+        assertThat(remote.getCache("users").get("user-0")).isNotNull();
+    }
+
+    @Test
+    void shouldNotRefillTheLocalTierWithAValueInvalidatedDuringTheRemoteRead() {
+        // Given - a invalidação chega enquanto o valor antigo volta do L2
+        Cache racingRemote = mock(Cache.class);
+        CacheManager remote = mock(CacheManager.class);
+        given(remote.getCache("users")).willReturn(racingRemote);
+        TwoTierCacheManager racing = manager(remote, 100);
+        Cache cache = racing.getCache("users");
+        given(racingRemote.get("test@example.com")).willAnswer(invocation -> {
+            racing.onMessage(message("other-node|E|users|test@example.com"), null);
+            return new SimpleValueWrapper("old");
+        });
+
+        // When
+        Cache.ValueWrapper first = cache.get("test@example.com");
+        cache.get("test@example.com");
+
+        // Then - a leitura devolve o que leu, mas o L1 não guarda o valor antigo
+        assertThat(first.get()).isEqualTo("old");
+        verify(racingRemote, times(2)).get("test@example.com");
+    }
+
+    @Test
+    void shouldLoadOnceAndFillBothTiersWithoutBroadcasting() {
+        // Given
+        Cache cache = cacheManager.getCache("users");
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        String first = cache.get("test@example.com", () -> "user-" + loads.incrementAndGet());
+        String second = cache.get("test@example.com", () -> "user-" + loads.incrementAndGet());
+
+        // Then
+        assertThat(first).isEqualTo("user-1");
+        assertThat(second).isEqualTo("user-1");
+        assertThat(loads).hasValue(1);
+        assertThat(remoteCache.get("test@example.com").get()).isEqualTo("user-1");
+        verify(stringRedisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    private TwoTierCacheManager manager(CacheManager remote, long maxSize) {
+        // Executor síncrono: a remoção por tamanho acontece na hora, sem depender de timing
+        return new TwoTierCacheManager(remote,
+                name -> Caffeine.newBuilder().maximumSize(maxSize).executor(Runnable::run),
+                stringRedisTemplate, meterRegistry, new SingleFlight(Duration.ofSeconds(5), meterRegistry));
+    }
+
+    private double requests(String tier, String result) {
+        return meterRegistry.get("cache.tier.requests")
+                .tags("cache", "users", "tier", tier, "result", result).counter().count();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,89 @@
+package com.totex.simplegymapp.infrastructure.repository;
+
+import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
+import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ids de sequência com pool de 50 + hibernate.jdbc.batch_size: um workout com 30 exercícios vira um
+ * INSERT de workout e um lote de INSERTs de exercício, em vez de 31 statements com ida e volta cada.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class InsertBatchingTest {
+
+    private static final int EXERCISES = 30;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private UserModel user;
+
+    @BeforeEach
+    void setUp() {
+        user = entityManager.persistFlushFind(UserModel.builder()
+                .username("batch").email("batch@example.com").password("hashedpassword").build());
+
+        // Aquece os geradores: na primeira chamada o pooled faz dois nextval para montar o bloco
+        saveWorkoutWithExercises(1);
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void workoutWithThirtyExercisesShouldBeInsertedInTwoStatements() {
+        // When
+        List<ExerciseModel> exercises = saveWorkoutWithExercises(EXERCISES);
+        entityManager.flush();
+
+        // Then - um statement para o workout e um lote para os exercícios, mais no máximo um nextval
+        // por sequência quando o bloco de 50 ids reservado acaba (o estado do pool é da SessionFactory)
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(EXERCISES + 1);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+        assertThat(exercises).extracting(ExerciseModel::getExerciseId).doesNotContainNull().doesNotHaveDuplicates();
+    }
+
+    private List<ExerciseModel> saveWorkoutWithExercises(int count) {
+        WorkoutModel workout = new WorkoutModel();
+        workout.setWorkoutName("Treino em lote");
+        workout.setStartDate(LocalDate.now());
+        workout.setUser(user);
+        workoutRepository.save(workout);
+
+        List<ExerciseModel> exercises = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ExerciseModel exercise = new ExerciseModel();
+            exercise.setExerciseName("Exercicio " + i);
+            exercise.setSeries(3);
+            exercise.setRepetitions(12);
+            exercise.setWorkout(workout);
+            exercises.add(exercise);
+        }
+        return exerciseRepository.saveAll(exercises);
+    }
+}
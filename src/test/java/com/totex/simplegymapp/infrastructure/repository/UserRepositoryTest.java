@@ -1,12 +1,19 @@
 package com.totex.simplegymapp.infrastructure.repository;
 
+import com.totex.simplegymapp.infrastructure.model.ExerciseModel;
 import com.totex.simplegymapp.infrastructure.model.UserModel;
+import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import com.totex.simplegymapp.infrastructure.repository.projection.UserExportRow;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -17,6 +24,9 @@ class UserRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void shouldSaveAndFindUserByEmail() {
         // Given
@@ -64,29 +74,82 @@ class UserRepositoryTest {
     }
 
     @Test
-    void shouldDeleteUserByEmail() {
+    void shouldReturnEmptyWhenUserNotFound() {
+        // When
+        Optional<UserModel> foundUser = userRepository.findByEmail("notfound@example.com");
+
+        // Then
+        assertThat(foundUser).isEmpty();
+    }
+
+    @Test
+    void shouldStreamExportRowsGroupedByWorkout() {
         // Given
-        UserModel user = UserModel.builder()
+        UserModel user = userRepository.save(UserModel.builder()
                 .username("testuser")
-                .email("delete@example.com")
+                .email("export@example.com")
                 .password("hashedpassword")
-                .build();
-        userRepository.save(user);
+                .build());
+        WorkoutModel withExercises = persistWorkout(user, "Treino A");
+        WorkoutModel empty = persistWorkout(user, "Treino B");
+        persistExercise(withExercises, "Supino");
+        persistExercise(withExercises, "Remada");
+        entityManager.flush();
+        entityManager.clear();
 
         // When
-        userRepository.deleteByEmail("delete@example.com");
-
-        // Then
-        Optional<UserModel> foundUser = userRepository.findByEmail("delete@example.com");
-        assertThat(foundUser).isEmpty();
+        List<UserExportRow> rows;
+        try (Stream<UserExportRow> stream = userRepository.streamExportRows(user.getUserId())) {
+            rows = stream.toList();
+        }
+
+        // Then - um exercício por linha; o workout sem exercícios aparece uma vez com colunas nulas
+        assertThat(rows).extracting(UserExportRow::workoutId)
+                .containsExactly(withExercises.getWorkoutId(), withExercises.getWorkoutId(), empty.getWorkoutId());
+        assertThat(rows).extracting(UserExportRow::exerciseName).containsExactly("Supino", "Remada", null);
+        assertThat(rows).allSatisfy(row -> {
+            assertThat(row.username()).isEqualTo("testuser");
+            assertThat(row.email()).isEqualTo("export@example.com");
+        });
     }
 
     @Test
-    void shouldReturnEmptyWhenUserNotFound() {
+    void shouldStreamSingleRowForUserWithoutWorkouts() {
+        // Given
+        UserModel user = userRepository.save(UserModel.builder()
+                .username("testuser")
+                .email("lonely@example.com")
+                .password("hashedpassword")
+                .build());
+
         // When
-        Optional<UserModel> foundUser = userRepository.findByEmail("notfound@example.com");
+        List<UserExportRow> rows;
+        try (Stream<UserExportRow> stream = userRepository.streamExportRows(user.getUserId())) {
+            rows = stream.toList();
+        }
 
         // Then
-        assertThat(foundUser).isEmpty();
+        assertThat(rows).singleElement().satisfies(row -> {
+            assertThat(row.userId()).isEqualTo(user.getUserId());
+            assertThat(row.workoutId()).isNull();
+            assertThat(row.exerciseId()).isNull();
+        });
+    }
+
+    private WorkoutModel persistWorkout(UserModel user, String name) {
+        WorkoutModel workout = new WorkoutModel();
+        workout.setWorkoutName(name);
+        workout.setStartDate(LocalDate.now());
+        workout.setUser(user);
+        return entityManager.persist(workout);
+    }
+
+    private void persistExercise(WorkoutModel workout, String name) {
+        ExerciseModel exercise = new ExerciseModel();
+        exercise.setExerciseName(name);
+        exercise.setSeries(4);
+        exercise.setRepetitions(10);
+        exercise.setWorkout(workout);
+        entityManager.persist(exercise);
     }
-}
\ No newline at end of file
+}
@@ -2,10 +2,14 @@ package com.totex.simplegymapp.infrastructure.repository;
 
 import com.totex.simplegymapp.infrastructure.model.UserModel;
 import com.totex.simplegymapp.infrastructure.model.WorkoutModel;
+import com.totex.simplegymapp.infrastructure.repository.projection.WorkoutSummary;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDate;
@@ -161,4 +165,31 @@ class WorkoutRepositoryTest {
         assertThat(savedWorkout.getUser().getEmail()).isEqualTo("test@example.com");
         assertThat(savedWorkout.getUser().getUserId()).isEqualTo(user.getUserId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldListAllSummariesWhenUnpaged() {
+        // Given - mais workouts que o tamanho de página padrão
+        UserModel user = entityManager.persistAndFlush(UserModel.builder()
+                .username("testuser")
+                .email("test@example.com")
+                .password("hashedpassword")
+                .build());
+        for (int i = 0; i < 60; i++) {
+            WorkoutModel workout = new WorkoutModel();
+            workout.setWorkoutName("Treino " + i);
+            workout.setStartDate(LocalDate.of(2025, 1, 1).plusDays(i));
+            workout.setUser(user);
+            entityManager.persist(workout);
+        }
+        entityManager.flush();
+
+        // When
+        Slice<WorkoutSummary> summaries = workoutRepository.findSummariesByUserId(user.getUserId(),
+                Pageable.unpaged(Sort.by(Sort.Direction.DESC, "startDate")));
+
+        // Then
+        assertThat(summaries.getContent()).hasSize(60);
+        assertThat(summaries.hasNext()).isFalse();
+        assertThat(summaries.getContent().get(0).workoutName()).isEqualTo("Treino 59");
+    }
+}
@@ -0,0 +1,168 @@
+package com.totex.simplegymapp.infrastructure.security;
+
+import com.totex.simplegymapp.infrastructure.exception.ApiExceptionHandler;
+import com.totex.simplegymapp.infrastructure.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private SimpleMeterRegistry meterRegistry;
+    private BoundedPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(release), 1, 1, Duration.ofSeconds(3), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.destroy();
+    }
+
+    @Test
+    void shouldDelegateHashingToThePool() {
+        // Given
+        release.countDown();
+
+        // When
+        String hash = encoder.encode("password123");
+        boolean matches = encoder.matches("password123", hash);
+
+        // Then
+        assertThat(hash).isEqualTo("hashed:password123");
+        assertThat(matches).isTrue();
+        assertThat(meterRegistry.get("password.hashing.duration").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectWhenPoolAndQueueAreFull() {
+        // Given - uma thread ocupada e uma tarefa na fila
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        waitForGauge("password.hashing.active", 1.0);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+        waitForGauge("password.hashing.queue.depth", 1.0);
+
+        // When & Then
+        assertThatThrownBy(() -> encoder.encode("third"))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .satisfies(ex -> assertThat(((ServiceUnavailableException) ex).getRetryAfter())
+                        .isEqualTo(Duration.ofSeconds(3)));
+        assertThat(meterRegistry.get("password.hashing.rejected").counter().count()).isEqualTo(1.0);
+
+        release.countDown();
+        assertThat(running.join()).isEqualTo("hashed:first");
+        assertThat(queued.join()).isEqualTo("hashed:second");
+    }
+
+    @Test
+    void shouldAnswer503ForUnknownUserLoginWhenPoolIsFull() throws Exception {
+        // Given - pool saturado; e-mail desconhecido ainda passa pelo BCrypt no DaoAuthenticationProvider
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        waitForGauge("password.hashing.active", 1.0);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+        waitForGauge("password.hashing.queue.depth", 1.0);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(username -> {
+            throw new UsernameNotFoundException(username);
+        });
+        provider.setPasswordEncoder(encoder);
+
+        // When & Then - sobrecarga, não credencial inválida
+        login(provider)
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+
+        release.countDown();
+        running.join();
+        queued.join();
+    }
+
+    @Test
+    void shouldAnswer503WhenTheProviderWrapsThePoolRejection() throws Exception {
+        // Given - rejeição durante a busca do usuário, que o DaoAuthenticationProvider embrulha
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(username -> {
+            throw new ServiceUnavailableException("Password hashing is saturated, try again later.",
+                    Duration.ofSeconds(3));
+        });
+        provider.setPasswordEncoder(encoder);
+
+        // When & Then
+        login(provider)
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+    }
+
+    private ResultActions login(AuthenticationProvider provider) throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new LoginController(provider))
+                .setControllerAdvice(new ApiExceptionHandler())
+                .build();
+        return mockMvc.perform(post("/login"));
+    }
+
+    private void waitForGauge(String name, double expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get(name).gauge().value() != expected) {
+            assertThat(System.nanoTime()).as("gauge %s never reached %s", name, expected).isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    @RestController
+    private record LoginController(AuthenticationProvider provider) {
+
+        @PostMapping("/login")
+        void login() {
+            provider.authenticate(new UsernamePasswordAuthenticationToken("ghost@example.com", "password123"));
+        }
+    }
+
+    private record BlockingEncoder(CountDownLatch release) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            waitForRelease();
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            waitForRelease();
+            return encodedPassword.equals("hashed:" + rawPassword);
+        }
+
+        private void waitForRelease() {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.totex.simplegymapp.infrastructure.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class JwtRequestFilterTest {
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private JwtRequestFilter jwtRequestFilter;
+
+    @BeforeEach
+    void setUp() {
+        TokenEpochService tokenEpochService = new TokenEpochService(stringRedisTemplate, listenerContainer, 1000,
+                Duration.ofSeconds(30), Duration.ofMinutes(2));
+        jwtRequestFilter = new JwtRequestFilter(jwtUtil, principalCache, tokenEpochService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldAnswer503WhenTheTokenEpochCannotBeRead() throws Exception {
+        // Given - token válido, mas o Redis caiu antes de o nó conhecer o epoch do usuário
+        given(jwtUtil.verifyToken("token")).willReturn(new AuthenticatedUser(1L, "test@example.com", 0L,
+                new Date(System.currentTimeMillis() + 3600000L)));
+        given(stringRedisTemplate.opsForValue()).willReturn(valueOperations);
+        given(valueOperations.get("token-epoch:1")).willThrow(new RedisConnectionFailureException("Unable to connect to Redis"));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/workouts");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        jwtRequestFilter.doFilterInternal(request, response, chain);
+
+        // Then - nem 500 nem requisição anônima: 503 com Retry-After, sem seguir a cadeia
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+        assertThat(chain.getRequest()).isNull();
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+}
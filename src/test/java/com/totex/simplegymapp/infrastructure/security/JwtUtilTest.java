@@ -1,12 +1,13 @@
 package com.totex.simplegymapp.infrastructure.security;
 
+import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Date;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class JwtUtilTest {
 
@@ -16,9 +17,7 @@ class JwtUtilTest {
 
     @BeforeEach
     void setUp() {
-        jwtUtil = new JwtUtil();
-        ReflectionTestUtils.setField(jwtUtil, "secretKey", testSecret);
-        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", testExpiration);
+        jwtUtil = new JwtUtil(testSecret, testExpiration);
     }
 
     @Test
@@ -48,6 +47,71 @@ class JwtUtilTest {
         assertThat(extractedEmail).isEqualTo(username);
     }
 
+    @Test
+    void shouldVerifyTokenIntoAuthenticatedUser() {
+        // Given
+        String username = "test@example.com";
+        String token = jwtUtil.generateToken(username, 42L);
+
+        // When
+        AuthenticatedUser user = jwtUtil.verifyToken(token);
+
+        // Then
+        assertThat(user.email()).isEqualTo(username);
+        assertThat(user.userId()).isEqualTo(42L);
+        assertThat(user.expiration()).isAfter(new Date());
+    }
+
+    @Test
+    void shouldCarryTokenEpochClaim() {
+        // Given
+        String token = jwtUtil.generateToken("test@example.com", 42L, 3L);
+
+        // When
+        AuthenticatedUser user = jwtUtil.verifyToken(token);
+
+        // Then
+        assertThat(user.tokenEpoch()).isEqualTo(3L);
+    }
+
+    @Test
+    void shouldRejectTamperedTokenOnVerification() {
+        // Given
+        String token = jwtUtil.generateToken("test@example.com", 42L);
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        // When & Then
+        assertThatThrownBy(() -> jwtUtil.verifyToken(tampered))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void shouldVerifyTokenSignedWithRetiredKey() {
+        // Given
+        String oldSecret = "old-secret-key-for-junit-tests-minimum-256-bits-long-value";
+        JwtUtil previous = new JwtUtil(oldSecret, testExpiration, "2024-01", "");
+        JwtUtil rotated = new JwtUtil(testSecret, testExpiration, "2025-01", "2024-01:" + oldSecret);
+        String token = previous.generateToken("test@example.com", 7L);
+
+        // When
+        AuthenticatedUser user = rotated.verifyToken(token);
+
+        // Then
+        assertThat(user.email()).isEqualTo("test@example.com");
+        assertThat(user.userId()).isEqualTo(7L);
+    }
+
+    @Test
+    void shouldRejectTokenWithUnknownKeyId() {
+        // Given
+        JwtUtil other = new JwtUtil(testSecret, testExpiration, "unknown", "");
+        String token = other.generateToken("test@example.com", 7L);
+
+        // When & Then
+        assertThatThrownBy(() -> jwtUtil.verifyToken(token))
+                .isInstanceOf(JwtException.class);
+    }
+
     @Test
     void shouldValidateTokenSuccessfully() {
         // Given
@@ -0,0 +1,116 @@
+package com.totex.simplegymapp.infrastructure.security;
+
+import com.totex.simplegymapp.infrastructure.model.UserModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PrincipalCacheTest {
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PrincipalCache principalCache;
+    private UserModel userModel;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        principalCache = new PrincipalCache(userDetailsService, stringRedisTemplate, listenerContainer,
+                meterRegistry, 100, Duration.ofMinutes(5));
+
+        userModel = UserModel.builder()
+                .userId(1L)
+                .email("test@example.com")
+                .password("hashedpassword")
+                .build();
+    }
+
+    @Test
+    void shouldLoadPrincipalOnlyOnceWhileCached() {
+        // Given
+        given(userDetailsService.loadUserByUsername("test@example.com")).willReturn(userModel);
+
+        // When
+        principalCache.get("test@example.com");
+        principalCache.get("test@example.com");
+        principalCache.get("test@example.com");
+
+        // Then
+        verify(userDetailsService, times(1)).loadUserByUsername("test@example.com");
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "principals").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "principals").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReloadAndBroadcastAfterEviction() {
+        // Given
+        given(userDetailsService.loadUserByUsername("test@example.com")).willReturn(userModel);
+        principalCache.get("test@example.com");
+
+        // When
+        principalCache.evict("test@example.com");
+        principalCache.get("test@example.com");
+
+        // Then
+        verify(stringRedisTemplate).convertAndSend(PrincipalCache.INVALIDATION_CHANNEL, "test@example.com");
+        verify(userDetailsService, times(2)).loadUserByUsername("test@example.com");
+    }
+
+    @Test
+    void shouldEvictWhenInvalidationArrivesFromAnotherNode() {
+        // Given
+        given(userDetailsService.loadUserByUsername("test@example.com")).willReturn(userModel);
+        principalCache.get("test@example.com");
+
+        // When
+        principalCache.onMessage(new DefaultMessage(
+                PrincipalCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "test@example.com".getBytes(StandardCharsets.UTF_8)), null);
+        principalCache.get("test@example.com");
+
+        // Then
+        verify(userDetailsService, times(2)).loadUserByUsername("test@example.com");
+    }
+
+    @Test
+    void shouldNotCacheUnknownUsers() {
+        // Given
+        given(userDetailsService.loadUserByUsername("ghost@example.com"))
+                .willThrow(new UsernameNotFoundException("User not found: ghost@example.com"));
+
+        // When & Then
+        assertThatThrownBy(() -> principalCache.get("ghost@example.com"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> principalCache.get("ghost@example.com"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        verify(userDetailsService, times(2)).loadUserByUsername("ghost@example.com");
+    }
+}
@@ -0,0 +1,89 @@
+package com.totex.simplegymapp.infrastructure.security;
+
+import com.totex.simplegymapp.base.InMemoryStringRedis;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private TokenEpochService tokenEpochService;
+
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(InMemoryStringRedis.create(redis), tokenEpochService, 86400000L);
+    }
+
+    @Test
+    void shouldRotateRefreshTokenOnUse() {
+        // Given
+        given(tokenEpochService.currentEpoch(1L)).willReturn(0L);
+        String refreshToken = refreshTokenService.issue(1L, "test@example.com", 0L);
+
+        // When
+        RefreshTokenService.RefreshedSession session = refreshTokenService.rotate(refreshToken);
+
+        // Then
+        assertThat(session.userId()).isEqualTo(1L);
+        assertThat(session.email()).isEqualTo("test@example.com");
+        assertThat(session.tokenEpoch()).isZero();
+        assertThat(session.refreshToken()).isNotBlank().isNotEqualTo(refreshToken);
+    }
+
+    @Test
+    void shouldStoreOnlyTheHashOfTheToken() {
+        // When
+        String refreshToken = refreshTokenService.issue(1L, "test@example.com", 0L);
+
+        // Then
+        assertThat(redis.keySet()).noneMatch(key -> key.contains(refreshToken));
+        assertThat(redis.values()).noneMatch(value -> value.contains(refreshToken));
+    }
+
+    @Test
+    void shouldRevokeWholeFamilyWhenRotatedTokenIsReused() {
+        // Given
+        given(tokenEpochService.currentEpoch(1L)).willReturn(0L);
+        String stolen = refreshTokenService.issue(1L, "test@example.com", 0L);
+        String current = refreshTokenService.rotate(stolen).refreshToken();
+
+        // When & Then
+        assertThatThrownBy(() -> refreshTokenService.rotate(stolen))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> refreshTokenService.rotate(current))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void shouldRejectRefreshTokenIssuedBeforeLogout() {
+        // Given
+        String refreshToken = refreshTokenService.issue(1L, "test@example.com", 0L);
+        given(tokenEpochService.currentEpoch(1L)).willReturn(1L);
+
+        // When & Then
+        assertThatThrownBy(() -> refreshTokenService.rotate(refreshToken))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void shouldRejectUnknownRefreshToken() {
+        // When & Then
+        assertThatThrownBy(() -> refreshTokenService.rotate("not-a-refresh-token"))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+}
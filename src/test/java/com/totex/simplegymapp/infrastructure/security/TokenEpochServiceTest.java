@@ -0,0 +1,170 @@
+package com.totex.simplegymapp.infrastructure.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import com.totex.simplegymapp.infrastructure.exception.ServiceUnavailableException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TokenEpochServiceTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private TokenEpochService tokenEpochService;
+
+    @BeforeEach
+    void setUp() {
+        tokenEpochService = new TokenEpochService(stringRedisTemplate, listenerContainer, 1000, Duration.ofMinutes(1),
+                Duration.ofMinutes(2));
+    }
+
+    @Test
+    void shouldLoadEpochFromRedisOnlyOnce() {
+        // Given
+        given(stringRedisTemplate.opsForValue()).willReturn(valueOperations);
+        given(valueOperations.get("token-epoch:1")).willReturn("2");
+
+        // When
+        long first = tokenEpochService.currentEpoch(1L);
+        long second = tokenEpochService.currentEpoch(1L);
+
+        // Then
+        assertThat(first).isEqualTo(2L);
+        assertThat(second).isEqualTo(2L);
+        verify(valueOperations, times(1)).get("token-epoch:1");
+    }
+
+    @Test
+    void shouldRejectTokensIssuedBeforeBump() {
+        // Given
+        given(stringRedisTemplate.opsForValue()).willReturn(valueOperations);
+        given(valueOperations.get("token-epoch:1")).willReturn(null);
+        given(valueOperations.increment("token-epoch:1")).willReturn(1L);
+        AuthenticatedUser oldToken = principal(0L);
+
+        // When
+        assertThat(tokenEpochService.isCurrent(oldToken)).isTrue();
+        tokenEpochService.bump(1L);
+
+        // Then
+        assertThat(tokenEpochService.isCurrent(oldToken)).isFalse();
+        assertThat(tokenEpochService.isCurrent(principal(1L))).isTrue();
+        verify(stringRedisTemplate).convertAndSend(TokenEpochService.EPOCH_CHANNEL, "1:1");
+    }
+
+    @Test
+    void shouldApplyBumpsFromOtherNodesWithoutRegressing() {
+        // Given
+        given(stringRedisTemplate.opsForValue()).willReturn(valueOperations);
+        given(valueOperations.get("token-epoch:1")).willReturn("0");
+        tokenEpochService.currentEpoch(1L);
+
+        // When
+        tokenEpochService.onMessage(message("1:5"), null);
+        tokenEpochService.onMessage(message("1:4"), null);
+
+        // Then
+        assertThat(tokenEpochService.currentEpoch(1L)).isEqualTo(5L);
+    }
+
+    @Test
+    void shouldReloadFromRedisAfterResubscribing() {
+        // Given - o nó leu o epoch 0 e depois perdeu o aviso do bump para 3
+        given(stringRedisTemplate.opsForValue()).willReturn(valueOperations);
+        given(valueOperations.get("token-epoch:1")).willReturn("0", "3");
+        assertThat(tokenEpochService.isCurrent(principal(0L))).isTrue();
+
+        // When
+        tokenEpochService.onChannelSubscribed(TokenEpochService.EPOCH_CHANNEL.getBytes(StandardCharsets.UTF_8), 1);
+
+        // Then
+        assertThat(tokenEpochService.isCurrent(principal(0L))).isFalse();
+        verify(valueOperations, times(2)).get("token-epoch:1");
+    }
+
+    @Test
+    void shouldKeepTheLastKnownEpochWhileRedisIsDown() {
+        // Given - resync zerado: toda leitura vai ao Redis, que cai depois da primeira
+        tokenEpochService = new TokenEpochService(stringRedisTemplate, listenerContainer, 1000, Duration.ZERO,
+                Duration.ofMinutes(2));
+        given(stringRedisTemplate.opsForValue()).willReturn(valueOperations);
+        given(valueOperations.get("token-epoch:1"))
+                .willReturn("3")
+                .willThrow(new RedisConnectionFailureException("Unable to connect to Redis"));
+        assertThat(tokenEpochService.currentEpoch(1L)).isEqualTo(3L);
+
+        // When & Then - tokens revogados antes da queda continuam rejeitados
+        assertThat(tokenEpochService.isCurrent(principal(2L))).isFalse();
+        assertThat(tokenEpochService.isCurrent(principal(3L))).isTrue();
+    }
+
+    @Test
+    void shouldFailClosedWhenRedisIsDownAndNoEpochIsKnown() {
+        // Given
+        given(stringRedisTemplate.opsForValue()).willReturn(valueOperations);
+        given(valueOperations.get("token-epoch:1")).willThrow(new RedisConnectionFailureException("Unable to connect to Redis"));
+
+        // When & Then
+        assertThatThrownBy(() -> tokenEpochService.isCurrent(principal(0L)))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .satisfies(e -> assertThat(((ServiceUnavailableException) e).getRetryAfter()).isPositive());
+    }
+
+    @Test
+    void shouldFailClosedOnceTheStaleGraceHasPassed() {
+        // Given - sem tolerância: o epoch lido antes da queda já não vale
+        tokenEpochService = new TokenEpochService(stringRedisTemplate, listenerContainer, 1000, Duration.ZERO,
+                Duration.ZERO);
+        given(stringRedisTemplate.opsForValue()).willReturn(valueOperations);
+        given(valueOperations.get("token-epoch:1"))
+                .willReturn("3")
+                .willThrow(new RedisConnectionFailureException("Unable to connect to Redis"));
+        tokenEpochService.currentEpoch(1L);
+
+        // When & Then
+        assertThatThrownBy(() -> tokenEpochService.currentEpoch(1L))
+                .isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    @Test
+    void shouldRejectTokensWithoutUserId() {
+        // Given
+        AuthenticatedUser legacy = new AuthenticatedUser(null, "test@example.com", 0L, new Date());
+
+        // When & Then
+        assertThat(tokenEpochService.isCurrent(legacy)).isFalse();
+    }
+
+    private AuthenticatedUser principal(long tokenEpoch) {
+        return new AuthenticatedUser(1L, "test@example.com", tokenEpoch, new Date(System.currentTimeMillis() + 3600000L));
+    }
+
+    private DefaultMessage message(String body) {
+        return new DefaultMessage(TokenEpochService.EPOCH_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
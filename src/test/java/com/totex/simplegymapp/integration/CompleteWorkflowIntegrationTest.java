@@ -161,11 +161,13 @@ class CompleteWorkflowIntegrationTest extends BaseIntegrationTest {
                         containsInAnyOrder("Supino Reto", "Supino Inclinado", "Tríceps Pulley")));
 
         // 9. Consultar treino específico
-        mockMvc.perform(get("/workouts/" + workoutId)
+        String workoutETag = mockMvc.perform(get("/workouts/" + workoutId)
                         .header("Authorization", token))
                 .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
                 .andExpect(jsonPath("$.workoutName", is("Treino A - Peito e Tríceps")))
-                .andExpect(jsonPath("$.workoutId", is(workoutId.intValue())));
+                .andExpect(jsonPath("$.workoutId", is(workoutId.intValue())))
+                .andReturn().getResponse().getHeader("ETag");
 
         // 10. Atualizar nome do treino
         WorkoutDto updateWorkout = new WorkoutDto();
@@ -173,6 +175,7 @@ class CompleteWorkflowIntegrationTest extends BaseIntegrationTest {
 
         mockMvc.perform(put("/workouts/" + workoutId)
                         .header("Authorization", token)
+                        .header("If-Match", workoutETag)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(asJsonString(updateWorkout)))
                 .andExpect(status().isOk())
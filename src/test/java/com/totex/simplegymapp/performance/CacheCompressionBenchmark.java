@@ -0,0 +1,121 @@
+package com.totex.simplegymapp.performance;
+
+import com.totex.simplegymapp.business.converter.CursorPageCodec;
+import com.totex.simplegymapp.business.converter.ExerciseDtoCodec;
+import com.totex.simplegymapp.business.converter.UserResponseDtoCodec;
+import com.totex.simplegymapp.business.converter.WorkoutDtoCodec;
+import com.totex.simplegymapp.business.dto.CursorPage;
+import com.totex.simplegymapp.business.dto.ExerciseDto;
+import com.totex.simplegymapp.business.dto.WorkoutDto;
+import com.totex.simplegymapp.infrastructure.cache.CompressingRedisSerializer;
+import com.totex.simplegymapp.infrastructure.config.RedisConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de CPU da compressão contra bytes economizados, sobre valores já serializados: páginas de
+ * my-workouts com exercícios no formato compacto e o mesmo valor em JSON (entradas antigas). Mede só
+ * a etapa de compressão (delegate byte[]), em cada nível do deflate; o main imprime os tamanhos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheCompressionBenchmark {
+
+    @Param({"compactPage", "jsonPage"})
+    private String value;
+
+    @Param({"1", "6"})
+    private int level;
+
+    private CompressingRedisSerializer<byte[]> serializer;
+    private byte[] raw;
+    private byte[] compressed;
+
+    @Setup
+    public void setUp() {
+        serializer = new CompressingRedisSerializer<>(RedisSerializer.byteArray(), 0, level, 1);
+        raw = sample(value);
+        compressed = serializer.serialize(raw);
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return serializer.serialize(raw);
+    }
+
+    @Benchmark
+    public byte[] decompress() {
+        return serializer.deserialize(compressed);
+    }
+
+    // Página de 50 workouts com 6 exercícios cada, como gravada no cache "workouts"
+    private static byte[] sample(String value) {
+        List<WorkoutDto> content = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            content.add(workout(98231L + i, 6));
+        }
+        CursorPage<WorkoutDto> page = new CursorPage<>(content, null, true, null);
+        return switch (value) {
+            case "compactPage" -> {
+                ExerciseDtoCodec exerciseDtoCodec = new ExerciseDtoCodec();
+                WorkoutDtoCodec workoutDtoCodec = new WorkoutDtoCodec(exerciseDtoCodec);
+                yield RedisConfig.cacheValueSerializer(List.of(exerciseDtoCodec, workoutDtoCodec,
+                        new UserResponseDtoCodec(workoutDtoCodec), new CursorPageCodec())).serialize(page);
+            }
+            case "jsonPage" -> RedisConfig.jsonRedisSerializer().serialize(page);
+            default -> throw new IllegalArgumentException(value);
+        };
+    }
+
+    private static WorkoutDto workout(long workoutId, int exerciseCount) {
+        String[] names = {"Supino inclinado", "Crucifixo", "Agachamento livre", "Leg press", "Remada curvada",
+                "Rosca direta"};
+        List<ExerciseDto> exercises = new ArrayList<>();
+        for (int i = 0; i < exerciseCount; i++) {
+            exercises.add(new ExerciseDto(workoutId * 10 + i, names[(int) (workoutId + i) % names.length],
+                    3 + i % 2, 8 + (int) (workoutId % 5), workoutId, 2L));
+        }
+        return new WorkoutDto(workoutId, "Treino " + (char) ('A' + workoutId % 3),
+                LocalDate.of(2025, 6, 19).minusDays(workoutId % 90), exercises, "john@email.com", 1842L, 5L);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (String value : List.of("compactPage", "jsonPage")) {
+            byte[] raw = sample(value);
+            for (int level : List.of(1, 6)) {
+                int size = new CompressingRedisSerializer<>(RedisSerializer.byteArray(), 0, level, 1)
+                        .serialize(raw).length;
+                System.out.printf("%-12s level=%d raw=%6d bytes  compressed=%6d bytes%n", value, level,
+                        raw.length, size);
+            }
+        }
+
+        new Runner(new OptionsBuilder()
+                .include(CacheCompressionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,134 @@
+package com.totex.simplegymapp.performance;
+
+import com.totex.simplegymapp.business.converter.CursorPageCodec;
+import com.totex.simplegymapp.business.converter.ExerciseDtoCodec;
+import com.totex.simplegymapp.business.converter.UserResponseDtoCodec;
+import com.totex.simplegymapp.business.converter.WorkoutDtoCodec;
+import com.totex.simplegymapp.business.dto.CursorPage;
+import com.totex.simplegymapp.business.dto.ExerciseDto;
+import com.totex.simplegymapp.business.dto.UserResponseDto;
+import com.totex.simplegymapp.business.dto.WorkoutDto;
+import com.totex.simplegymapp.infrastructure.config.RedisConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode dos valores em cache: GenericJackson2JsonRedisSerializer (com @class em cada objeto)
+ * contra o CompactRedisSerializer com os codecs dos DTOs. O main imprime também o tamanho em bytes
+ * de cada valor nos dois formatos, que é o que ocupa memória no Redis e banda na rede.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"user", "workout", "workoutPage"})
+    private String value;
+
+    private RedisSerializer<Object> json;
+    private RedisSerializer<Object> compact;
+    private Object cached;
+    private byte[] jsonBytes;
+    private byte[] compactBytes;
+
+    @Setup
+    public void setUp() {
+        json = RedisConfig.jsonRedisSerializer();
+        compact = compactSerializer();
+        cached = sample(value);
+        jsonBytes = json.serialize(cached);
+        compactBytes = compact.serialize(cached);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return json.serialize(cached);
+    }
+
+    @Benchmark
+    public Object jsonDecode() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public byte[] compactEncode() {
+        return compact.serialize(cached);
+    }
+
+    @Benchmark
+    public Object compactDecode() {
+        return compact.deserialize(compactBytes);
+    }
+
+    private static RedisSerializer<Object> compactSerializer() {
+        ExerciseDtoCodec exerciseDtoCodec = new ExerciseDtoCodec();
+        WorkoutDtoCodec workoutDtoCodec = new WorkoutDtoCodec(exerciseDtoCodec);
+        return RedisConfig.cacheValueSerializer(List.of(exerciseDtoCodec, workoutDtoCodec,
+                new UserResponseDtoCodec(workoutDtoCodec), new CursorPageCodec()));
+    }
+
+    // Formatos reais dos caches: usuário (users), workout com exercícios e página de my-workouts (workouts)
+    private static Object sample(String value) {
+        return switch (value) {
+            case "user" -> new UserResponseDto(1842L, "john", "john@email.com", null);
+            case "workout" -> workout(98231L, 8);
+            case "workoutPage" -> {
+                List<WorkoutDto> content = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    content.add(workout(98231L + i, 0));
+                }
+                yield new CursorPage<>(content, null, true, null);
+            }
+            default -> throw new IllegalArgumentException(value);
+        };
+    }
+
+    private static WorkoutDto workout(long workoutId, int exerciseCount) {
+        List<ExerciseDto> exercises = null;
+        if (exerciseCount > 0) {
+            exercises = new ArrayList<>();
+            for (int i = 0; i < exerciseCount; i++) {
+                exercises.add(new ExerciseDto(workoutId * 10 + i, "Supino inclinado " + i, 4, 12, workoutId, 2L));
+            }
+        }
+        return new WorkoutDto(workoutId, "Treino de Peito", LocalDate.of(2025, 6, 19), exercises,
+                "john@email.com", 1842L, 5L);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        RedisSerializer<Object> json = RedisConfig.jsonRedisSerializer();
+        RedisSerializer<Object> compact = compactSerializer();
+        for (String value : List.of("user", "workout", "workoutPage")) {
+            Object cached = sample(value);
+            System.out.printf("%-12s json=%6d bytes  compact=%6d bytes%n", value,
+                    json.serialize(cached).length, compact.serialize(cached).length);
+        }
+
+        new Runner(new OptionsBuilder()
+                .include(CacheSerializerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,118 @@
+package com.totex.simplegymapp.performance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.totex.simplegymapp.business.converter.ExerciseConverter;
+import com.totex.simplegymapp.business.dto.ExerciseDto;
+import com.totex.simplegymapp.business.service.ExerciseService;
+import com.totex.simplegymapp.controller.ExerciseController;
+import com.totex.simplegymapp.infrastructure.repository.ExerciseRepository;
+import com.totex.simplegymapp.infrastructure.repository.projection.ExerciseSummary;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GET /exercises/all com heap limitado: uma JVM filha com -Xmx48m exporta 3 milhões de linhas pelo
+ * controller e serviço reais. O modo "materialize" (o antigo findAll + List) precisa estourar no mesmo
+ * limite, garantindo que o teste realmente mede algo.
+ */
+class ExerciseStreamingHeapTest {
+
+    private static final long ROWS = 3_000_000L;
+    private static final String MAX_HEAP = "-Xmx48m";
+
+    @Test
+    void streamingExportShouldRunInCappedHeap() throws Exception {
+        // When
+        ChildResult result = runChild("stream");
+
+        // Then
+        assertThat(result.exitCode()).as(result.output()).isZero();
+        assertThat(result.output()).contains("lines=" + ROWS);
+    }
+
+    @Test
+    void materializingExportShouldNotFitInTheSameHeap() throws Exception {
+        // When
+        ChildResult result = runChild("materialize");
+
+        // Then
+        assertThat(result.exitCode()).isNotZero();
+        assertThat(result.output()).contains("OutOfMemoryError");
+    }
+
+    private ChildResult runChild(String mode) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, MAX_HEAP, "-cp", System.getProperty("java.class.path"),
+                Export.class.getName(), mode, String.valueOf(ROWS))
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(process.waitFor(2, TimeUnit.MINUTES)).isTrue();
+        return new ChildResult(process.exitValue(), output);
+    }
+
+    private record ChildResult(int exitCode, String output) {
+    }
+
+    public static final class Export {
+
+        public static void main(String[] args) throws IOException {
+            long rows = Long.parseLong(args[1]);
+            ExerciseRepository repository = (ExerciseRepository) Proxy.newProxyInstance(
+                    ExerciseRepository.class.getClassLoader(), new Class<?>[]{ExerciseRepository.class},
+                    (proxy, method, methodArgs) -> {
+                        if (method.getName().equals("streamAll")) {
+                            return rows(rows);
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+            ExerciseService service = new ExerciseService(repository, null, new ExerciseConverter(), null, null);
+
+            if (args[0].equals("materialize")) {
+                List<ExerciseDto> all = new ArrayList<>();
+                service.streamAllExercises(all::add);
+                System.out.println("lines=" + all.size());
+                return;
+            }
+
+            CountingOutputStream out = new CountingOutputStream();
+            new ExerciseController(service, new ObjectMapper()).getAllExercises().getBody().writeTo(out);
+            System.out.println("lines=" + out.lines);
+        }
+
+        private static Stream<ExerciseSummary> rows(long rows) {
+            return LongStream.rangeClosed(1, rows)
+                    .mapToObj(id -> new ExerciseSummary(id, "Supino Reto " + id, 4, 12, id / 10 + 1, 0L));
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
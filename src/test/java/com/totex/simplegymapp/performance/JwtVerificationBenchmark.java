@@ -0,0 +1,65 @@
+package com.totex.simplegymapp.performance;
+
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import com.totex.simplegymapp.infrastructure.security.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de autenticação por requisição: fluxo antigo (4 parses do mesmo token entre
+ * filtro e serviço) contra o contexto verificado uma única vez no filtro.
+ * Executar com: java -cp target/test-classes:<classpath de teste> ...performance.JwtVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil("benchmark-secret-key-minimum-256-bits-long-enough-for-hs256", 3600000L);
+        authorizationHeader = "Bearer " + jwtUtil.generateToken("bench@gym.com", 1L);
+    }
+
+    @Benchmark
+    public String legacyPerRequest() {
+        String token = authorizationHeader.substring(7);
+        // JwtRequestFilter: extractEmailToken + validateToken (extractEmailToken + isTokenExpired)
+        String username = jwtUtil.extractEmailToken(token);
+        if (!jwtUtil.validateToken(token, username)) {
+            throw new IllegalStateException("invalid token");
+        }
+        // Serviço: token.substring(7) de novo
+        return jwtUtil.extractEmailToken(authorizationHeader.substring(7));
+    }
+
+    @Benchmark
+    public AuthenticatedUser verifiedContextPerRequest() {
+        return jwtUtil.verifyToken(authorizationHeader.substring(7));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
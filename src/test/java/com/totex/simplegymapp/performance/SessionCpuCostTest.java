@@ -0,0 +1,96 @@
+package com.totex.simplegymapp.performance;
+
+import com.totex.simplegymapp.base.InMemoryStringRedis;
+import com.totex.simplegymapp.infrastructure.security.JwtUtil;
+import com.totex.simplegymapp.infrastructure.security.RefreshTokenService;
+import com.totex.simplegymapp.infrastructure.security.TokenEpochService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Custo de CPU de uma sessão autenticada de 8 horas: antes, um login (BCrypt) a cada expiração do
+ * access token de 1h; depois, um login e renovações via refresh token a cada 15 minutos.
+ */
+class SessionCpuCostTest {
+
+    private static final String SECRET = "test-secret-key-for-junit-tests-minimum-256-bits-long-enough-for-hs256-algorithm";
+    private static final Duration SESSION = Duration.ofHours(8);
+    private static final int SESSIONS = 2;
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final String storedHash = passwordEncoder.encode("Password@123");
+
+    private JwtUtil longLivedJwt;
+    private JwtUtil shortLivedJwt;
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        longLivedJwt = new JwtUtil(SECRET, Duration.ofHours(1).toMillis());
+        shortLivedJwt = new JwtUtil(SECRET, Duration.ofMinutes(15).toMillis());
+
+        TokenEpochService tokenEpochService = mock(TokenEpochService.class);
+        given(tokenEpochService.currentEpoch(anyLong())).willReturn(0L);
+        refreshTokenService = new RefreshTokenService(InMemoryStringRedis.create(), tokenEpochService,
+                Duration.ofDays(14).toMillis());
+
+        // Aquecimento do JIT para não contar a compilação em nenhum dos lados
+        loginOnlySession(1L);
+        refreshSession(1L);
+    }
+
+    @Test
+    void refreshTokensShouldCutCpuPerSessionByAnOrderOfMagnitude() {
+        // When
+        long before = cpuNanos(this::loginOnlySession) / SESSIONS;
+        long after = cpuNanos(this::refreshSession) / SESSIONS;
+
+        // Then
+        System.out.printf("CPU per 8h session: login-only=%.1f ms, login+refresh=%.1f ms (%.1fx)%n",
+                before / 1e6, after / 1e6, (double) before / after);
+        assertThat(after * 4).isLessThan(before);
+    }
+
+    private void loginOnlySession(long userId) {
+        long renewals = SESSION.toMillis() / longLivedJwt.getExpirationTime();
+        for (int i = 0; i < renewals; i++) {
+            assertThat(passwordEncoder.matches("Password@123", storedHash)).isTrue();
+            longLivedJwt.generateToken("user" + userId + "@example.com", userId);
+        }
+    }
+
+    private void refreshSession(long userId) {
+        String email = "user" + userId + "@example.com";
+        assertThat(passwordEncoder.matches("Password@123", storedHash)).isTrue();
+        shortLivedJwt.generateToken(email, userId);
+        String refreshToken = refreshTokenService.issue(userId, email, 0L);
+
+        long renewals = SESSION.toMillis() / shortLivedJwt.getExpirationTime();
+        for (int i = 1; i < renewals; i++) {
+            RefreshTokenService.RefreshedSession session = refreshTokenService.rotate(refreshToken);
+            shortLivedJwt.generateToken(session.email(), session.userId(), session.tokenEpoch());
+            refreshToken = session.refreshToken();
+        }
+    }
+
+    private long cpuNanos(LongConsumer session) {
+        long start = threadMXBean.getCurrentThreadCpuTime();
+        for (long userId = 1; userId <= SESSIONS; userId++) {
+            session.accept(userId);
+        }
+        return threadMXBean.getCurrentThreadCpuTime() - start;
+    }
+}
@@ -0,0 +1,163 @@
+package com.totex.simplegymapp.performance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.totex.simplegymapp.business.service.UserExportService;
+import com.totex.simplegymapp.infrastructure.repository.UserRepository;
+import com.totex.simplegymapp.infrastructure.repository.projection.UserExportRow;
+import com.totex.simplegymapp.infrastructure.security.AuthenticatedUser;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GET /user/export para um usuário sintético com 100 mil exercícios: o primeiro byte sai antes de o
+ * cursor avançar, a saída é descarregada a cada lote e a exportação roda inteira com heap de 16 MB,
+ * onde as mesmas linhas carregadas numa lista não cabem.
+ */
+class UserExportStreamingTest {
+
+    private static final long EXERCISES = 100_000L;
+    private static final long EXERCISES_PER_WORKOUT = 20L;
+    private static final String MAX_HEAP = "-Xmx16m";
+
+    @Test
+    void exportShouldFlushBeforeReadingTheWholeCursor() throws IOException {
+        // Given
+        AtomicLong rowsRead = new AtomicLong();
+        UserExportService service = new UserExportService(repository(rowsRead, false), new ObjectMapper());
+        FlushRecordingOutputStream out = new FlushRecordingOutputStream(rowsRead);
+
+        // When
+        long start = System.nanoTime();
+        service.exportUserData(principal(), out);
+        long total = System.nanoTime() - start;
+
+        // Then - o usuário é entregue antes do segundo row; depois, no máximo um lote entre flushes
+        long firstByte = out.firstFlushAt - start;
+        System.out.printf("User export (%d exercises): first byte=%.2f ms, total=%.1f ms, %d KB gzip, %d flushes%n",
+                EXERCISES, firstByte / 1e6, total / 1e6, out.bytes / 1024, out.rowsAtFlush.size());
+        assertThat(out.rowsAtFlush.get(0)).isEqualTo(1);
+        assertThat(maxRowsBetweenFlushes(out.rowsAtFlush)).isLessThanOrEqualTo(500);
+        assertThat(rowsRead).hasValue(EXERCISES);
+    }
+
+    @Test
+    void exportShouldRunInCappedHeap() throws Exception {
+        // When
+        ChildResult result = runChild("stream");
+
+        // Then
+        assertThat(result.exitCode()).as(result.output()).isZero();
+        assertThat(result.output()).contains("rows=" + EXERCISES);
+    }
+
+    @Test
+    void materializedRowsShouldNotFitInTheSameHeap() throws Exception {
+        // When
+        ChildResult result = runChild("materialize");
+
+        // Then
+        assertThat(result.exitCode()).isNotZero();
+        assertThat(result.output()).contains("OutOfMemoryError");
+    }
+
+    private long maxRowsBetweenFlushes(List<Long> rowsAtFlush) {
+        long max = 0;
+        for (int i = 1; i < rowsAtFlush.size(); i++) {
+            max = Math.max(max, rowsAtFlush.get(i) - rowsAtFlush.get(i - 1));
+        }
+        return max;
+    }
+
+    private ChildResult runChild(String mode) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, MAX_HEAP, "-cp", System.getProperty("java.class.path"),
+                Export.class.getName(), mode)
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(process.waitFor(2, TimeUnit.MINUTES)).isTrue();
+        return new ChildResult(process.exitValue(), output);
+    }
+
+    private static AuthenticatedUser principal() {
+        return new AuthenticatedUser(1L, "synthetic@example.com", 0L, new Date(System.currentTimeMillis() + 3600000L));
+    }
+
+    // Repositório com um cursor sintético: cada linha só é criada quando o serviço pede a próxima
+    private static UserRepository repository(AtomicLong rowsRead, boolean materialize) {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("streamExportRows")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    Stream<UserExportRow> rows = LongStream.rangeClosed(1, EXERCISES)
+                            .mapToObj(id -> {
+                                rowsRead.incrementAndGet();
+                                long workoutId = (id - 1) / EXERCISES_PER_WORKOUT + 1;
+                                return new UserExportRow(1L, "synthetic@example.com", "synthetic@example.com",
+                                        workoutId, "Treino " + workoutId, LocalDate.of(2024, 1, 1).plusDays(workoutId),
+                                        id, "Exercicio " + id, 4, 12);
+                            });
+                    return materialize ? new ArrayList<>(rows.toList()).stream() : rows;
+                });
+    }
+
+    private record ChildResult(int exitCode, String output) {
+    }
+
+    public static final class Export {
+
+        public static void main(String[] args) throws IOException {
+            AtomicLong rowsRead = new AtomicLong();
+            boolean materialize = args[0].equals("materialize");
+            new UserExportService(repository(rowsRead, materialize), new ObjectMapper())
+                    .exportUserData(principal(), OutputStream.nullOutputStream());
+            System.out.println("rows=" + rowsRead.get());
+        }
+    }
+
+    private static final class FlushRecordingOutputStream extends OutputStream {
+        private final AtomicLong rowsRead;
+        private final List<Long> rowsAtFlush = new ArrayList<>();
+        private long firstFlushAt;
+        private long bytes;
+
+        private FlushRecordingOutputStream(AtomicLong rowsRead) {
+            this.rowsRead = rowsRead;
+        }
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+
+        @Override
+        public void flush() {
+            if (rowsAtFlush.isEmpty()) {
+                firstFlushAt = System.nanoTime();
+            }
+            rowsAtFlush.add(rowsRead.get());
+        }
+    }
+}
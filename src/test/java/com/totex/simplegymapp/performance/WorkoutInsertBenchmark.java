@@ -0,0 +1,170 @@
+package com.totex.simplegymapp.performance;
+
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Criação de um workout com 30 exercícios: IDENTITY (31 INSERTs, cada um com ida e volta para buscar a
+ * chave gerada) contra sequência com pool de 50 + batch JDBC (INSERT do workout + um lote de exercícios,
+ * com um nextval a cada 50 ids). Usa H2 em modo servidor TCP como substituto local do Postgres, para que
+ * cada statement pague uma ida e volta de rede real; o SQL é o mesmo que o Hibernate gera.
+ * Executar com: java -cp target/test-classes:<classpath de teste> ...performance.WorkoutInsertBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkoutInsertBenchmark {
+
+    private static final int EXERCISES = 30;
+    private static final int ALLOCATION_SIZE = 50;
+
+    private Server server;
+    private Connection connection;
+
+    private PreparedStatement identityWorkoutInsert;
+    private PreparedStatement identityExerciseInsert;
+
+    private PreparedStatement workoutNextval;
+    private PreparedStatement exerciseNextval;
+    private PreparedStatement sequenceWorkoutInsert;
+    private PreparedStatement sequenceExerciseInsert;
+    private final IdPool workoutIds = new IdPool();
+    private final IdPool exerciseIds = new IdPool();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        connection = DriverManager.getConnection(
+                "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:inserts;DB_CLOSE_DELAY=-1", "sa", "");
+        connection.setAutoCommit(false);
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("create table identity_workout (workout_id bigint generated by default as identity primary key, "
+                    + "workout_name varchar(255), user_id bigint)");
+            ddl.execute("create table identity_exercise (exercise_id bigint generated by default as identity primary key, "
+                    + "exercise_name varchar(255), series integer, repetitions integer, workout_id bigint)");
+            ddl.execute("create sequence workout_seq start with 1 increment by " + ALLOCATION_SIZE);
+            ddl.execute("create sequence exercise_seq start with 1 increment by " + ALLOCATION_SIZE);
+            ddl.execute("create table workout (workout_id bigint primary key, workout_name varchar(255), user_id bigint)");
+            ddl.execute("create table exercise (exercise_id bigint primary key, exercise_name varchar(255), "
+                    + "series integer, repetitions integer, workout_id bigint)");
+        }
+        connection.commit();
+
+        identityWorkoutInsert = connection.prepareStatement(
+                "insert into identity_workout (workout_name, user_id) values (?, ?)", Statement.RETURN_GENERATED_KEYS);
+        identityExerciseInsert = connection.prepareStatement(
+                "insert into identity_exercise (exercise_name, series, repetitions, workout_id) values (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS);
+
+        workoutNextval = connection.prepareStatement("select next value for workout_seq");
+        exerciseNextval = connection.prepareStatement("select next value for exercise_seq");
+        sequenceWorkoutInsert = connection.prepareStatement(
+                "insert into workout (workout_name, user_id, workout_id) values (?, ?, ?)");
+        sequenceExerciseInsert = connection.prepareStatement(
+                "insert into exercise (exercise_name, series, repetitions, workout_id, exercise_id) values (?, ?, ?, ?, ?)");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public long identityInserts() throws SQLException {
+        identityWorkoutInsert.setString(1, "Treino");
+        identityWorkoutInsert.setLong(2, 1L);
+        identityWorkoutInsert.executeUpdate();
+        long workoutId = generatedKey(identityWorkoutInsert);
+
+        long lastId = 0;
+        for (int i = 0; i < EXERCISES; i++) {
+            identityExerciseInsert.setString(1, "Exercicio " + i);
+            identityExerciseInsert.setInt(2, 3);
+            identityExerciseInsert.setInt(3, 12);
+            identityExerciseInsert.setLong(4, workoutId);
+            identityExerciseInsert.executeUpdate();
+            lastId = generatedKey(identityExerciseInsert);
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    @Benchmark
+    public long pooledSequenceBatchInserts() throws SQLException {
+        long workoutId = workoutIds.next(workoutNextval);
+        sequenceWorkoutInsert.setString(1, "Treino");
+        sequenceWorkoutInsert.setLong(2, 1L);
+        sequenceWorkoutInsert.setLong(3, workoutId);
+        sequenceWorkoutInsert.executeUpdate();
+
+        long lastId = 0;
+        for (int i = 0; i < EXERCISES; i++) {
+            lastId = exerciseIds.next(exerciseNextval);
+            sequenceExerciseInsert.setString(1, "Exercicio " + i);
+            sequenceExerciseInsert.setInt(2, 3);
+            sequenceExerciseInsert.setInt(3, 12);
+            sequenceExerciseInsert.setLong(4, workoutId);
+            sequenceExerciseInsert.setLong(5, lastId);
+            sequenceExerciseInsert.addBatch();
+        }
+        sequenceExerciseInsert.executeBatch();
+        connection.commit();
+        return lastId;
+    }
+
+    private static long generatedKey(PreparedStatement statement) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            keys.next();
+            return keys.getLong(1);
+        }
+    }
+
+    // Mesmo comportamento do otimizador pooled do Hibernate: um nextval reserva o bloco inteiro
+    private static final class IdPool {
+        private long next;
+        private long max = -1;
+
+        long next(PreparedStatement nextval) throws SQLException {
+            if (next > max) {
+                try (ResultSet rs = nextval.executeQuery()) {
+                    rs.next();
+                    next = rs.getLong(1);
+                    max = next + ALLOCATION_SIZE - 1;
+                }
+            }
+            return next++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WorkoutInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.totex.simplegymapp.performance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /workouts/all em profundidade: Page (LIMIT/OFFSET + COUNT) contra o modo cursor
+ * (seek por workout_id). Usa H2 em memória com o mesmo SQL que o Hibernate gera para as duas queries.
+ * Executar com: java -cp target/test-classes:<classpath de teste> ...performance.WorkoutPaginationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkoutPaginationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int WORKOUTS = 250_000;
+    private static final String SELECT = "select w.workout_id, w.workout_name, w.start_date, u.user_id, u.email "
+            + "from workout w left join \"user\" u on u.user_id = w.user_id ";
+
+    @Param({"10", "1000", "10000"})
+    private int page;
+
+    private Connection connection;
+    private PreparedStatement offsetQuery;
+    private PreparedStatement countQuery;
+    private PreparedStatement seekQuery;
+    private long cursorAtPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:pagination;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE", "sa", "");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("create table if not exists \"user\" (user_id bigint primary key, email varchar(255))");
+            ddl.execute("create table if not exists workout (workout_id bigint generated by default as identity primary key, "
+                    + "workout_name varchar(255), start_date date, user_id bigint references \"user\")");
+            ddl.execute("delete from workout");
+            ddl.execute("delete from \"user\"");
+            ddl.execute("insert into \"user\" select x, 'user' || x || '@gym.com' from system_range(1, 1000)");
+            ddl.execute("insert into workout (workout_name, start_date, user_id) "
+                    + "select 'Treino ' || x, dateadd('DAY', -mod(x, 365), current_date), mod(x, 1000) + 1 "
+                    + "from system_range(1, " + WORKOUTS + ")");
+        }
+
+        offsetQuery = connection.prepareStatement(SELECT + "order by w.workout_id offset ? rows fetch first ? rows only");
+        countQuery = connection.prepareStatement("select count(w.workout_id) from workout w");
+        seekQuery = connection.prepareStatement(SELECT + "where w.workout_id > ? order by w.workout_id fetch first ? rows only");
+
+        // O cursor da página N é o último id da página N-1 (calculado fora da medição)
+        try (PreparedStatement lastId = connection.prepareStatement(
+                "select workout_id from workout order by workout_id offset ? rows fetch first 1 rows only")) {
+            lastId.setLong(1, (long) page * PAGE_SIZE - 1);
+            try (ResultSet rs = lastId.executeQuery()) {
+                rs.next();
+                cursorAtPage = rs.getLong(1);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void offsetPageWithCount(Blackhole blackhole) throws SQLException {
+        offsetQuery.setLong(1, (long) page * PAGE_SIZE);
+        offsetQuery.setInt(2, PAGE_SIZE);
+        consume(offsetQuery, blackhole);
+        consume(countQuery, blackhole);
+    }
+
+    @Benchmark
+    public void seekPage(Blackhole blackhole) throws SQLException {
+        seekQuery.setLong(1, cursorAtPage);
+        // Slice busca size + 1 para saber se há próxima página
+        seekQuery.setInt(2, PAGE_SIZE + 1);
+        consume(seekQuery, blackhole);
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getLong(1));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WorkoutPaginationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}